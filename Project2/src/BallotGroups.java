@@ -0,0 +1,191 @@
+import java.util.Arrays;
+
+/**
+ * BallotGroups keeps track of the distinct rankings cast in a ranked election and how many
+ * ballots cast each ranking. A ranking is a sequence of candidate IDs in order of preference.
+ * The rankings are kept in the order they were first seen and are stored without any boxing so
+ * a ballot whose ranking has already been seen does not allocate anything.
+ */
+public class BallotGroups {
+
+  /**
+   * The distinct rankings in the order they were first seen.
+   */
+  private short[][] rankings;
+
+  /**
+   * The number of ballots that cast each ranking.
+   */
+  private long[] counts;
+
+  /**
+   * The hash of each ranking so the table can be resized without rehashing the rankings.
+   */
+  private int[] hashes;
+
+  /**
+   * An open addressing hash table. Each slot holds the index of a ranking plus one, or zero if the
+   * slot is empty. The length of the table is always a power of two.
+   */
+  private int[] table;
+
+  /**
+   * The number of distinct rankings.
+   */
+  private int size;
+
+  /**
+   * Constructor initializes an empty set of ballot groups.
+   */
+  public BallotGroups() {
+    rankings = new short[16][];
+    counts = new long[16];
+    hashes = new int[16];
+    table = new int[32];
+    size = 0;
+  }
+
+  /**
+   * Adds ballots with the given ranking. The ranking is only copied if it has not been seen before,
+   * so the caller is free to reuse the array afterwards.
+   *
+   * @param ranking the candidate IDs in order of preference.
+   * @param length the number of candidates ranked (the rest of the array is ignored).
+   * @param count the number of ballots that cast the ranking.
+   * @return the index of the ranking's group.
+   * @throws IllegalArgumentException if the length or the count is negative.
+   */
+  public int add(short[] ranking, int length, long count) throws IllegalArgumentException {
+    if (length < 0 || count < 0) throw new IllegalArgumentException("Length and count cannot be negative.");
+
+    int hash = hash(ranking, length);
+    int mask = table.length - 1;
+    for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+      int group = table[slot] - 1;
+      if (group < 0) {
+        // first time seeing this ranking
+        group = newGroup(Arrays.copyOf(ranking, length), hash, count);
+        table[slot] = group + 1;
+        if (size * 2 > table.length) {
+          resize();
+        }
+        return group;
+      }
+      if (hashes[group] == hash && sameRanking(rankings[group], ranking, length)) {
+        counts[group] += count;
+        return group;
+      }
+    }
+  }
+
+  /**
+   * Adds every group from other to these groups. The groups from other that have not been seen
+   * before are added in the order other first saw them.
+   *
+   * @param other the groups to add.
+   */
+  public void addAll(BallotGroups other) {
+    for (int group = 0; group < other.size; group++) {
+      add(other.rankings[group], other.rankings[group].length, other.counts[group]);
+    }
+  }
+
+  /**
+   * Gets the number of distinct rankings.
+   *
+   * @return number of distinct rankings.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Gets the ranking of a group. The returned array should not be modified.
+   *
+   * @param group the index of the group.
+   * @return the candidate IDs of the group in order of preference.
+   */
+  public short[] getRanking(int group) {
+    return rankings[group];
+  }
+
+  /**
+   * Gets the number of ballots that cast the ranking of a group.
+   *
+   * @param group the index of the group.
+   * @return number of ballots in the group.
+   */
+  public long getCount(int group) {
+    return counts[group];
+  }
+
+  /**
+   * Appends a new group to the end of the groups.
+   *
+   * @param ranking the ranking of the group.
+   * @param hash the hash of the ranking.
+   * @param count the number of ballots in the group.
+   * @return the index of the new group.
+   */
+  private int newGroup(short[] ranking, int hash, long count) {
+    if (size == rankings.length) {
+      rankings = Arrays.copyOf(rankings, size * 2);
+      counts = Arrays.copyOf(counts, size * 2);
+      hashes = Arrays.copyOf(hashes, size * 2);
+    }
+    rankings[size] = ranking;
+    counts[size] = count;
+    hashes[size] = hash;
+    return size++;
+  }
+
+  /**
+   * Doubles the size of the hash table and puts every group back into it.
+   */
+  private void resize() {
+    table = new int[table.length * 2];
+    int mask = table.length - 1;
+    for (int group = 0; group < size; group++) {
+      int slot = hashes[group] & mask;
+      while (table[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      table[slot] = group + 1;
+    }
+  }
+
+  /**
+   * Hashes the first length candidate IDs of a ranking.
+   *
+   * @param ranking the candidate IDs in order of preference.
+   * @param length the number of candidates ranked.
+   * @return the hash of the ranking.
+   */
+  private static int hash(short[] ranking, int length) {
+    int hash = 1;
+    for (int i = 0; i < length; i++) {
+      hash = 31 * hash + ranking[i];
+    }
+    return hash ^ (hash >>> 16);
+  }
+
+  /**
+   * Checks if a stored ranking is the same as the first length candidate IDs of another ranking.
+   *
+   * @param stored the stored ranking.
+   * @param ranking the ranking to compare against.
+   * @param length the number of candidates ranked in ranking.
+   * @return true if the rankings are the same, false otherwise.
+   */
+  private static boolean sameRanking(short[] stored, short[] ranking, int length) {
+    if (stored.length != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (stored[i] != ranking[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,385 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * An abstract class that every ballot parser will inherit. A ballot parser reads the ballot
+ * section of an election file byte by byte from a memory mapped file (or from a stream or buffer),
+ * one ballot per line.
+ * The ballot section can also be split up into byte ranges of whole lines that are parsed in
+ * parallel and merged back together in order.
+ */
+public abstract class BallotParser {
+
+  /**
+   * The largest part of a file that is mapped into memory at once.
+   */
+  private static final long MAP_WINDOW_SIZE = 64L * 1024 * 1024;
+
+  /**
+   * The size of the buffer lines are read into when parsing from a stream. The buffer grows if a
+   * single line does not fit.
+   */
+  private static final int STREAM_BUFFER_SIZE = 1024 * 1024;
+
+  /**
+   * The smallest byte range of a ballot section that is parsed on its own when parsing in parallel.
+   */
+  public static final long MIN_RANGE_SIZE = 256L * 1024;
+
+  /**
+   * The number of lines (valid or invalid ballots) parsed so far.
+   */
+  protected int linesParsed;
+
+  /**
+   * Parses a single ballot.
+   *
+   * @param buffer the buffer holding the ballot.
+   * @param start the index of the first byte of the ballot.
+   * @param end the index right after the last byte of the ballot (not including the newline).
+   * @throws IOException if the ballot is not formatted correctly.
+   */
+  protected abstract void parseBallot(ByteBuffer buffer, int start, int end) throws IOException;
+
+  /**
+   * Adds everything parsed by other to this parser as if this parser had gone on to parse the
+   * same ballots itself.
+   *
+   * @param other a parser of the same type that parsed the ballots following this parser's.
+   */
+  protected abstract void merge(BallotParser other);
+
+  /**
+   * Parses a number of ballots from a file starting at the given position. Each ballot is one
+   * line. The last ballot in the file does not need to end with a newline.
+   *
+   * @param channel the file to parse.
+   * @param position the byte offset of the first ballot.
+   * @param ballotsToParse the number of ballots to parse.
+   * @return the byte offset right after the last ballot parsed.
+   * @throws IOException if the file ends before all the ballots are parsed, or a ballot is not
+   *                     formatted correctly.
+   */
+  public long parse(FileChannel channel, long position, int ballotsToParse) throws IOException {
+    int linesBefore = linesParsed;
+    position = parseLines(channel, position, channel.size(), ballotsToParse);
+    if (linesParsed - linesBefore < ballotsToParse) {
+      throw new IOException("The file has fewer ballots than expected.");
+    }
+    return position;
+  }
+
+  /**
+   * Parses a number of ballots from a stream, such as the decompressed contents of a gzip file.
+   * Each ballot is one line. The last ballot in the stream does not need to end with a newline.
+   *
+   * @param in the stream positioned at the first ballot.
+   * @param ballotsToParse the number of ballots to parse.
+   * @throws IOException if the stream ends before all the ballots are parsed, or a ballot is not
+   *                     formatted correctly.
+   */
+  public void parse(InputStream in, int ballotsToParse) throws IOException {
+    byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+    ByteBuffer lines = ByteBuffer.wrap(buffer);
+    int filled = 0;     // the number of bytes in the buffer
+    int lineStart = 0;  // the start of the first line not parsed yet
+    int scanned = 0;    // the number of bytes already searched for a newline
+    int linesLeft = ballotsToParse;
+    boolean endOfStream = false;
+    while (linesLeft > 0) {
+      // parse every complete line in the buffer
+      for (; scanned < filled && linesLeft > 0; scanned++) {
+        if (buffer[scanned] == '\n') {
+          parseBallot(lines, lineStart, scanned);
+          linesParsed++;
+          linesLeft--;
+          lineStart = scanned + 1;
+        }
+      }
+      if (linesLeft == 0) {
+        break;
+      }
+      if (endOfStream) {
+        if (lineStart < filled) {
+          // the last line of the stream doesn't end with a newline
+          parseBallot(lines, lineStart, filled);
+          linesParsed++;
+          linesLeft--;
+        }
+        break;
+      }
+
+      // move the line that isn't complete yet to the front, or make room for it if it fills the
+      // whole buffer
+      if (lineStart > 0) {
+        System.arraycopy(buffer, lineStart, buffer, 0, filled - lineStart);
+        filled -= lineStart;
+        scanned -= lineStart;
+        lineStart = 0;
+      } else if (filled == buffer.length) {
+        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        lines = ByteBuffer.wrap(buffer);
+      }
+
+      int read = in.read(buffer, filled, buffer.length - filled);
+      if (read < 0) {
+        endOfStream = true;
+      } else {
+        filled += read;
+      }
+    }
+
+    if (linesLeft > 0) {
+      throw new IOException("The file has fewer ballots than expected.");
+    }
+  }
+
+  /**
+   * Parses a number of ballots from a buffer, starting at the buffer's position. Each ballot is one
+   * line. The last ballot in the buffer does not need to end with a newline.
+   *
+   * @param lines the buffer holding the ballots, up to its limit.
+   * @param ballotsToParse the number of ballots to parse.
+   * @throws IOException if the buffer ends before all the ballots are parsed, or a ballot is not
+   *                     formatted correctly.
+   */
+  public void parse(ByteBuffer lines, int ballotsToParse) throws IOException {
+    int lineStart = lines.position();
+    int linesLeft = ballotsToParse;
+    for (int i = lineStart; i < lines.limit() && linesLeft > 0; i++) {
+      if (lines.get(i) == '\n') {
+        parseBallot(lines, lineStart, i);
+        linesParsed++;
+        linesLeft--;
+        lineStart = i + 1;
+      }
+    }
+    if (linesLeft > 0 && lineStart < lines.limit()) {
+      // the last line of the buffer doesn't end with a newline
+      parseBallot(lines, lineStart, lines.limit());
+      linesParsed++;
+      linesLeft--;
+    }
+
+    if (linesLeft > 0) {
+      throw new IOException("The buffer has fewer ballots than expected.");
+    }
+  }
+
+  /**
+   * Parses the lines of a file between two byte offsets. The start offset should be the start of a
+   * line, and the end offset should be right after a newline or the end of the file.
+   *
+   * @param channel the file to parse.
+   * @param position the byte offset of the first line.
+   * @param end the byte offset to stop parsing at.
+   * @param maxLines the most lines to parse.
+   * @return the byte offset right after the last line parsed.
+   * @throws IOException if a line could not be parsed.
+   */
+  private long parseLines(FileChannel channel, long position, long end, int maxLines)
+          throws IOException {
+    int linesLeft = maxLines;
+    while (linesLeft > 0 && position < end) {
+      int windowSize = (int) Math.min(MAP_WINDOW_SIZE, end - position);
+      boolean lastWindow = position + windowSize == end;
+      MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+
+      // parse every complete line in the window
+      int lineStart = 0;
+      for (int i = 0; i < windowSize && linesLeft > 0; i++) {
+        if (window.get(i) == '\n') {
+          parseBallot(window, lineStart, i);
+          linesParsed++;
+          linesLeft--;
+          lineStart = i + 1;
+        }
+      }
+      if (lastWindow && linesLeft > 0 && lineStart < windowSize) {
+        // the last line of the file doesn't end with a newline
+        parseBallot(window, lineStart, windowSize);
+        linesParsed++;
+        linesLeft--;
+        lineStart = windowSize;
+      }
+
+      if (lineStart == 0) {
+        throw new IOException("A ballot does not fit in a single mapped window.");
+      }
+      position += lineStart; // the next window starts at the first line not parsed
+    }
+    return position;
+  }
+
+  /**
+   * Parses a number of ballots from a file starting at the given position by splitting the ballot
+   * section into byte ranges that line up with the start of ballots. The ranges are parsed in
+   * parallel and merged back together in order, so the result is the same as calling parse on a
+   * single parser. The range holding the last ballot is parsed again up to that ballot, so the
+   * lines after it are ignored like they are with parse, and the ranges after it are not used.
+   * Ranges that are no longer needed are cancelled, but a range that is already being parsed
+   * can't be stopped, so this only returns once the pool has no ranges left to parse. The channel
+   * can then be closed without a range still reading it.
+   *
+   * @param channel the file to parse.
+   * @param position the byte offset of the first ballot.
+   * @param ballotsToParse the number of ballots to parse.
+   * @param newParser creates an empty parser for each range.
+   * @param pool the pool that parses the ranges, which shouldn't be running anything else.
+   * @param <P> the type of parser.
+   * @return a parser holding every ballot parsed.
+   * @throws IOException if the file ends before all the ballots are parsed, or a ballot is not
+   *                     formatted correctly.
+   */
+  public static <P extends BallotParser> P parseInParallel(FileChannel channel, long position,
+                                                           int ballotsToParse, Supplier<P> newParser,
+                                                           ForkJoinPool pool) throws IOException {
+    long end = channel.size();
+    long rangeSize = Math.max(MIN_RANGE_SIZE, (end - position) / (pool.getParallelism() * 4L));
+    ArrayList<RangeTask<P>> ranges = new ArrayList<>();
+    for (long start = position; start < end; ) {
+      long rangeEnd = end - start > rangeSize ? nextLineStart(channel, start + rangeSize, end)
+              : end;
+      RangeTask<P> range = new RangeTask<>(channel, start, rangeEnd, newParser);
+      pool.execute(range);
+      ranges.add(range);
+      start = rangeEnd;
+    }
+
+    P parser = newParser.get();
+    try {
+      for (RangeTask<P> range : ranges) {
+        int linesLeft = ballotsToParse - parser.linesParsed;
+        if (linesLeft == 0) {
+          break; // every ballot has been parsed, so the rest of the file isn't needed
+        }
+
+        P rangeParser;
+        try {
+          rangeParser = range.join();
+        } catch (UncheckedIOException ex) {
+          rangeParser = null; // the line that could not be parsed may be after the last ballot
+        }
+        if (rangeParser == null || rangeParser.linesParsed > linesLeft) {
+          rangeParser = newParser.get();
+          ((BallotParser) rangeParser).parseLines(channel, range.start, range.end, linesLeft);
+        }
+        parser.merge(rangeParser);
+      }
+    } finally {
+      // the ranges that haven't started are dropped, and the ones being parsed are waited for
+      for (RangeTask<P> range : ranges) {
+        range.cancel(false);
+      }
+      pool.awaitQuiescence(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    if (parser.linesParsed < ballotsToParse) {
+      throw new IOException("The file has fewer ballots than expected.");
+    }
+    return parser;
+  }
+
+  /**
+   * Finds the start of the first line at or after a byte offset.
+   *
+   * @param channel the file to search.
+   * @param position the byte offset to start searching from.
+   * @param end the byte offset to stop searching at.
+   * @return the byte offset right after the next newline, or end if there isn't one.
+   * @throws IOException if the file could not be read.
+   */
+  private static long nextLineStart(FileChannel channel, long position, long end)
+          throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(4096);
+    while (position < end) {
+      buffer.clear();
+      int read = channel.read(buffer, position);
+      if (read <= 0) {
+        break;
+      }
+      for (int i = 0; i < read; i++) {
+        if (buffer.get(i) == '\n') {
+          return Math.min(position + i + 1, end);
+        }
+      }
+      position += read;
+    }
+    return end;
+  }
+
+  /**
+   * Parses a byte range of a ballot section that starts at the start of a line and ends right
+   * after a newline or at the end of the file.
+   *
+   * @param <P> the type of parser.
+   */
+  private static class RangeTask<P extends BallotParser> extends RecursiveTask<P> {
+
+    /**
+     * The version of the task's serialized form.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The file being parsed.
+     */
+    private final transient FileChannel channel;
+
+    /**
+     * The byte offset of the first line in the range.
+     */
+    private final long start;
+
+    /**
+     * The byte offset right after the last line in the range.
+     */
+    private final long end;
+
+    /**
+     * Creates an empty parser for the range.
+     */
+    private final transient Supplier<P> newParser;
+
+    /**
+     * Constructor initializes a task for the lines between start and end.
+     *
+     * @param channel the file being parsed.
+     * @param start the byte offset of the first line in the range.
+     * @param end the byte offset right after the last line in the range.
+     * @param newParser creates an empty parser for the range.
+     */
+    private RangeTask(FileChannel channel, long start, long end, Supplier<P> newParser) {
+      this.channel = channel;
+      this.start = start;
+      this.end = end;
+      this.newParser = newParser;
+    }
+
+    /**
+     * Parses every line in the range.
+     *
+     * @return a parser holding every line in the range.
+     */
+    @Override
+    protected P compute() {
+      try {
+        P parser = newParser.get();
+        ((BallotParser) parser).parseLines(channel, start, end, Integer.MAX_VALUE);
+        return parser;
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+  }
+}
@@ -0,0 +1,204 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for parsing the ballot section of a file in parallel byte ranges with a BallotParser.
+ */
+public class BallotParserTest {
+
+  /**
+   * The number of candidates in the generated IR ballots.
+   */
+  private static final int NUMBER_OF_CANDIDATES = 3;
+
+  /**
+   * The header the ballots are written after, so the ranges don't start at the start of the file.
+   */
+  private static final String HEADER = "IR\n3\nA,B,C\n";
+
+  /**
+   * The pool the ranges are parsed on. With two threads, a file of a few ranges is split every
+   * BallotParser.MIN_RANGE_SIZE bytes.
+   */
+  private ForkJoinPool pool;
+
+  /**
+   * A directory for the ballot files that is deleted after each test.
+   */
+  @TempDir
+  Path tempDir;
+
+  /**
+   * Creates the pool the ranges are parsed on.
+   */
+  @BeforeEach
+  public void setUp() {
+    pool = new ForkJoinPool(2);
+  }
+
+  /**
+   * Shuts down the pool the ranges are parsed on.
+   */
+  @AfterEach
+  public void tearDown() {
+    pool.shutdown();
+  }
+
+  /**
+   * Generates IR ballots over three ranges, lined up so the byte where the first range is split
+   * is a given character. Every fourth ballot only ranks one candidate, which is not enough to be
+   * valid.
+   *
+   * @param lineEnding the end of each line.
+   * @param atSplit the character at the byte the first range is split at.
+   * @return the ballots, one per line, after the header.
+   */
+  private static String generateIRBallots(String lineEnding, char atSplit) {
+    String[] ballots = new String[] {"1,2,3", "3,,1", "2,3,1", ",1,"};
+    int splitAt = HEADER.length() + (int) BallotParser.MIN_RANGE_SIZE;
+    for (int shift = 0; shift < 16; shift++) {
+      // each empty rank past the last candidate shifts the lines after it by one byte
+      StringBuilder file = new StringBuilder(HEADER);
+      file.append("1,2,3").append(",".repeat(shift)).append(lineEnding);
+      for (int i = 0; file.length() < 3 * BallotParser.MIN_RANGE_SIZE; i++) {
+        file.append(ballots[i % ballots.length]).append(lineEnding);
+      }
+      if (file.charAt(splitAt) == atSplit) {
+        return file.toString();
+      }
+    }
+    throw new IllegalStateException("The ballots can't be lined up on " + atSplit);
+  }
+
+  /**
+   * Writes a file to the temporary directory.
+   *
+   * @param contents the contents of the file.
+   * @return the path of the file.
+   * @throws IOException if the file could not be written.
+   */
+  private Path writeFile(String contents) throws IOException {
+    Path file = tempDir.resolve("ballots.csv");
+    Files.write(file, contents.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+
+  /**
+   * Counts the ballots of a file in parallel and one after another, and asserts both parsers hold
+   * the same ballots in the same order, and that no range is still being parsed once the parallel
+   * parse returns.
+   *
+   * @param contents the contents of the file, with the ballots after the header.
+   * @param ballotsToParse the number of ballots to parse.
+   * @return the parser that parsed the ranges in parallel.
+   * @throws IOException if the ballots could not be parsed.
+   */
+  private IRBallotParser assertParsedInParallel(String contents, int ballotsToParse)
+          throws IOException {
+    try (FileChannel channel = FileChannel.open(writeFile(contents), StandardOpenOption.READ)) {
+      IRBallotParser expected = new IRBallotParser(NUMBER_OF_CANDIDATES);
+      expected.parse(channel, HEADER.length(), ballotsToParse);
+      IRBallotParser actual = BallotParser.parseInParallel(channel, HEADER.length(),
+              ballotsToParse, () -> new IRBallotParser(NUMBER_OF_CANDIDATES), pool);
+      assertTrue(pool.isQuiescent());
+
+      assertEquals(expected.getNumberOfBallots(), actual.getNumberOfBallots());
+      assertEquals(expected.getInvalidBallots(), actual.getInvalidBallots());
+      BallotGroups expectedGroups = expected.getBallotGroups();
+      BallotGroups actualGroups = actual.getBallotGroups();
+      assertEquals(expectedGroups.size(), actualGroups.size());
+      for (int group = 0; group < expectedGroups.size(); group++) {
+        assertArrayEquals(expectedGroups.getRanking(group), actualGroups.getRanking(group));
+        assertEquals(expectedGroups.getCount(group), actualGroups.getCount(group));
+      }
+      return actual;
+    }
+  }
+
+  /**
+   * Counts the lines of a file after the header.
+   *
+   * @param contents the contents of the file.
+   * @return the number of lines after the header.
+   */
+  private static int countLines(String contents) {
+    return (int) contents.substring(HEADER.length()).chars().filter(c -> c == '\n').count();
+  }
+
+  /**
+   * Tests that ranges split in the middle of a ballot are parsed the same as parsing the ballots
+   * one after another.
+   */
+  @Test
+  public void testSplitMidLine() throws IOException {
+    String contents = generateIRBallots("\n", ',');
+    IRBallotParser parser = assertParsedInParallel(contents, countLines(contents));
+    assertEquals(countLines(contents), parser.getNumberOfBallots()
+            + parser.getInvalidBallots().size());
+    assertFalse(parser.getInvalidBallots().isEmpty());
+  }
+
+  /**
+   * Tests that ranges split on either byte of a windows line ending are parsed the same as parsing
+   * the ballots one after another.
+   */
+  @Test
+  public void testSplitOnWindowsLineEnding() throws IOException {
+    for (char atSplit : new char[] {'\r', '\n'}) {
+      String contents = generateIRBallots("\r\n", atSplit);
+      IRBallotParser parser = assertParsedInParallel(contents, countLines(contents));
+      assertEquals(countLines(contents), parser.getNumberOfBallots()
+              + parser.getInvalidBallots().size());
+      for (String invalidBallot : parser.getInvalidBallots()) {
+        assertEquals(",1,", invalidBallot);
+      }
+    }
+  }
+
+  /**
+   * Tests that the lines after the last ballot are ignored like they are when parsing the ballots
+   * one after another, even blank lines and lines with an invalid rank.
+   */
+  @Test
+  public void testLinesAfterLastBallot() throws IOException {
+    String contents = generateIRBallots("\n", '\n');
+    int numberOfLines = countLines(contents);
+    assertParsedInParallel(contents + "\n\nnot a ballot\n", numberOfLines);
+    assertParsedInParallel(contents + "1,2,4\n", numberOfLines);
+    assertParsedInParallel(contents, numberOfLines - 1);
+    assertParsedInParallel(contents, 10);
+
+    // the last ballot doesn't need to end with a newline
+    assertParsedInParallel(contents + "2,1,3", numberOfLines + 1);
+  }
+
+  /**
+   * Tests that a file with fewer ballots than expected, or an invalid rank before the last ballot,
+   * can't be parsed.
+   */
+  @Test
+  public void testInvalidBallots() throws IOException {
+    String contents = generateIRBallots("\n", '\n');
+    int numberOfLines = countLines(contents);
+    assertThrows(IOException.class, () -> assertParsedInParallel(contents, numberOfLines + 1));
+
+    String invalidRank = contents + "1,2,4\n";
+    try (FileChannel channel = FileChannel.open(writeFile(invalidRank), StandardOpenOption.READ)) {
+      assertThrows(IOException.class, () -> BallotParser.parseInParallel(channel, HEADER.length(),
+              numberOfLines + 1, () -> new IRBallotParser(NUMBER_OF_CANDIDATES), pool));
+      assertTrue(pool.isQuiescent());
+    }
+  }
+}
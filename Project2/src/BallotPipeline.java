@@ -0,0 +1,491 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Parses the ballots of a stream in three stages so reading, parsing, and tallying can overlap.
+ * A reader thread reads the stream into batches of whole lines, parser threads parse each batch
+ * with their own parser, and the calling thread tallies the batches by merging the parsers back
+ * together in the order the batches were read, so the result is the same as parsing the stream
+ * with a single parser. The stages are connected by bounded queues, and the reader waits whenever
+ * too many batches are waiting to be tallied so a slow stage can't make the others use up memory.
+ * The time spent in each stage and the deepest each queue got are counted while parsing.
+ */
+public class BallotPipeline {
+
+  /**
+   * The number of bytes the reader reads into each batch. A batch grows if a single line does not
+   * fit.
+   */
+  public static final int BATCH_SIZE = 1024 * 1024;
+
+  /**
+   * The number of parser threads.
+   */
+  private final int numParsers;
+
+  /**
+   * The most batches that can be read but not tallied yet.
+   */
+  private final int capacity;
+
+  /**
+   * The number of batches read from the stream.
+   */
+  private final AtomicInteger batchesRead = new AtomicInteger();
+
+  /**
+   * The most batches waiting to be parsed at once.
+   */
+  private final AtomicInteger maxBatchQueueDepth = new AtomicInteger();
+
+  /**
+   * The most parsed batches waiting to be tallied at once.
+   */
+  private final AtomicInteger maxParsedQueueDepth = new AtomicInteger();
+
+  /**
+   * The time in nanoseconds the reader spent reading the stream and splitting it into batches.
+   */
+  private final AtomicLong readTime = new AtomicLong();
+
+  /**
+   * The time in nanoseconds the reader spent waiting for batches to be tallied.
+   */
+  private final AtomicLong readerBlockedTime = new AtomicLong();
+
+  /**
+   * The time in nanoseconds the parsers spent parsing, added up across the parsers.
+   */
+  private final AtomicLong parseTime = new AtomicLong();
+
+  /**
+   * The time in nanoseconds the parsers spent waiting for batches, added up across the parsers.
+   */
+  private final AtomicLong parserIdleTime = new AtomicLong();
+
+  /**
+   * The time in nanoseconds spent merging the parsed batches.
+   */
+  private final AtomicLong tallyTime = new AtomicLong();
+
+  /**
+   * The time in nanoseconds spent waiting for parsed batches to tally.
+   */
+  private final AtomicLong tallyIdleTime = new AtomicLong();
+
+  /**
+   * Constructor initializes a pipeline with the given number of parser threads.
+   *
+   * @param numParsers the number of parser threads.
+   * @param capacity the most batches that can be read but not tallied yet.
+   * @throws IllegalArgumentException if numParsers or capacity is less than 1.
+   */
+  public BallotPipeline(int numParsers, int capacity) throws IllegalArgumentException {
+    if (numParsers < 1) throw new IllegalArgumentException("Number of parsers must be at least 1.");
+    if (capacity < 1) throw new IllegalArgumentException("Capacity must be at least 1.");
+
+    this.numParsers = numParsers;
+    this.capacity = capacity;
+  }
+
+  /**
+   * Parses a number of ballots from a stream. Each ballot is one line. The last ballot in the
+   * stream does not need to end with a newline, and anything after the last ballot is ignored.
+   *
+   * @param in the stream positioned at the first ballot.
+   * @param ballotsToParse the number of ballots to parse.
+   * @param newParser creates an empty parser for each batch.
+   * @param <P> the type of parser.
+   * @return a parser holding every ballot parsed.
+   * @throws IOException if the stream ends before all the ballots are parsed, a ballot is not
+   *                     formatted correctly, or the pipeline was interrupted.
+   */
+  public <P extends BallotParser> P parse(InputStream in, int ballotsToParse,
+                                          Supplier<P> newParser) throws IOException {
+    Semaphore batchesInFlight = new Semaphore(capacity);
+    BlockingQueue<Batch> batches = new ArrayBlockingQueue<>(capacity + numParsers);
+    BlockingQueue<ParsedBatch<P>> parsedBatches = new ArrayBlockingQueue<>(capacity + numParsers + 1);
+
+    ExecutorService pool = Executors.newFixedThreadPool(numParsers + 1);
+    try {
+      pool.execute(() -> read(in, ballotsToParse, batchesInFlight, batches, parsedBatches));
+      for (int i = 0; i < numParsers; i++) {
+        pool.execute(() -> parseBatches(newParser, batches, parsedBatches));
+      }
+      return tally(newParser, batchesInFlight, parsedBatches);
+    } catch (InterruptedException ex) {
+      throw new IOException(ex);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * The reader stage. Reads the stream into batches of whole lines until every ballot has been
+   * read, then tells the parsers to stop and the tally how many batches there are.
+   *
+   * @param in the stream positioned at the first ballot.
+   * @param ballotsToParse the number of ballots to read.
+   * @param batchesInFlight a permit for each batch that can be read but not tallied yet.
+   * @param batches the queue of batches waiting to be parsed.
+   * @param parsedBatches the queue of parsed batches waiting to be tallied.
+   * @param <P> the type of parser.
+   */
+  private <P extends BallotParser> void read(InputStream in, int ballotsToParse,
+                                             Semaphore batchesInFlight, BlockingQueue<Batch> batches,
+                                             BlockingQueue<ParsedBatch<P>> parsedBatches) {
+    try {
+      byte[] rest = new byte[0];  // the bytes read after the last batch
+      int restStart = 0;
+      int restEnd = 0;
+      int linesLeft = ballotsToParse;
+      boolean endOfStream = false;
+      while (linesLeft > 0 && !(endOfStream && restStart == restEnd)) {
+        long waitStart = System.nanoTime();
+        batchesInFlight.acquire();
+        long readStart = System.nanoTime();
+        readerBlockedTime.addAndGet(readStart - waitStart);
+
+        // start the batch with the line the last batch couldn't fit, then fill it up
+        byte[] bytes = new byte[Math.max(BATCH_SIZE, (restEnd - restStart) * 2)];
+        System.arraycopy(rest, restStart, bytes, 0, restEnd - restStart);
+        int filled = restEnd - restStart;
+        while (filled < bytes.length && !endOfStream) {
+          int read = in.read(bytes, filled, bytes.length - filled);
+          if (read < 0) {
+            endOfStream = true;
+          } else {
+            filled += read;
+          }
+        }
+
+        // cut the batch off after its last whole line, or the last ballot to parse
+        int length = 0;
+        int lines = 0;
+        for (int i = 0; i < filled && lines < linesLeft; i++) {
+          if (bytes[i] == '\n') {
+            lines++;
+            length = i + 1;
+          }
+        }
+        if (endOfStream && lines < linesLeft && length < filled) {
+          // the last line of the stream doesn't end with a newline
+          lines++;
+          length = filled;
+        }
+
+        rest = bytes;
+        restStart = lines < linesLeft ? length : filled;
+        restEnd = filled;
+        readTime.addAndGet(System.nanoTime() - readStart);
+        if (lines == 0) {
+          // a line doesn't fit in the batch, so read it into a bigger one
+          batchesInFlight.release();
+          continue;
+        }
+
+        batches.put(new Batch(batchesRead.getAndIncrement(), bytes, length, lines));
+        maxBatchQueueDepth.accumulateAndGet(batches.size(), Math::max);
+        linesLeft -= lines;
+      }
+
+      if (linesLeft > 0) {
+        parsedBatches.put(new ParsedBatch<>(-1, null,
+                new IOException("The file has fewer ballots than expected.")));
+      } else {
+        parsedBatches.put(new ParsedBatch<>(batchesRead.get(), null, null));
+      }
+    } catch (IOException ex) {
+      parsedBatches.offer(new ParsedBatch<>(-1, null, ex));
+    } catch (RuntimeException ex) {
+      parsedBatches.offer(new ParsedBatch<>(-1, null, new IOException(ex)));
+    } catch (InterruptedException ex) {
+      // the pipeline was stopped
+    } finally {
+      for (int i = 0; i < numParsers; i++) {
+        batches.offer(Batch.END);
+      }
+    }
+  }
+
+  /**
+   * A parser stage. Parses each batch with a new parser until the reader is done.
+   *
+   * @param newParser creates an empty parser for each batch.
+   * @param batches the queue of batches waiting to be parsed.
+   * @param parsedBatches the queue of parsed batches waiting to be tallied.
+   * @param <P> the type of parser.
+   */
+  private <P extends BallotParser> void parseBatches(Supplier<P> newParser,
+                                                     BlockingQueue<Batch> batches,
+                                                     BlockingQueue<ParsedBatch<P>> parsedBatches) {
+    try {
+      while (true) {
+        long waitStart = System.nanoTime();
+        Batch batch = batches.take();
+        long parseStart = System.nanoTime();
+        parserIdleTime.addAndGet(parseStart - waitStart);
+        if (batch == Batch.END) {
+          return;
+        }
+
+        ParsedBatch<P> parsedBatch;
+        try {
+          P parser = newParser.get();
+          parser.parse(ByteBuffer.wrap(batch.bytes, 0, batch.length), batch.lines);
+          parsedBatch = new ParsedBatch<>(batch.sequence, parser, null);
+        } catch (IOException ex) {
+          parsedBatch = new ParsedBatch<>(batch.sequence, null, ex);
+        } catch (RuntimeException ex) {
+          parsedBatch = new ParsedBatch<>(batch.sequence, null, new IOException(ex));
+        }
+        parseTime.addAndGet(System.nanoTime() - parseStart);
+
+        parsedBatches.put(parsedBatch);
+        maxParsedQueueDepth.accumulateAndGet(parsedBatches.size(), Math::max);
+      }
+    } catch (InterruptedException ex) {
+      // the pipeline was stopped
+    }
+  }
+
+  /**
+   * The tally stage. Merges the parsed batches in the order they were read. Batches parsed before
+   * the batches ahead of them wait until those batches have been merged.
+   *
+   * @param newParser creates an empty parser if there are no batches.
+   * @param batchesInFlight a permit for each batch that can be read but not tallied yet.
+   * @param parsedBatches the queue of parsed batches waiting to be tallied.
+   * @param <P> the type of parser.
+   * @return a parser holding every ballot parsed.
+   * @throws IOException if a batch could not be read or parsed.
+   * @throws InterruptedException if the pipeline was interrupted.
+   */
+  private <P extends BallotParser> P tally(Supplier<P> newParser, Semaphore batchesInFlight,
+                                           BlockingQueue<ParsedBatch<P>> parsedBatches)
+          throws IOException, InterruptedException {
+    P ballotParser = null;
+    HashMap<Integer, P> waiting = new HashMap<>();
+    int nextSequence = 0;
+    int numberOfBatches = -1;  // not known until the reader is done
+    while (numberOfBatches == -1 || nextSequence < numberOfBatches) {
+      long waitStart = System.nanoTime();
+      ParsedBatch<P> parsedBatch = parsedBatches.take();
+      long tallyStart = System.nanoTime();
+      tallyIdleTime.addAndGet(tallyStart - waitStart);
+      if (parsedBatch.error != null) {
+        throw parsedBatch.error;
+      }
+      if (parsedBatch.parser == null) {
+        numberOfBatches = parsedBatch.sequence;
+        continue;
+      }
+
+      waiting.put(parsedBatch.sequence, parsedBatch.parser);
+      for (P next = waiting.remove(nextSequence); next != null;
+           next = waiting.remove(nextSequence)) {
+        if (ballotParser == null) {
+          ballotParser = next;
+        } else {
+          ballotParser.merge(next);
+        }
+        nextSequence++;
+        batchesInFlight.release();
+      }
+      tallyTime.addAndGet(System.nanoTime() - tallyStart);
+    }
+    return ballotParser == null ? newParser.get() : ballotParser;
+  }
+
+  /**
+   * Gets the number of batches read from the stream.
+   *
+   * @return number of batches read.
+   */
+  public int getBatchesRead() {
+    return batchesRead.get();
+  }
+
+  /**
+   * Gets the most batches that were waiting to be parsed at once.
+   *
+   * @return deepest the queue of batches got.
+   */
+  public int getMaxBatchQueueDepth() {
+    return maxBatchQueueDepth.get();
+  }
+
+  /**
+   * Gets the most parsed batches that were waiting to be tallied at once.
+   *
+   * @return deepest the queue of parsed batches got.
+   */
+  public int getMaxParsedQueueDepth() {
+    return maxParsedQueueDepth.get();
+  }
+
+  /**
+   * Gets the time the reader spent reading the stream and splitting it into batches.
+   *
+   * @return read time in nanoseconds.
+   */
+  public long getReadTime() {
+    return readTime.get();
+  }
+
+  /**
+   * Gets the time the reader spent waiting for batches to be tallied before it could read more.
+   *
+   * @return time the reader was blocked in nanoseconds.
+   */
+  public long getReaderBlockedTime() {
+    return readerBlockedTime.get();
+  }
+
+  /**
+   * Gets the time the parsers spent parsing, added up across the parsers.
+   *
+   * @return parse time in nanoseconds.
+   */
+  public long getParseTime() {
+    return parseTime.get();
+  }
+
+  /**
+   * Gets the time the parsers spent waiting for batches, added up across the parsers.
+   *
+   * @return time the parsers were idle in nanoseconds.
+   */
+  public long getParserIdleTime() {
+    return parserIdleTime.get();
+  }
+
+  /**
+   * Gets the time spent merging the parsed batches.
+   *
+   * @return tally time in nanoseconds.
+   */
+  public long getTallyTime() {
+    return tallyTime.get();
+  }
+
+  /**
+   * Gets the time spent waiting for parsed batches to tally.
+   *
+   * @return time the tally was idle in nanoseconds.
+   */
+  public long getTallyIdleTime() {
+    return tallyIdleTime.get();
+  }
+
+  /**
+   * Summarizes the counters of the pipeline, with the times in milliseconds.
+   *
+   * @return the counters of the pipeline.
+   */
+  @Override
+  public String toString() {
+    return "Batches read: " + getBatchesRead()
+            + ", max batch queue depth: " + getMaxBatchQueueDepth()
+            + ", max parsed queue depth: " + getMaxParsedQueueDepth()
+            + ", read: " + getReadTime() / 1000000 + " ms"
+            + " (blocked " + getReaderBlockedTime() / 1000000 + " ms)"
+            + ", parse: " + getParseTime() / 1000000 + " ms"
+            + " (idle " + getParserIdleTime() / 1000000 + " ms)"
+            + ", tally: " + getTallyTime() / 1000000 + " ms"
+            + " (idle " + getTallyIdleTime() / 1000000 + " ms)";
+  }
+
+  /**
+   * A batch of whole lines read from the stream.
+   */
+  private static class Batch {
+
+    /**
+     * The batch that tells a parser the reader is done.
+     */
+    private static final Batch END = new Batch(-1, null, 0, 0);
+
+    /**
+     * The position of the batch in the stream, starting from 0.
+     */
+    private final int sequence;
+
+    /**
+     * The bytes read into the batch.
+     */
+    private final byte[] bytes;
+
+    /**
+     * The number of bytes of whole lines at the start of bytes.
+     */
+    private final int length;
+
+    /**
+     * The number of lines in the batch.
+     */
+    private final int lines;
+
+    /**
+     * Constructor initializes a batch that has been read.
+     *
+     * @param sequence the position of the batch in the stream.
+     * @param bytes the bytes read into the batch.
+     * @param length the number of bytes of whole lines.
+     * @param lines the number of lines.
+     */
+    private Batch(int sequence, byte[] bytes, int length, int lines) {
+      this.sequence = sequence;
+      this.bytes = bytes;
+      this.length = length;
+      this.lines = lines;
+    }
+  }
+
+  /**
+   * A batch that has been parsed, the number of batches once the reader is done, or an error.
+   *
+   * @param <P> the type of parser.
+   */
+  private static class ParsedBatch<P extends BallotParser> {
+
+    /**
+     * The position of the batch in the stream, or the number of batches if parser and error are
+     * both null.
+     */
+    private final int sequence;
+
+    /**
+     * The parser holding the ballots of the batch. Null if this is not a parsed batch.
+     */
+    private final P parser;
+
+    /**
+     * The error that stopped the batch from being read or parsed. Null if there was no error.
+     */
+    private final IOException error;
+
+    /**
+     * Constructor initializes a parsed batch.
+     *
+     * @param sequence the position of the batch in the stream, or the number of batches.
+     * @param parser the parser holding the ballots of the batch.
+     * @param error the error that stopped the batch from being read or parsed.
+     */
+    private ParsedBatch(int sequence, P parser, IOException error) {
+      this.sequence = sequence;
+      this.parser = parser;
+      this.error = error;
+    }
+  }
+}
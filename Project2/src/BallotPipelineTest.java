@@ -0,0 +1,135 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for parsing ballots with the reader, parser, and tally stages of a BallotPipeline.
+ */
+public class BallotPipelineTest {
+
+  /**
+   * The number of candidates in the generated IR ballots.
+   */
+  private static final int NUMBER_OF_CANDIDATES = 6;
+
+  /**
+   * Generates random IR ballots, some of which don't rank enough candidates to be valid.
+   *
+   * @param numberOfBallots the number of ballots to generate.
+   * @return the ballots, one per line.
+   */
+  private static byte[] generateIRBallots(int numberOfBallots) {
+    Random random = new Random(42);
+    StringBuilder ballots = new StringBuilder();
+    for (int i = 0; i < numberOfBallots; i++) {
+      int numberRanked = 1 + random.nextInt(NUMBER_OF_CANDIDATES);
+      for (int candidate = 0; candidate < NUMBER_OF_CANDIDATES; candidate++) {
+        if (candidate > 0) ballots.append(',');
+        if (candidate < numberRanked) ballots.append(numberRanked - candidate);
+      }
+      ballots.append('\n');
+    }
+    return ballots.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Asserts that two IR parsers hold the same ballots in the same order.
+   *
+   * @param expected the parser that parsed the ballots one after another.
+   * @param actual the parser returned by the pipeline.
+   */
+  private static void assertSameBallots(IRBallotParser expected, IRBallotParser actual) {
+    assertEquals(expected.getNumberOfBallots(), actual.getNumberOfBallots());
+    assertEquals(expected.getInvalidBallots(), actual.getInvalidBallots());
+    BallotGroups expectedGroups = expected.getBallotGroups();
+    BallotGroups actualGroups = actual.getBallotGroups();
+    assertEquals(expectedGroups.size(), actualGroups.size());
+    for (int group = 0; group < expectedGroups.size(); group++) {
+      assertArrayEquals(expectedGroups.getRanking(group), actualGroups.getRanking(group));
+      assertEquals(expectedGroups.getCount(group), actualGroups.getCount(group));
+    }
+  }
+
+  /**
+   * Tests that ballots spread over many batches are tallied in the same order as parsing them one
+   * after another, even when only one batch can be in flight at a time.
+   */
+  @Test
+  public void testManyBatches() throws IOException {
+    byte[] ballots = generateIRBallots(400000);
+    assertTrue(ballots.length > 2 * BallotPipeline.BATCH_SIZE);
+    IRBallotParser expected = new IRBallotParser(NUMBER_OF_CANDIDATES);
+    expected.parse(new ByteArrayInputStream(ballots), 400000);
+
+    for (int capacity : new int[] {1, 8}) {
+      BallotPipeline pipeline = new BallotPipeline(3, capacity);
+      IRBallotParser actual = pipeline.parse(new ByteArrayInputStream(ballots), 400000,
+              () -> new IRBallotParser(NUMBER_OF_CANDIDATES));
+      assertSameBallots(expected, actual);
+      assertTrue(pipeline.getBatchesRead() > 2);
+      assertTrue(pipeline.getMaxBatchQueueDepth() <= capacity);
+      assertTrue(pipeline.getMaxParsedQueueDepth() <= capacity);
+    }
+  }
+
+  /**
+   * Tests that lines after the last ballot are ignored and a last ballot without a newline is
+   * still parsed.
+   */
+  @Test
+  public void testBallotCount() throws IOException {
+    InputStream ballots = new ByteArrayInputStream("1,2\n2,1\n1,2\nnot a ballot\n"
+            .getBytes(StandardCharsets.UTF_8));
+    IRBallotParser parser = new BallotPipeline(2, 2).parse(ballots, 3, () -> new IRBallotParser(2));
+    assertEquals(3, parser.getNumberOfBallots());
+
+    ballots = new ByteArrayInputStream("1,2\n2,1".getBytes(StandardCharsets.UTF_8));
+    parser = new BallotPipeline(2, 2).parse(ballots, 2, () -> new IRBallotParser(2));
+    assertEquals(2, parser.getNumberOfBallots());
+  }
+
+  /**
+   * Tests that a stream with fewer ballots than expected, or an invalid ballot, can't be parsed.
+   */
+  @Test
+  public void testInvalidBallots() {
+    assertThrows(IOException.class, () -> new BallotPipeline(2, 2).parse(
+            new ByteArrayInputStream("1,2\n2,1\n".getBytes(StandardCharsets.UTF_8)), 3,
+            () -> new IRBallotParser(2)));
+    assertThrows(IOException.class, () -> new BallotPipeline(2, 2).parse(
+            new ByteArrayInputStream("1,2\n2,x\n".getBytes(StandardCharsets.UTF_8)), 2,
+            () -> new IRBallotParser(2)));
+  }
+
+  /**
+   * Tests that a line longer than a batch is read into a bigger batch.
+   */
+  @Test
+  public void testLongLine() throws IOException {
+    StringBuilder ballots = new StringBuilder("1,2\n");
+    ballots.append("2,1");
+    for (int i = 0; i < BallotPipeline.BATCH_SIZE; i++) {
+      ballots.append(',');
+    }
+    ballots.append("\n1,2\n");
+    IRBallotParser parser = new BallotPipeline(1, 1).parse(
+            new ByteArrayInputStream(ballots.toString().getBytes(StandardCharsets.UTF_8)), 3,
+            () -> new IRBallotParser(2));
+    assertEquals(3, parser.getNumberOfBallots());
+  }
+
+  /**
+   * Tests that a pipeline needs at least one parser and room for at least one batch.
+   */
+  @Test
+  public void testInvalidConstructor() {
+    assertThrows(IllegalArgumentException.class, () -> new BallotPipeline(0, 1));
+    assertThrows(IllegalArgumentException.class, () -> new BallotPipeline(1, 0));
+  }
+}
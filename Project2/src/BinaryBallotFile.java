@@ -0,0 +1,414 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * Reads and writes the compact binary ballot format. A binary ballot file holds the same
+ * information as an IR, OPL, or PO CSV file, but the ballots are pre-aggregated into (ranking,
+ * count) records so they don't have to be parsed again for every run. OPL and PO ballots are
+ * stored as rankings of a single candidate.
+ *
+ * <p>The file starts with the magic bytes "ELGB" and a version byte, followed by the header: the
+ * election type, the number of candidates, the name and party of each candidate, the number of
+ * seats, and the number of valid ballots. The ballot section follows the header: the number of
+ * records, each record's ranking length, candidate IDs, and count, then the number of invalid
+ * ballots and the line of each invalid ballot. Every number is an unsigned varint and every string
+ * is a varint byte length followed by UTF-8 bytes. The number of valid ballots and the counts can
+ * be up to 63 bits long, and are written the same way as other numbers when they fit in an int.
+ */
+public class BinaryBallotFile {
+
+  /**
+   * The bytes every binary ballot file starts with.
+   */
+  private static final byte[] MAGIC = {'E', 'L', 'G', 'B'};
+
+  /**
+   * The version of the format written by this class.
+   */
+  private static final byte VERSION = 1;
+
+  /**
+   * The size of the buffers used to read and write the ballot section.
+   */
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * Checks if a file starts with the magic bytes of a binary ballot file.
+   *
+   * @param electionFile the file to check.
+   * @return true if the file is a binary ballot file, false otherwise.
+   * @throws IOException if the file could not be read.
+   */
+  public static boolean isBinaryBallotFile(FileChannel electionFile) throws IOException {
+    ByteBuffer start = ByteBuffer.allocate(MAGIC.length);
+    while (start.hasRemaining() && electionFile.read(start, start.position()) > 0) {
+      // keep reading until the magic bytes have been read
+    }
+    if (start.hasRemaining()) {
+      return false;
+    }
+    for (int i = 0; i < MAGIC.length; i++) {
+      if (start.get(i) != MAGIC[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Reads the header of a binary ballot file.
+   *
+   * @param electionFile the binary ballot file.
+   * @return the header of the file.
+   * @throws IOException if the header is not formatted correctly.
+   */
+  public static ElectionFileHeader readHeader(FileChannel electionFile) throws IOException {
+    ByteBuffer header = electionFile.map(FileChannel.MapMode.READ_ONLY, 0,
+            Math.min(electionFile.size(), Integer.MAX_VALUE));
+    try {
+      header.position(MAGIC.length);
+      if (header.get() != VERSION) {
+        throw new IOException("Unsupported binary ballot file version.");
+      }
+
+      String electionType = readString(header);
+      int numberOfCandidates = readVarint(header);
+      StringBuilder candidatesAndParties = new StringBuilder();
+      for (int i = 0; i < numberOfCandidates; i++) {
+        String name = readString(header);
+        String party = readString(header);
+        if (i > 0) {
+          candidatesAndParties.append(electionType.equals("IR") ? ", " : ",");
+        }
+        // written the same way as the candidates line of a CSV file of the same type
+        if (electionType.equals("IR")) {
+          candidatesAndParties.append(name).append(" (").append(party).append(')');
+        } else {
+          candidatesAndParties.append('[').append(name).append(',').append(party).append(']');
+        }
+      }
+      int numberOfSeats = readVarint(header);
+      long numberOfBallots = readVarlong(header);
+      return new ElectionFileHeader(electionType, numberOfCandidates,
+              candidatesAndParties.toString(), numberOfSeats, numberOfBallots, header.position(),
+              true, false);
+    } catch (BufferUnderflowException ex) {
+      throw new IOException("The header is missing fields.", ex);
+    }
+  }
+
+  /**
+   * Reads the ballot section of a binary ballot file.
+   *
+   * @param electionFile the binary ballot file.
+   * @param header the header read in from the file.
+   * @param numberOfCandidates the number of candidates in the election.
+   * @param invalidBallots the list the invalid ballots of the file are added to.
+   * @return the valid ballots of the file grouped by their rankings, in the order they were
+   * written.
+   * @throws IOException if the ballot section is not formatted correctly or does not hold the
+   *                     number of ballots in the header.
+   */
+  public static BallotGroups readBallotGroups(FileChannel electionFile, ElectionFileHeader header,
+                                              int numberOfCandidates,
+                                              ArrayList<String> invalidBallots)
+          throws IOException {
+    // not closed since that would close the file, which belongs to the caller
+    DataInputStream ballots = new DataInputStream(new BufferedInputStream(
+            Channels.newInputStream(electionFile.position(header.getBallotStart())), BUFFER_SIZE));
+    try {
+      BallotGroups ballotGroups = new BallotGroups();
+      short[] ranking = new short[numberOfCandidates];
+      long totalCount = 0;
+      int numberOfGroups = readVarint(ballots);
+      for (int group = 0; group < numberOfGroups; group++) {
+        int length = readVarint(ballots);
+        if (length > numberOfCandidates) throw new IOException("A ranking has too many candidates.");
+        for (int i = 0; i < length; i++) {
+          int candidate = readVarint(ballots);
+          if (candidate >= numberOfCandidates) throw new IOException("A ranking has an unknown candidate.");
+          ranking[i] = (short) candidate;
+        }
+        long count = readVarlong(ballots);
+        ballotGroups.add(ranking, length, count);
+        totalCount += count;
+      }
+      if (totalCount != header.getNumberOfBallots()) {
+        throw new IOException("The ballot section does not hold the number of ballots expected.");
+      }
+
+      int numberOfInvalidBallots = readVarint(ballots);
+      for (int i = 0; i < numberOfInvalidBallots; i++) {
+        invalidBallots.add(readString(ballots));
+      }
+      return ballotGroups;
+    } catch (EOFException ex) {
+      throw new IOException("The ballot section is missing records.", ex);
+    }
+  }
+
+  /**
+   * Writes a binary ballot file.
+   *
+   * @param binaryFileName the name of the file to write.
+   * @param electionType the election type.
+   * @param candidates the candidates in the election.
+   * @param numberOfSeats the number of seats available, or 0 if the election type has no seats.
+   * @param ballotGroups the valid ballots grouped by their rankings.
+   * @param invalidBallots the ballots that were not counted.
+   * @throws IOException if the file could not be written.
+   */
+  public static void write(String binaryFileName, String electionType,
+                           ArrayList<Candidate> candidates, int numberOfSeats,
+                           BallotGroups ballotGroups, ArrayList<String> invalidBallots)
+          throws IOException {
+    long numberOfBallots = 0;
+    for (int group = 0; group < ballotGroups.size(); group++) {
+      numberOfBallots += ballotGroups.getCount(group);
+    }
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+            new FileOutputStream(binaryFileName), BUFFER_SIZE))) {
+      out.write(MAGIC);
+      out.writeByte(VERSION);
+
+      // header
+      writeString(out, electionType);
+      writeVarint(out, candidates.size());
+      for (Candidate candidate : candidates) {
+        writeString(out, candidate.getName());
+        writeString(out, candidate.getParty());
+      }
+      writeVarint(out, numberOfSeats);
+      writeVarlong(out, numberOfBallots);
+
+      // ballot section
+      writeVarint(out, ballotGroups.size());
+      for (int group = 0; group < ballotGroups.size(); group++) {
+        short[] ranking = ballotGroups.getRanking(group);
+        writeVarint(out, ranking.length);
+        for (short candidate : ranking) {
+          writeVarint(out, candidate);
+        }
+        writeVarlong(out, ballotGroups.getCount(group));
+      }
+      writeVarint(out, invalidBallots.size());
+      for (String invalidBallot : invalidBallots) {
+        writeString(out, invalidBallot);
+      }
+    }
+  }
+
+  /**
+   * Converts an IR, OPL, or PO CSV file into a binary ballot file. The ballots are validated the
+   * same way as when an election is created from the CSV file.
+   *
+   * @param csvFileName the name of the CSV file to convert.
+   * @param binaryFileName the name of the binary ballot file to write.
+   * @throws IOException if the CSV file could not be read or is not formatted correctly, or the
+   *                     binary ballot file could not be written.
+   */
+  public static void convert(String csvFileName, String binaryFileName) throws IOException {
+    try (FileChannel csvFile = FileChannel.open(Paths.get(csvFileName), StandardOpenOption.READ)) {
+      ElectionFileHeader header = ElectionFileHeader.read(csvFile);
+      if (header.isBinary()) throw new IOException("The file is already a binary ballot file.");
+
+      ArrayList<Candidate> candidates = header.getCandidates();
+      switch (header.getElectionType()) {
+        case "IR": {
+          IRBallotParser ballotParser = new IRBallotParser(candidates.size());
+          ballotParser.parse(csvFile, header.getBallotStart(), header.getNumberOfBallotLines());
+          write(binaryFileName, header.getElectionType(), candidates, 0,
+                  ballotParser.getBallotGroups(), ballotParser.getInvalidBallots());
+          break;
+        }
+        case "OPL":
+        case "PO": {
+          SingleChoiceBallotParser ballotParser = new SingleChoiceBallotParser(candidates.size());
+          ballotParser.parse(csvFile, header.getBallotStart(), header.getNumberOfBallotLines());
+
+          // each candidate's votes are a group of single candidate rankings
+          BallotGroups ballotGroups = new BallotGroups();
+          long[] votes = ballotParser.getVotes();
+          short[] ranking = new short[1];
+          for (int candidate = 0; candidate < votes.length; candidate++) {
+            if (votes[candidate] > 0) {
+              ranking[0] = (short) candidate;
+              ballotGroups.add(ranking, 1, votes[candidate]);
+            }
+          }
+          write(binaryFileName, header.getElectionType(), candidates, header.getNumberOfSeats(),
+                  ballotGroups, new ArrayList<>());
+          break;
+        }
+        default:
+          throw new IOException("Invalid Election Type");
+      }
+    }
+  }
+
+  /**
+   * Reads an unsigned varint from a buffer.
+   *
+   * @param buffer the buffer to read from.
+   * @return the value read.
+   * @throws IOException if the varint does not fit in an int.
+   */
+  private static int readVarint(ByteBuffer buffer) throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      byte current = buffer.get();
+      value |= (current & 0x7F) << shift;
+      if (current >= 0) {
+        if (value < 0) throw new IOException("A number is too large.");
+        return value;
+      }
+    }
+    throw new IOException("A number is too large.");
+  }
+
+  /**
+   * Reads an unsigned varint from a stream.
+   *
+   * @param in the stream to read from.
+   * @return the value read.
+   * @throws IOException if the stream ends or the varint does not fit in an int.
+   */
+  private static int readVarint(DataInputStream in) throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      byte current = in.readByte();
+      value |= (current & 0x7F) << shift;
+      if (current >= 0) {
+        if (value < 0) throw new IOException("A number is too large.");
+        return value;
+      }
+    }
+    throw new IOException("A number is too large.");
+  }
+
+  /**
+   * Reads an unsigned varint that can be up to 63 bits long from a buffer.
+   *
+   * @param buffer the buffer to read from.
+   * @return the value read.
+   * @throws IOException if the varint does not fit in a long.
+   */
+  private static long readVarlong(ByteBuffer buffer) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      byte current = buffer.get();
+      value |= (long) (current & 0x7F) << shift;
+      if (current >= 0) {
+        if (value < 0) throw new IOException("A number is too large.");
+        return value;
+      }
+    }
+    throw new IOException("A number is too large.");
+  }
+
+  /**
+   * Reads an unsigned varint that can be up to 63 bits long from a stream.
+   *
+   * @param in the stream to read from.
+   * @return the value read.
+   * @throws IOException if the stream ends or the varint does not fit in a long.
+   */
+  private static long readVarlong(DataInputStream in) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      byte current = in.readByte();
+      value |= (long) (current & 0x7F) << shift;
+      if (current >= 0) {
+        if (value < 0) throw new IOException("A number is too large.");
+        return value;
+      }
+    }
+    throw new IOException("A number is too large.");
+  }
+
+  /**
+   * Reads a string written by writeString from a buffer.
+   *
+   * @param buffer the buffer to read from.
+   * @return the string read.
+   * @throws IOException if the length of the string is not valid.
+   * @throws BufferUnderflowException if the buffer ends before the string does.
+   */
+  private static String readString(ByteBuffer buffer) throws IOException {
+    int length = readVarint(buffer);
+    if (length > buffer.remaining()) throw new BufferUnderflowException();
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Reads a string written by writeString from a stream.
+   *
+   * @param in the stream to read from.
+   * @return the string read.
+   * @throws IOException if the stream ends or the length of the string is not valid.
+   */
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[readVarint(in)];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Writes a non-negative int as an unsigned varint, 7 bits at a time starting with the lowest
+   * bits. The highest bit of each byte is set if more bytes follow.
+   *
+   * @param out the stream to write to.
+   * @param value the value to write.
+   * @throws IOException if the value could not be written.
+   */
+  private static void writeVarint(DataOutputStream out, int value) throws IOException {
+    while ((value & ~0x7F) != 0) {
+      out.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte(value);
+  }
+
+  /**
+   * Writes a non-negative long as an unsigned varint, the same way as writeVarint.
+   *
+   * @param out the stream to write to.
+   * @param value the value to write.
+   * @throws IOException if the value could not be written.
+   */
+  private static void writeVarlong(DataOutputStream out, long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      out.writeByte((int) (value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte((int) value);
+  }
+
+  /**
+   * Writes a string as its UTF-8 byte length followed by its UTF-8 bytes.
+   *
+   * @param out the stream to write to.
+   * @param value the string to write.
+   * @throws IOException if the string could not be written.
+   */
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeVarint(out, bytes.length);
+    out.write(bytes);
+  }
+}
@@ -0,0 +1,194 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for converting election files into binary ballot files and creating elections from them.
+ */
+public class BinaryBallotFileTest {
+  private final ByteArrayOutputStream systemOut = new ByteArrayOutputStream();
+  private final PrintStream originalOut = System.out;
+
+  final private String testingPath = "./testing/testFiles/";
+
+  /**
+   * A directory for the binary ballot files that is deleted after each test.
+   */
+  @TempDir
+  Path tempDir;
+
+  /**
+   * Sets the standard output to a different stream so no output to the terminal happens during
+   * unit tests.
+   */
+  @BeforeEach
+  public void setUp() {
+    System.setOut(new PrintStream(systemOut));
+  }
+
+  /**
+   * Resets the standard output to stdout and deletes the invalidated ballot files.
+   */
+  @AfterEach
+  public void tearDown() {
+    System.setOut(originalOut);
+    CreateElectionTestHelpers.deleteElectionOutputFiles();
+  }
+
+  /**
+   * Converts a CSV file into a binary ballot file in the temporary directory.
+   *
+   * @param csvFileName the name of the CSV file in the testing directory.
+   * @return the path of the binary ballot file.
+   * @throws IOException if the file could not be converted.
+   */
+  private String convert(String csvFileName) throws IOException {
+    String binaryFileName = tempDir.resolve(csvFileName + ".elgb").toString();
+    BinaryBallotFile.convert(testingPath + csvFileName, binaryFileName);
+    return binaryFileName;
+  }
+
+  /**
+   * Tests that an IR election created from a binary ballot file has the same ballots, in the same
+   * order, as one created from the CSV file.
+   */
+  @Test
+  public void testIRRoundTrip() throws IOException {
+    IR fromCSV = (IR) CreateElection.createElection(new String[] {testingPath + "bigRandomIR2.csv"});
+    IR fromBinary = (IR) CreateElection.createElection(new String[] {convert("bigRandomIR2.csv")});
+
+    assertEquals(fromCSV.getBallots(), fromBinary.getBallots());
+    assertEquals(new ArrayList<>(fromCSV.getBallots().keySet()),
+            new ArrayList<>(fromBinary.getBallots().keySet()));
+    assertEquals(fromCSV.getTotalCounts(), fromBinary.getTotalCounts());
+    CreateElectionTest.candidateArraylistIsEqual(fromCSV.getCandidates(),
+            fromBinary.getCandidates());
+  }
+
+  /**
+   * Tests that the invalid ballots of an IR file are kept in the binary ballot file and still
+   * written to the invalidated ballots file.
+   */
+  @Test
+  public void testIRInvalidBallots() throws IOException {
+    String binaryFileName = convert("invalidBallotsIR.csv");
+    CreateElectionTestHelpers.deleteElectionOutputFiles();
+    CreateElection.createElection(new String[] {binaryFileName});
+
+    File[] invalidatedFiles = new File(System.getProperty("user.dir")).listFiles(
+        (dir, name) -> name.startsWith("Invalidated_"));
+    assertEquals(1, invalidatedFiles.length);
+    assertNotEquals("", CreateElectionTestHelpers.getAllFileContents(
+            invalidatedFiles[0].getPath()));
+  }
+
+  /**
+   * Tests that an OPL election created from a binary ballot file has the same votes as one created
+   * from the CSV file, and that binary and CSV files can be mixed.
+   */
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testOPLRoundTrip() throws IOException, ReflectiveOperationException {
+    OPL fromCSV = (OPL) CreateElection.createElection(new String[] {testingPath + "givenOPL.csv",
+        testingPath + "givenOPLModified.csv"});
+    OPL fromBinary = (OPL) CreateElection.createElection(new String[] {convert("givenOPL.csv"),
+        testingPath + "givenOPLModified.csv"});
+
+    assertEquals(fromCSV.getTotalNumBallots(), fromBinary.getTotalNumBallots());
+    assertEquals(fromCSV.getNumSeatsAvailable(), fromBinary.getNumSeatsAvailable());
+    Field parties = OPL.class.getDeclaredField("parties");
+    parties.setAccessible(true);
+    CreateElectionTest.partyArraylistIsEqual((ArrayList<Party>) parties.get(fromCSV),
+            (ArrayList<Party>) parties.get(fromBinary));
+  }
+
+  /**
+   * Tests that exporting the ballot groups of several IR files and loading the group file gives
+   * the same ballots as loading the IR files, and that group files can be merged.
+   */
+  @Test
+  public void testExportIRBallotGroups() {
+    String[] irFiles = {testingPath + "MultipleIRFiles/IR0.csv",
+        testingPath + "MultipleIRFiles/IR1.csv", testingPath + "MultipleIRFiles/IR2.csv"};
+    String allGroups = tempDir.resolve("all.elgb").toString();
+    String firstGroups = tempDir.resolve("first.elgb").toString();
+    String restGroups = tempDir.resolve("rest.elgb").toString();
+    assertTrue(CreateElection.exportIRBallotGroups(irFiles, allGroups));
+    assertTrue(CreateElection.exportIRBallotGroups(Arrays.copyOfRange(irFiles, 0, 1), firstGroups));
+    assertTrue(CreateElection.exportIRBallotGroups(Arrays.copyOfRange(irFiles, 1, 3), restGroups));
+
+    IR fromCSV = (IR) CreateElection.createElection(irFiles);
+    IR fromGroups = (IR) CreateElection.createElection(new String[] {allGroups});
+    IR fromMergedGroups = (IR) CreateElection.createElection(new String[] {firstGroups, restGroups});
+    for (IR fromBinary : new IR[] {fromGroups, fromMergedGroups}) {
+      assertEquals(new ArrayList<>(fromCSV.getBallots().entrySet()),
+              new ArrayList<>(fromBinary.getBallots().entrySet()));
+      assertEquals(fromCSV.getTotalCounts(), fromBinary.getTotalCounts());
+    }
+  }
+
+  /**
+   * Tests that only IR elections can be exported as ballot groups.
+   */
+  @Test
+  public void testExportOPLBallotGroups() {
+    assertFalse(CreateElection.exportIRBallotGroups(new String[] {testingPath + "givenOPL.csv"},
+            tempDir.resolve("opl.elgb").toString()));
+    assertEquals("Error: Only IR elections can be exported as ballot groups",
+            systemOut.toString().replaceAll("[\n\r]", ""));
+  }
+
+  /**
+   * Tests that ballot groups with more votes than fit in an int are written and read back whole.
+   */
+  @Test
+  public void testCountsOverIntRange() throws IOException {
+    ArrayList<Candidate> candidates = new ArrayList<>();
+    candidates.add(new Candidate("Rosen", "D", 0));
+    candidates.add(new Candidate("Kleinberg", "R", 1));
+    BallotGroups groups = new BallotGroups();
+    groups.add(new short[] {0, 1}, 2, 3_000_000_000L);
+    groups.add(new short[] {1}, 1, 2_500_000_000L);
+    String binaryFileName = tempDir.resolve("large.elgb").toString();
+    BinaryBallotFile.write(binaryFileName, "IR", candidates, 0, groups, new ArrayList<>());
+
+    IR ir = (IR) CreateElection.createElection(new String[] {binaryFileName});
+    assertEquals(5_500_000_000L, ir.getTotalCounts());
+    assertEquals(3_000_000_000L, ir.getBallots().get("(D)(R)"));
+    assertEquals(2_500_000_000L, ir.getBallots().get("(R)"));
+  }
+
+  /**
+   * Tests that a binary ballot file that has been cut short is not used to create an election.
+   */
+  @Test
+  public void testTruncatedFile() throws IOException {
+    Path binaryFile = Path.of(convert("givenIR.csv"));
+    byte[] bytes = Files.readAllBytes(binaryFile);
+    Files.write(binaryFile, Arrays.copyOf(bytes, bytes.length - 3));
+
+    assertNull(CreateElection.createElection(new String[] {binaryFile.toString()}));
+    assertEquals("Error: Invalid File Format", systemOut.toString().replaceAll("[\n\r]", ""));
+  }
+
+  /**
+   * Tests that a file with an invalid election type can't be converted.
+   */
+  @Test
+  public void testConvertInvalidElectionType() {
+    assertThrows(IOException.class, () -> convert("invalidElectionType.csv"));
+  }
+}
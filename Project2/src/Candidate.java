@@ -1,5 +1,6 @@
 /**
- * Candidate Class representing individual candidates participating in the election.
+ * Candidate Class representing individual candidates participating in the election. A candidate's
+ * votes are kept in the VoteTally of the election the candidate is in.
  *
  * @author Noah Park
  */
@@ -11,9 +12,14 @@ public class Candidate {
   private String name;
 
   /**
-   * The current number of votes the candidate has
+   * The tally holding the current number of votes the candidate has
    */
-  private int curNumVotes;
+  private VoteTally tally;
+
+  /**
+   * The index of the candidate in its tally
+   */
+  private int tallyIndex;
 
   /**
    * A unique ID assigned to the candidate
@@ -40,7 +46,37 @@ public class Candidate {
     this.name = name;
     this.party = party;
     this.candidateID = candidateID;
-    curNumVotes = 0;
+    tally = new VoteTally(1, 0);
+    tallyIndex = 0;
+  }
+
+  /**
+   * Moves the candidate into a tally. The tally is expected to already hold the candidate's votes.
+   *
+   * @param tally the tally the candidate's votes are kept in.
+   * @param tallyIndex the index of the candidate in the tally.
+   */
+  void bind(VoteTally tally, int tallyIndex) {
+    this.tally = tally;
+    this.tallyIndex = tallyIndex;
+  }
+
+  /**
+   * Gets the tally the candidate's votes are kept in.
+   *
+   * @return the candidate's tally.
+   */
+  VoteTally getTally() {
+    return tally;
+  }
+
+  /**
+   * Gets the index of the candidate in its tally.
+   *
+   * @return the candidate's index in its tally.
+   */
+  int getTallyIndex() {
+    return tallyIndex;
   }
 
   /**
@@ -75,8 +111,8 @@ public class Candidate {
    *
    * @return candidate vote count.
    */
-  public int getCurNumVotes() {
-    return curNumVotes;
+  public long getCurNumVotes() {
+    return tally.getVotes(tallyIndex);
   }
 
   /**
@@ -85,21 +121,21 @@ public class Candidate {
    * @param votes total votes candidate will have.
    * @throws IllegalArgumentException if votes is negative.
    */
-  public void setCurNumVotes(int votes) throws IllegalArgumentException {
+  public void setCurNumVotes(long votes) throws IllegalArgumentException {
     if (votes < 0) throw new IllegalArgumentException("Votes cannot be negative.");
 
-    curNumVotes = votes;
+    tally.setVotes(tallyIndex, votes);
   }
 
   /**
-   * Increments curNumVotes for the particular candidate by the votes argument.
+   * Increments the current number of votes for the particular candidate by the votes argument.
    *
-   * @param votes amount to increment curNumVotes by.
+   * @param votes amount to increment the votes by.
    * @throws IllegalArgumentException if votes is negative.
    */
-  public void incrementCurNumVotes(int votes) throws IllegalArgumentException {
+  public void incrementCurNumVotes(long votes) throws IllegalArgumentException {
     if (votes < 0) throw new IllegalArgumentException("Votes cannot be negative.");
 
-    curNumVotes += votes;
+    tally.addVotes(tallyIndex, votes);
   }
 }
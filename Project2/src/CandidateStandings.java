@@ -0,0 +1,296 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * CandidateStandings keeps the candidates still in an election ordered by their current number of
+ * votes, so the candidate with the most votes and the candidates tied for the fewest votes can be
+ * found without going through every candidate. Candidates are kept in two indexed heaps by their
+ * candidate ID, one with the fewest votes on top and one with the most votes on top. Candidates
+ * with the same number of votes are ordered by candidate ID.
+ */
+public class CandidateStandings {
+
+  /**
+   * The candidates in the standings indexed by candidate ID, or null for IDs not in the standings.
+   */
+  private final Candidate[] candidatesByID;
+
+  /**
+   * The candidate IDs in a heap with the fewest votes on top.
+   */
+  private final int[] minHeap;
+
+  /**
+   * The candidate IDs in a heap with the most votes on top.
+   */
+  private final int[] maxHeap;
+
+  /**
+   * The index of each candidate ID in minHeap, or -1 if the candidate is not in the standings.
+   */
+  private final int[] minIndexes;
+
+  /**
+   * The index of each candidate ID in maxHeap, or -1 if the candidate is not in the standings.
+   */
+  private final int[] maxIndexes;
+
+  /**
+   * The number of candidates in the standings.
+   */
+  private int size;
+
+  /**
+   * Constructor puts every candidate into the standings by their current number of votes.
+   *
+   * @param candidatesByID the candidates indexed by candidate ID.
+   * @throws IllegalArgumentException if candidatesByID is null.
+   */
+  public CandidateStandings(Candidate[] candidatesByID) throws IllegalArgumentException {
+    if (candidatesByID == null) throw new IllegalArgumentException("The candidates must be non-null.");
+
+    this.candidatesByID = candidatesByID.clone();
+    minHeap = new int[candidatesByID.length];
+    maxHeap = new int[candidatesByID.length];
+    minIndexes = new int[candidatesByID.length];
+    maxIndexes = new int[candidatesByID.length];
+    Arrays.fill(minIndexes, -1);
+    Arrays.fill(maxIndexes, -1);
+    for (int candidateID = 0; candidateID < candidatesByID.length; candidateID++) {
+      minHeap[size] = candidateID;
+      maxHeap[size] = candidateID;
+      minIndexes[candidateID] = size;
+      maxIndexes[candidateID] = size;
+      size++;
+    }
+    for (int index = size / 2 - 1; index >= 0; index--) {
+      siftDown(minHeap, minIndexes, index, false);
+      siftDown(maxHeap, maxIndexes, index, true);
+    }
+  }
+
+  /**
+   * Moves a candidate to its place in the standings after its number of votes changed.
+   *
+   * @param candidateID the candidate ID of the candidate.
+   * @throws IllegalArgumentException if the candidate is not in the standings.
+   */
+  public void update(int candidateID) throws IllegalArgumentException {
+    if (!contains(candidateID)) throw new IllegalArgumentException("Candidate is not in the standings.");
+
+    siftUp(minHeap, minIndexes, siftDown(minHeap, minIndexes, minIndexes[candidateID], false), false);
+    siftUp(maxHeap, maxIndexes, siftDown(maxHeap, maxIndexes, maxIndexes[candidateID], true), true);
+  }
+
+  /**
+   * Takes a candidate out of the standings.
+   *
+   * @param candidateID the candidate ID of the candidate.
+   * @throws IllegalArgumentException if the candidate is not in the standings.
+   */
+  public void remove(int candidateID) throws IllegalArgumentException {
+    if (!contains(candidateID)) throw new IllegalArgumentException("Candidate is not in the standings.");
+
+    size--;
+    removeFromHeap(minHeap, minIndexes, minIndexes[candidateID], false);
+    removeFromHeap(maxHeap, maxIndexes, maxIndexes[candidateID], true);
+    candidatesByID[candidateID] = null;
+  }
+
+  /**
+   * Checks if a candidate is in the standings.
+   *
+   * @param candidateID the candidate ID of the candidate.
+   * @return true if the candidate is in the standings.
+   */
+  public boolean contains(int candidateID) {
+    return candidateID >= 0 && candidateID < minIndexes.length && minIndexes[candidateID] >= 0;
+  }
+
+  /**
+   * Gets the number of candidates in the standings.
+   * @return the number of candidates
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Gets the candidate with the most votes. If candidates are tied for the most votes, the one
+   * with the lowest candidate ID is returned.
+   *
+   * @return the candidate with the most votes, or null if the standings are empty.
+   */
+  public Candidate getLeader() {
+    return size == 0 ? null : candidatesByID[maxHeap[0]];
+  }
+
+  /**
+   * Gets every candidate tied for the fewest votes. Only the candidates tied for last are visited.
+   *
+   * @return the candidates with the fewest votes ordered by candidate ID, or an empty list if the
+   * standings are empty.
+   */
+  public ArrayList<Candidate> getTiedForLast() {
+    ArrayList<Candidate> tiedForLast = new ArrayList<>();
+    if (size == 0) {
+      return tiedForLast;
+    }
+
+    // the candidates with the fewest votes are the top of the min heap, and are ordered by ID
+    long fewestVotes = votes(minHeap[0]);
+    int[] toVisit = new int[size];
+    int numToVisit = 0;
+    toVisit[numToVisit++] = 0;
+    int[] tiedIDs = new int[size];
+    int numTied = 0;
+    while (numToVisit > 0) {
+      int index = toVisit[--numToVisit];
+      if (votes(minHeap[index]) == fewestVotes) {
+        tiedIDs[numTied++] = minHeap[index];
+        for (int child = 2 * index + 1; child <= 2 * index + 2 && child < size; child++) {
+          toVisit[numToVisit++] = child;
+        }
+      }
+    }
+    Arrays.sort(tiedIDs, 0, numTied);
+    for (int i = 0; i < numTied; i++) {
+      tiedForLast.add(candidatesByID[tiedIDs[i]]);
+    }
+    return tiedForLast;
+  }
+
+  /**
+   * Walks the candidates from the fewest votes to the most, with candidates tied in votes ordered
+   * by candidate ID. The walk only visits the candidates it has returned and their children in the
+   * min heap, so stopping early doesn't cost a pass over every candidate. The standings must not
+   * change during the walk.
+   *
+   * @return the candidates from the fewest votes to the most.
+   */
+  public Iterator<Candidate> fewestFirst() {
+    // the next candidate is always a child of a candidate already returned, or the top of the heap
+    PriorityQueue<Integer> toVisit = new PriorityQueue<>(
+            (first, second) -> above(minHeap[first], minHeap[second], false) ? -1 : 1);
+    if (size > 0) {
+      toVisit.add(0);
+    }
+    return new Iterator<Candidate>() {
+      @Override
+      public boolean hasNext() {
+        return !toVisit.isEmpty();
+      }
+
+      @Override
+      public Candidate next() {
+        if (toVisit.isEmpty()) {
+          throw new NoSuchElementException("Every candidate in the standings has been visited.");
+        }
+        int index = toVisit.poll();
+        for (int child = 2 * index + 1; child <= 2 * index + 2 && child < size; child++) {
+          toVisit.add(child);
+        }
+        return candidatesByID[minHeap[index]];
+      }
+    };
+  }
+
+  /**
+   * Gets the current number of votes of a candidate.
+   *
+   * @param candidateID the candidate ID of the candidate.
+   * @return the number of votes.
+   */
+  private long votes(int candidateID) {
+    return candidatesByID[candidateID].getCurNumVotes();
+  }
+
+  /**
+   * Checks if a candidate belongs above another candidate in a heap.
+   *
+   * @param first the candidate ID of the first candidate.
+   * @param second the candidate ID of the second candidate.
+   * @param most true for the heap with the most votes on top, false for the fewest votes on top.
+   * @return true if the first candidate belongs above the second.
+   */
+  private boolean above(int first, int second, boolean most) {
+    long firstVotes = votes(first);
+    long secondVotes = votes(second);
+    if (firstVotes != secondVotes) {
+      return most ? firstVotes > secondVotes : firstVotes < secondVotes;
+    }
+    return first < second;
+  }
+
+  /**
+   * Takes the candidate at an index out of a heap. The standings must already be one smaller.
+   *
+   * @param heap the heap.
+   * @param indexes the index of each candidate ID in the heap.
+   * @param index the index of the candidate to take out.
+   * @param most true for the heap with the most votes on top, false for the fewest votes on top.
+   */
+  private void removeFromHeap(int[] heap, int[] indexes, int index, boolean most) {
+    indexes[heap[index]] = -1;
+    if (index == size) {
+      return; // the candidate was the last in the heap
+    }
+    heap[index] = heap[size];
+    indexes[heap[index]] = index;
+    siftUp(heap, indexes, siftDown(heap, indexes, index, most), most);
+  }
+
+  /**
+   * Moves a candidate up a heap until it is below a candidate that belongs above it.
+   *
+   * @param heap the heap.
+   * @param indexes the index of each candidate ID in the heap.
+   * @param index the index of the candidate to move.
+   * @param most true for the heap with the most votes on top, false for the fewest votes on top.
+   */
+  private void siftUp(int[] heap, int[] indexes, int index, boolean most) {
+    int candidateID = heap[index];
+    while (index > 0) {
+      int parent = (index - 1) / 2;
+      if (!above(candidateID, heap[parent], most)) {
+        break;
+      }
+      heap[index] = heap[parent];
+      indexes[heap[index]] = index;
+      index = parent;
+    }
+    heap[index] = candidateID;
+    indexes[candidateID] = index;
+  }
+
+  /**
+   * Moves a candidate down a heap until the candidates below it belong below it.
+   *
+   * @param heap the heap.
+   * @param indexes the index of each candidate ID in the heap.
+   * @param index the index of the candidate to move.
+   * @param most true for the heap with the most votes on top, false for the fewest votes on top.
+   * @return the index the candidate ended up at.
+   */
+  private int siftDown(int[] heap, int[] indexes, int index, boolean most) {
+    int candidateID = heap[index];
+    while (2 * index + 1 < size) {
+      int child = 2 * index + 1;
+      if (child + 1 < size && above(heap[child + 1], heap[child], most)) {
+        child++;
+      }
+      if (!above(heap[child], candidateID, most)) {
+        break;
+      }
+      heap[index] = heap[child];
+      indexes[heap[index]] = index;
+      index = child;
+    }
+    heap[index] = candidateID;
+    indexes[candidateID] = index;
+    return index;
+  }
+}
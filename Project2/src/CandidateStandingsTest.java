@@ -0,0 +1,157 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CandidateStandings Class Unit Tests
+ */
+public class CandidateStandingsTest {
+
+  /**
+   * Creates candidates with the given numbers of votes.
+   *
+   * @param votes the number of votes of each candidate, indexed by candidate ID.
+   * @return the candidates indexed by candidate ID.
+   */
+  private static Candidate[] createCandidates(int... votes) {
+    Candidate[] candidates = new Candidate[votes.length];
+    for (int i = 0; i < votes.length; i++) {
+      candidates[i] = new Candidate("c" + i, "p" + i, i);
+      candidates[i].setCurNumVotes(votes[i]);
+    }
+    return candidates;
+  }
+
+  /**
+   * Gets the names of candidates.
+   *
+   * @param candidates the candidates.
+   * @return the names in the same order.
+   */
+  private static ArrayList<String> names(ArrayList<Candidate> candidates) {
+    ArrayList<String> names = new ArrayList<>();
+    for (Candidate candidate : candidates) {
+      names.add(candidate.getName());
+    }
+    return names;
+  }
+
+  /**
+   * Tests that the leader is the first candidate with the most votes, and that every candidate
+   * tied for last is found in candidate ID order.
+   */
+  @Test
+  public void testLeaderAndTiedForLast() {
+    Candidate[] candidates = createCandidates(5, 2, 9, 2, 9, 3, 2);
+    CandidateStandings standings = new CandidateStandings(candidates);
+    assertEquals(7, standings.size());
+    assertEquals("c2", standings.getLeader().getName());
+    assertEquals(List.of("c1", "c3", "c6"), names(standings.getTiedForLast()));
+  }
+
+  /**
+   * Tests that candidates move in the standings when their votes change, and can be removed.
+   */
+  @Test
+  public void testUpdateAndRemove() {
+    Candidate[] candidates = createCandidates(5, 2, 9, 2, 9, 3, 2);
+    CandidateStandings standings = new CandidateStandings(candidates);
+
+    standings.remove(2);
+    assertFalse(standings.contains(2));
+    assertEquals("c4", standings.getLeader().getName());
+
+    candidates[3].incrementCurNumVotes(10);
+    standings.update(3);
+    assertEquals("c3", standings.getLeader().getName());
+    assertEquals(List.of("c1", "c6"), names(standings.getTiedForLast()));
+
+    standings.remove(1);
+    standings.remove(6);
+    assertEquals(List.of("c5"), names(standings.getTiedForLast()));
+    assertEquals(4, standings.size());
+    assertThrows(IllegalArgumentException.class, () -> standings.remove(6));
+    assertThrows(IllegalArgumentException.class, () -> standings.update(1));
+  }
+
+  /**
+   * Tests that the candidates are walked from the fewest votes to the most, with ties in candidate
+   * ID order, after votes change and candidates are removed.
+   */
+  @Test
+  public void testFewestFirst() {
+    Candidate[] candidates = createCandidates(5, 2, 9, 2, 9, 3, 2);
+    CandidateStandings standings = new CandidateStandings(candidates);
+    candidates[0].incrementCurNumVotes(10);
+    standings.update(0);
+    standings.remove(3);
+
+    ArrayList<Candidate> walked = new ArrayList<>();
+    Iterator<Candidate> fewestFirst = standings.fewestFirst();
+    while (fewestFirst.hasNext()) {
+      walked.add(fewestFirst.next());
+    }
+    assertEquals(List.of("c1", "c6", "c5", "c2", "c4", "c0"), names(walked));
+    assertThrows(NoSuchElementException.class, fewestFirst::next);
+    assertFalse(new CandidateStandings(new Candidate[0]).fewestFirst().hasNext());
+  }
+
+  /**
+   * Tests the standings against going through every candidate, over many random vote changes and
+   * removals.
+   */
+  @Test
+  public void testRandomChanges() {
+    Random random = new Random(7);
+    Candidate[] candidates = createCandidates(new int[100]);
+    ArrayList<Candidate> left = new ArrayList<>(Arrays.asList(candidates));
+    CandidateStandings standings = new CandidateStandings(candidates);
+    while (!left.isEmpty()) {
+      if (random.nextInt(10) == 0) {
+        Candidate removed = left.remove(random.nextInt(left.size()));
+        standings.remove(removed.getCandidateID());
+      } else {
+        Candidate changed = left.get(random.nextInt(left.size()));
+        changed.incrementCurNumVotes(random.nextInt(3));
+        standings.update(changed.getCandidateID());
+      }
+      if (left.isEmpty()) {
+        break;
+      }
+
+      Candidate leader = left.get(0);
+      long fewestVotes = left.get(0).getCurNumVotes();
+      for (Candidate candidate : left) {
+        if (candidate.getCurNumVotes() > leader.getCurNumVotes()) {
+          leader = candidate;
+        }
+        fewestVotes = Math.min(fewestVotes, candidate.getCurNumVotes());
+      }
+      ArrayList<Candidate> tiedForLast = new ArrayList<>();
+      for (Candidate candidate : left) {
+        if (candidate.getCurNumVotes() == fewestVotes) {
+          tiedForLast.add(candidate);
+        }
+      }
+      assertSame(leader, standings.getLeader());
+      assertEquals(tiedForLast, standings.getTiedForLast());
+    }
+    assertNull(standings.getLeader());
+    assertTrue(standings.getTiedForLast().isEmpty());
+  }
+
+  /**
+   * Tests exception thrown from constructor on null argument.
+   */
+  @Test
+  public void testNullCandidates() {
+    assertThrows(IllegalArgumentException.class, () -> new CandidateStandings(null));
+  }
+}
@@ -1,17 +1,23 @@
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileNotFoundException;
 import java.io.PrintWriter;
+import java.nio.channels.FileChannel;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
 
 /**
  * Unit tests for the Create Election Class
@@ -20,6 +26,33 @@ import java.util.regex.Pattern;
  */
 public class CreateElection {
 
+  /**
+   * The number of worker threads used to count the ballots of multiple election files, or the
+   * ballots of a single large election file. This can be set on the command line with
+   * -Declection.workers=N and defaults to the number of processors.
+   */
+  private static int numWorkers = Math.max(1, Integer.getInteger("election.workers",
+          Runtime.getRuntime().availableProcessors()));
+
+  /**
+   * Whether the counters of each BallotPipeline are printed to standard error once the pipeline
+   * is done. This can be turned on from the command line with -Delection.pipelineStats=true.
+   */
+  private static final boolean reportPipelines = Boolean.getBoolean("election.pipelineStats");
+
+  /**
+   * Whether each election file is counted on its own virtual thread instead of a pool of worker
+   * threads. This suits runs with thousands of small files, where most of the time is spent
+   * opening and closing files. This can be turned on from the command line with
+   * -Delection.virtualThreads=true and needs Java 21, otherwise the worker threads are used.
+   */
+  private static boolean useVirtualThreads = Boolean.getBoolean("election.virtualThreads");
+
+  /**
+   * The most election files that are open at once while they are counted on virtual threads.
+   */
+  private static final int MAX_OPEN_FILES = 256;
+
   /**
    * This function takes the file name a ballot CSV file
    * and returns the election object based on that file.
@@ -35,40 +68,39 @@ public class CreateElection {
       return null;
     }
 
-    // single buffered reader to read in election type
-    BufferedReader electionBufferedReader = openElectionFile(electionFileNames[0]);
-    if (electionBufferedReader == null) {
+    // open the first file and read its header once. The header is handed to the respective
+    // function so the first file never has to be opened or read through again
+    FileChannel firstFile = openElectionFile(electionFileNames[0]);
+    if (firstFile == null) {
       return null;
     }
 
     // get the election type
-    String strFirstLine;
+    ElectionFileHeader firstHeader;
     try {
-      strFirstLine = electionBufferedReader.readLine();
+      firstHeader = ElectionFileHeader.read(firstFile);
     } catch (IOException ex) {
       System.out.println("Error: Invalid File Format for " + electionFileNames[0]);
+      closeElectionFile(firstFile);
       return null;
     }
 
-    // close buffered reader (won't be using anymore)
-    try {
-      electionBufferedReader.close();
-    } catch (IOException e) {
-      // something unexpected happened when closing the election file
-      e.printStackTrace();
-    }
-
     // call the respective function to create the election
-    switch (strFirstLine) {
-      case "IR":
-        return createIR(electionFileNames);
-      case "OPL":
-        return createOPL(electionFileNames);
-      case "PO":
-        return createPO(electionFileNames);
-      default:
-        System.out.println("Error: Invalid Election Type");
-        return null;
+    try {
+      switch (firstHeader.getElectionType()) {
+        case "IR":
+          return createIR(electionFileNames, firstFile, firstHeader);
+        case "OPL":
+          return createOPL(electionFileNames, firstFile, firstHeader);
+        case "PO":
+          return createPO(electionFileNames, firstFile, firstHeader);
+        default:
+          System.out.println("Error: Invalid Election Type");
+          return null;
+      }
+    } finally {
+      // close the first file (won't be using anymore)
+      closeElectionFile(firstFile);
     }
   }
 
@@ -95,81 +127,432 @@ public class CreateElection {
    * returns the IR object based on the file
    *
    * @param electionFileNames This is the list of file names to be read by the user
+   * @param firstFile The first file, already opened by createElection
+   * @param firstHeader The header already read in from the first file
    * @return An instance of IR based on the specifications of th file
    */
-  private static IR createIR(String[] electionFileNames) {
-      ArrayList<Candidate> candidateArrayList = electionHeader(electionFileNames[0], ", ", "(\\w+) \\((\\w+)\\)");
-      if(candidateArrayList == null){
-        System.out.println("Error: Invalid File Format");
-        return null;
-      }
+  private static IR createIR(String[] electionFileNames, FileChannel firstFile,
+                             ElectionFileHeader firstHeader) {
     try{
-      int numberOfCandidates = candidateArrayList.size();
+      ArrayList<Candidate> candidateArrayList = firstHeader.getCandidates();
+
+      //Count and merge the ballots of every file
+      FileTally electionTally = mergeIRFiles(electionFileNames, firstFile, firstHeader,
+              candidateArrayList);
+      if (electionTally.errorMessage != null) {
+        System.out.println(electionTally.errorMessage);
+        if (electionTally.invalidFormat) {
+          throw new IOException();
+        }
+        return null; // stop execution if one of the input files is not valid
+      }
 
-      //Count the rest of the ballots putting results into ballotCounter
-      HashMap<String,Integer> ballotCounter = new HashMap<>();
-      String currentBallot;
-      int totalNumberOfBallots = 0;
-      BufferedReader currentFile;
       PrintWriter invalidFileAudit = makeFile();
-      int halfCandidates = (numberOfCandidates+1)/2;
-      int numInvalidBallots = 0;
+      for (String invalidBallot : electionTally.invalidBallots) {
+        invalidFileAudit.println(invalidBallot);
+      }
+      invalidFileAudit.close();
 
-      for(int j = 0; j < electionFileNames.length; j++){
-        currentFile = openElectionFile(electionFileNames[j]);
-        if (currentFile == null) {
-          throw new IOException();
+      //Hand the distinct rankings straight to IR, which keeps them as candidate IDs
+      return new IR(candidateArrayList, electionTally.ballotGroups, electionTally.numberOfBallots);
+    }
+    catch (IOException ex){
+      System.out.println("Error: Invalid File Format");
+      return null;
+    }
+  }
+
+  /**
+   * Counts the ballots of every IR file and merges them into a single tally. The files are merged
+   * in file order, which keeps the first-seen order of the ballots the same as reading the files
+   * one at a time.
+   *
+   * @param electionFileNames The list of IR file names to count
+   * @param firstFile The first file, already opened
+   * @param firstHeader The header already read in from the first file
+   * @param candidateArrayList The candidates read in from the header of the first file
+   * @return The tally of every file. If a file could not be counted, the tally of that file is
+   * returned instead so its error can be reported.
+   * @throws IOException If a worker was interrupted or failed unexpectedly
+   */
+  private static FileTally mergeIRFiles(String[] electionFileNames, FileChannel firstFile,
+                                        ElectionFileHeader firstHeader,
+                                        ArrayList<Candidate> candidateArrayList)
+          throws IOException {
+    //Count the ballots of every file (in parallel when there are workers to spare)
+    ArrayList<FileTally> fileTallies = tallyFiles(electionFileNames, firstFile, firstHeader,
+            (currentFile, header, splitFile) -> tallyIRBallots(currentFile, header,
+                    candidateArrayList, splitFile), true);
+
+    FileTally electionTally = new FileTally();
+    electionTally.ballotGroups = new BallotGroups();
+    electionTally.invalidBallots = new ArrayList<>();
+    for (FileTally fileTally : fileTallies) {
+      if (fileTally.errorMessage != null) {
+        return fileTally;
+      }
+      electionTally.numberOfBallots += fileTally.numberOfBallots;
+      electionTally.ballotGroups.addAll(fileTally.ballotGroups);
+      electionTally.invalidBallots.addAll(fileTally.invalidBallots);
+    }
+    return electionTally;
+  }
+
+  /**
+   * Counts the ballots of every IR file and writes them to a binary ballot file with the ballots
+   * of all the files merged into groups of distinct rankings. The grouped file can be given to
+   * createElection in place of the IR files, and grouped files from several precincts are merged
+   * the same way as any other files.
+   *
+   * @param electionFileNames The IR files (CSV or binary) to count
+   * @param groupFileName The name of the binary ballot file to write
+   * @return true if the file was written, false otherwise
+   */
+  public static boolean exportIRBallotGroups(String[] electionFileNames, String groupFileName) {
+    if (electionFileNames == null || electionFileNames.length < 1) {
+      System.out.println("Error: There needs to be at least one election files for an election.");
+      return false;
+    }
+
+    FileChannel firstFile = openElectionFile(electionFileNames[0]);
+    if (firstFile == null) {
+      return false;
+    }
+    try {
+      ElectionFileHeader firstHeader = ElectionFileHeader.read(firstFile);
+      if (!firstHeader.getElectionType().equals("IR")) {
+        System.out.println("Error: Only IR elections can be exported as ballot groups");
+        return false;
+      }
+      ArrayList<Candidate> candidateArrayList = firstHeader.getCandidates();
+
+      FileTally electionTally = mergeIRFiles(electionFileNames, firstFile, firstHeader,
+              candidateArrayList);
+      if (electionTally.errorMessage != null) {
+        System.out.println(electionTally.errorMessage);
+        if (electionTally.invalidFormat) {
+          System.out.println("Error: Invalid File Format");
         }
-        if (!iterateThroughFirstLines(currentFile, 3,"IR")) {
-          return null; // stop execution if one of the input files is not valid
+        return false;
+      }
+      BinaryBallotFile.write(groupFileName, "IR", candidateArrayList, 0,
+              electionTally.ballotGroups, electionTally.invalidBallots);
+      return true;
+    } catch (IOException ex) {
+      System.out.println("Error: Could not export ballot groups to " + groupFileName);
+      return false;
+    } finally {
+      closeElectionFile(firstFile);
+    }
+  }
+
+  /**
+   * Counts the ballots of every election file. Each file is counted on its own worker (or its own
+   * virtual thread) with its own partial tally, which also lets compressed files be decompressed
+   * in parallel. The tallies are returned in the same order as the file names so they can be
+   * merged exactly like the files were read one after another.
+   *
+   * @param electionFileNames The list of election file names to count
+   * @param firstFile The first file, already opened by createElection
+   * @param firstHeader The header already read in from the first file
+   * @param fileCounter Counts the ballots of a single file once its header has been read
+   * @param useWorkers Whether the files can be handed to the workers. If not, every file is counted
+   *                   one after another on the calling thread
+   * @return The tally of each file in the same order as electionFileNames
+   * @throws IOException If a worker was interrupted or failed unexpectedly
+   */
+  private static ArrayList<FileTally> tallyFiles(String[] electionFileNames,
+                                                 FileChannel firstFile,
+                                                 ElectionFileHeader firstHeader,
+                                                 FileCounter fileCounter,
+                                                 boolean useWorkers) throws IOException {
+    String electionType = firstHeader.getElectionType();
+    ArrayList<FileTally> fileTallies = new ArrayList<>();
+    int workers = useWorkers ? Math.min(numWorkers, electionFileNames.length) : 1;
+    ExecutorService pool = useWorkers && useVirtualThreads && electionFileNames.length > 1
+            ? newVirtualThreadPerTaskExecutor() : null;
+    if (pool == null && workers <= 1) {
+      // no need to hand the work off to other threads. The ballots of each file can be split up
+      // between the workers instead
+      for (int i = 0; i < electionFileNames.length; i++) {
+        FileTally fileTally = i == 0
+                ? fileCounter.count(firstFile, firstHeader, useWorkers)
+                : tallyFile(electionFileNames[i], electionType, fileCounter, useWorkers);
+        fileTallies.add(fileTally);
+        if (fileTally.errorMessage != null) {
+          break; // the rest of the files won't be used
         }
-        int fileNumberOfBallots = Integer.parseInt(currentFile.readLine());
-        totalNumberOfBallots += fileNumberOfBallots;
-
-        for(int i = 0; i < fileNumberOfBallots;i++) {
-          currentBallot = currentFile.readLine();
-          String[] orderedCandidatesBallot = currentBallot.split(",", -1);
-          String[] formattedBallotArray = new String[numberOfCandidates];
-          Arrays.fill(formattedBallotArray, "");
-
-          //Checks if the ballot has at least half of the candidates ranked, ignores ballot if it does not.
-          int numCandidatesRanked = 0;
-          for (String rank : orderedCandidatesBallot) {
-            if (!rank.isEmpty()) {
-              numCandidatesRanked++;
-            }
-          }
-          if (numCandidatesRanked < halfCandidates) {
-            numInvalidBallots++;
-            invalidFileAudit.println(currentBallot);
-            continue;
+      }
+      return fileTallies;
+    }
+
+    if (pool == null) {
+      pool = Executors.newFixedThreadPool(workers);
+    }
+    Semaphore openFiles = new Semaphore(MAX_OPEN_FILES); // so thousands of threads can't run out
+    try {
+      ArrayList<Future<FileTally>> futureTallies = new ArrayList<>();
+      futureTallies.add(pool.submit(() -> fileCounter.count(firstFile, firstHeader, false)));
+      for (int i = 1; i < electionFileNames.length; i++) {
+        String electionFileName = electionFileNames[i];
+        futureTallies.add(pool.submit(() -> {
+          openFiles.acquire();
+          try {
+            return tallyFile(electionFileName, electionType, fileCounter, false);
+          } finally {
+            openFiles.release();
           }
+        }));
+      }
+      for (Future<FileTally> futureTally : futureTallies) {
+        fileTallies.add(futureTally.get());
+      }
+      return fileTallies;
+    } catch (InterruptedException | ExecutionException ex) {
+      throw new IOException(ex);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Creates an executor that starts a new virtual thread for each task. Virtual threads were added
+   * in Java 21, so the executor is looked up at runtime to keep the program compiling and running
+   * on older versions.
+   *
+   * @return The executor, or null if virtual threads are not available
+   */
+  private static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+              .invoke(null);
+    } catch (ReflectiveOperationException ex) {
+      return null;
+    }
+  }
 
+  /**
+   * Counts the ballots of a single election file other than the first. The header of the file is
+   * read once, checked against the election type of the first file, and the ballots are counted
+   * with fileCounter. Any problem with the file is recorded in the tally instead of being printed
+   * so the caller can report the problems in file order.
+   *
+   * @param electionFileName The election file to count
+   * @param electionType The election type the file is expected to have
+   * @param fileCounter Counts the ballots of the file once its header has been read
+   * @param splitFile Whether the ballots of the file can be split up between the workers
+   * @return The ballots counted from the file
+   */
+  private static FileTally tallyFile(String electionFileName, String electionType,
+                                     FileCounter fileCounter, boolean splitFile) {
+    FileChannel currentFile;
+    try {
+      currentFile = FileChannel.open(Paths.get(electionFileName), StandardOpenOption.READ);
+    } catch (IOException | InvalidPathException ex) {
+      FileTally fileTally = new FileTally();
+      fileTally.errorMessage = "Error: File (" + electionFileName + ") Not Found";
+      fileTally.invalidFormat = true;
+      return fileTally;
+    }
 
-          for(int k = 0; k<numberOfCandidates; k++){
-            if(!orderedCandidatesBallot[k].isEmpty()){
-              int candidatePreferenceNumber = Integer.parseInt(orderedCandidatesBallot[k])-1;
-              String candidateParty = candidateArrayList.get(k).getParty();
-              formattedBallotArray[candidatePreferenceNumber]=("("+candidateParty+")");
-            }
-          }
-          String formatedBallot = String.join("",formattedBallotArray);
-          int currBallotCount = 0;
-          if(ballotCounter.containsKey(formatedBallot)){
-            currBallotCount = ballotCounter.get(formatedBallot);
+    try {
+      ElectionFileHeader header = ElectionFileHeader.read(currentFile);
+
+      // ensure the election type is the one that is expected
+      if (!header.getElectionType().equals(electionType)) {
+        FileTally fileTally = new FileTally();
+        fileTally.errorMessage = "Error: The election type of one of the input files is not the " +
+                "same as the expected";
+        return fileTally;
+      }
+      return fileCounter.count(currentFile, header, splitFile);
+    } catch (IOException ex) {
+      FileTally fileTally = new FileTally();
+      fileTally.errorMessage = "Error: Invalid File Format";
+      return fileTally;
+    } finally {
+      closeElectionFile(currentFile);
+    }
+  }
+
+  /**
+   * Counts the ballots of an IR file whose header has already been read. The ballots are parsed
+   * byte by byte with an IRBallotParser starting right where the header says they start, or read
+   * straight from the records of a binary ballot file. Ballots
+   * that rank less than half of the candidates are kept in the tally's invalid ballot buffer
+   * instead of being counted. Any problem with the ballots is recorded in the tally instead of
+   * being printed so the caller can report the problems in file order.
+   *
+   * @param currentFile The IR file to count
+   * @param header The header read in from the file
+   * @param candidateArrayList The candidates read in from the header of the first file
+   * @param splitFile Whether the ballots of the file can be split up between the workers
+   * @return The ballots counted from the file
+   */
+  private static FileTally tallyIRBallots(FileChannel currentFile, ElectionFileHeader header,
+                                          ArrayList<Candidate> candidateArrayList,
+                                          boolean splitFile) {
+    FileTally fileTally = new FileTally();
+    try {
+      if (header.isBinary()) {
+        // the ballots are already grouped by their rankings
+        fileTally.invalidBallots = new ArrayList<>();
+        fileTally.ballotGroups = BinaryBallotFile.readBallotGroups(currentFile, header,
+                candidateArrayList.size(), fileTally.invalidBallots);
+        fileTally.numberOfBallots = header.getNumberOfBallots();
+        return fileTally;
+      }
+
+      IRBallotParser ballotParser = parseBallotSection(currentFile, header,
+              () -> new IRBallotParser(candidateArrayList.size()), splitFile);
+
+      fileTally.ballotGroups = ballotParser.getBallotGroups();
+      fileTally.invalidBallots = ballotParser.getInvalidBallots();
+      fileTally.numberOfBallots = ballotParser.getNumberOfBallots();
+    } catch (IOException ex) {
+      fileTally.errorMessage = "Error: Invalid File Format";
+    }
+    return fileTally;
+  }
+
+  /**
+   * Parses the ballot section of an election file. When the section is big enough and there are
+   * workers to spare, it is split into ranges of whole ballots that are parsed in parallel and
+   * merged back together in order, otherwise it is parsed one ballot after another. The ballots
+   * of a gzip compressed file are parsed as they are decompressed, by a BallotPipeline when there
+   * are workers to spare.
+   *
+   * @param electionFile The election file to parse
+   * @param header The header read in from the file
+   * @param newParser Creates an empty parser for the type of election
+   * @param splitFile Whether the ballots can be split up between the workers
+   * @param <P> The type of parser
+   * @return A parser holding every ballot in the file
+   * @throws IOException If the file has fewer ballots than expected or a ballot is not valid
+   */
+  private static <P extends BallotParser> P parseBallotSection(FileChannel electionFile,
+                                                               ElectionFileHeader header,
+                                                               Supplier<P> newParser,
+                                                               boolean splitFile)
+          throws IOException {
+    long ballotStart = header.getBallotStart();
+    int numberOfBallots = header.getNumberOfBallotLines();
+    if (header.isCompressed()) {
+      try (InputStream ballots = header.openBallots(electionFile)) {
+        if (splitFile && numWorkers > 1) {
+          // a stream can't be split up, so decompress, parse, and merge the ballots in stages
+          BallotPipeline pipeline = new BallotPipeline(numWorkers - 1, 2 * numWorkers);
+          P ballotParser = pipeline.parse(ballots, numberOfBallots, newParser);
+          if (reportPipelines) {
+            System.err.println(pipeline);
           }
-          ballotCounter.put(formatedBallot,currBallotCount + 1);
+          return ballotParser;
         }
-        currentFile.close();
+
+        P ballotParser = newParser.get();
+        ballotParser.parse(ballots, numberOfBallots);
+        return ballotParser;
       }
-      invalidFileAudit.close();
-      totalNumberOfBallots -= numInvalidBallots;
-      return new IR(ballotCounter,candidateArrayList,totalNumberOfBallots);
     }
-    catch (IOException ex){
-      System.out.println("Error: Invalid File Format");
-      return null;
+
+    if (splitFile && numWorkers > 1
+            && electionFile.size() - ballotStart >= 2 * BallotParser.MIN_RANGE_SIZE) {
+      ForkJoinPool pool = new ForkJoinPool(numWorkers);
+      try {
+        return BallotParser.parseInParallel(electionFile, ballotStart, numberOfBallots, newParser,
+                pool);
+      } finally {
+        pool.shutdown();
+      }
     }
+
+    P ballotParser = newParser.get();
+    ballotParser.parse(electionFile, ballotStart, numberOfBallots);
+    return ballotParser;
+  }
+
+  /**
+   * Counts the votes of an OPL or PO file whose header has already been read. The ballots are
+   * parsed byte by byte with a SingleChoiceBallotParser starting right where the header says they
+   * start, or read straight from the records of a binary ballot file. Any problem with the ballots
+   * is recorded in the tally instead of being printed so the caller can report the problems in
+   * file order.
+   *
+   * @param currentFile The file to count
+   * @param header The header read in from the file
+   * @param numberOfCandidates The number of candidates read in from the header of the first file
+   * @param splitFile Whether the ballots of the file can be split up between the workers
+   * @return The votes counted from the file
+   */
+  private static FileTally countSingleChoiceBallots(FileChannel currentFile,
+                                                    ElectionFileHeader header,
+                                                    int numberOfCandidates, boolean splitFile) {
+    FileTally fileTally = new FileTally();
+    try {
+      SingleChoiceBallotParser fileVotes;
+      if (header.isBinary()) {
+        // each record is a group of ballots for a single candidate
+        fileVotes = new SingleChoiceBallotParser(numberOfCandidates);
+        BallotGroups ballotGroups = BinaryBallotFile.readBallotGroups(currentFile, header,
+                numberOfCandidates, new ArrayList<>());
+        for (int group = 0; group < ballotGroups.size(); group++) {
+          short[] ranking = ballotGroups.getRanking(group);
+          if (ranking.length != 1) throw new IOException("A ballot does not vote for a single candidate.");
+          fileVotes.addVotes(ranking[0], ballotGroups.getCount(group));
+        }
+      } else {
+        fileVotes = parseBallotSection(currentFile, header,
+                () -> new SingleChoiceBallotParser(numberOfCandidates), splitFile);
+      }
+
+      fileTally.votes = fileVotes.getVotes();
+      fileTally.numberOfBallots = fileVotes.getNumberOfBallots();
+    } catch (IOException ex) {
+      fileTally.errorMessage = "Error: Invalid File Format";
+    }
+    return fileTally;
+  }
+
+  /**
+   * Sets the number of worker threads used to count the ballots when multiple election files
+   * are given. A single worker counts the files one after another on the calling thread.
+   *
+   * @param workers the number of worker threads to use.
+   * @throws IllegalArgumentException if workers is not positive.
+   */
+  public static void setNumWorkers(int workers) throws IllegalArgumentException {
+    if (workers < 1) throw new IllegalArgumentException("The number of workers must be positive.");
+
+    numWorkers = workers;
+  }
+
+  /**
+   * Gets the number of worker threads used to count the ballots when multiple election files
+   * are given.
+   *
+   * @return the number of worker threads.
+   */
+  public static int getNumWorkers() {
+    return numWorkers;
+  }
+
+  /**
+   * Sets whether each election file is counted on its own virtual thread. If virtual threads are
+   * not available the worker threads are used instead.
+   *
+   * @param virtualThreads true to count each file on its own virtual thread.
+   */
+  public static void setUseVirtualThreads(boolean virtualThreads) {
+    useVirtualThreads = virtualThreads;
+  }
+
+  /**
+   * Checks if each election file is counted on its own virtual thread.
+   *
+   * @return true if virtual threads are used, false otherwise.
+   */
+  public static boolean isUsingVirtualThreads() {
+    return useVirtualThreads;
   }
 
   /**
@@ -178,319 +561,269 @@ public class CreateElection {
    * returns the OPL object based on all of the files
    *
    * @param electionFileNames This is a list of all the csv input file names
+   * @param firstFile The first file, already opened by createElection
+   * @param firstHeader The header already read in from the first file
    * @return An instance of OPL based on the specifications of the file
    */
-  private static OPL createOPL(String[] electionFileNames) {
-    // get important information from the first election file
-    ArrayList<Candidate> candidateArrayList = electionHeader(electionFileNames[0], "],\\s?\\[",
-            "\\[?(\\w+),(\\w+)]?");
-    if(candidateArrayList == null){
-      System.out.println("Error: Invalid File Format");
+  private static OPL createOPL(String[] electionFileNames, FileChannel firstFile,
+                               ElectionFileHeader firstHeader) {
+    // the allocation method can be chosen on the command line
+    OPL.AllocationMethod allocationMethod;
+    try {
+      allocationMethod = OPL.AllocationMethod.fromOptionName(
+              System.getProperty("election.oplAllocation"));
+    } catch (IllegalArgumentException ex) {
+      System.out.println("Error: " + ex.getMessage());
       return null;
     }
 
-    // get the number of seats in the first file
-    int totalNumberOfSeats = getTotalSeatsOPL(electionFileNames[0]);
-    if (totalNumberOfSeats == -1) {
+    // get important information from the first election file, and group the candidates into their
+    // parties
+    VoteTally tally;
+    try {
+      tally = VoteTally.ofCandidates(firstHeader.getCandidates());
+    } catch (IOException ex) {
       System.out.println("Error: Invalid File Format");
       return null;
-    } else if (totalNumberOfSeats == 0) {
+    }
+    return createOPL(electionFileNames, firstFile, firstHeader, tally, allocationMethod, true);
+  }
+
+  /**
+   * Counts the ballots of every file of an OPL election whose candidates have already been
+   * created, and returns the OPL object based on all of the files.
+   *
+   * @param electionFileNames This is a list of all the csv input file names
+   * @param firstFile The first file, already opened
+   * @param firstHeader The header already read in from the first file
+   * @param tally The tally of the candidates and parties of the election, with no votes
+   * @param allocationMethod How the seats are allocated to the parties
+   * @param useWorkers Whether the ballots can be counted by the workers
+   * @return An instance of OPL based on the specifications of the file
+   */
+  private static OPL createOPL(String[] electionFileNames, FileChannel firstFile,
+                               ElectionFileHeader firstHeader, VoteTally tally,
+                               OPL.AllocationMethod allocationMethod, boolean useWorkers) {
+    // get the number of seats in the first file
+    int totalNumberOfSeats = firstHeader.getNumberOfSeats();
+    if (totalNumberOfSeats == 0) {
       System.out.println("Error: An OPL Election cannot be created with 0 seats available.");
       return null;
     }
 
     // now that we have the list of candidates and parties for the election, we must go through
     // each CSV input file and count up the ballots
-    int totalNumberOfBallots = 0; // add each file's count to this tally
-    String currentBallot;
-    int currentNumOfBallots;
-    BufferedReader currentFile;
-    for (int i = 0; i < electionFileNames.length; i++) {
-      // open up the next file and skip through the header list
-      currentFile = openElectionFile(electionFileNames[i]);
-      if (currentFile == null) {
-        return null;
-      }
+    ArrayList<FileTally> fileTallies;
+    try {
+      // go straight to the ballots of each file and count them up
+      fileTallies = tallyFiles(electionFileNames, firstFile, firstHeader,
+              (currentFile, header, splitFile) -> countSingleChoiceBallots(currentFile, header,
+                      tally.getNumCandidates(), splitFile), useWorkers);
+    } catch (IOException ex) {
+      System.out.println("Error: Invalid File Format");
+      return null;
+    }
 
-      // skips first four lines of input file -- should also check if the election types are
-      // the same
-      if (!iterateThroughFirstLines(currentFile, 4,"OPL")) {
+    // add each file's votes straight into the tally
+    long totalNumberOfBallots = 0; // add each file's count to this tally
+    for (FileTally fileTally : fileTallies) {
+      if (fileTally.errorMessage != null) {
+        System.out.println(fileTally.errorMessage);
         return null; // stop execution if one of the input files is not valid
       }
 
-      try {
-        currentNumOfBallots = Integer.parseInt(currentFile.readLine());
-        totalNumberOfBallots += currentNumOfBallots;
-        for (int j = 0; j < currentNumOfBallots; j++) {
-          currentBallot = currentFile.readLine();
-          int voteTo = currentBallot.indexOf("1");
-          candidateArrayList.get(voteTo).incrementCurNumVotes(1);
-        }
-      } catch (IOException ex) {
-        System.out.println("Error: Invalid File Format");
-      }
-
-      // close current file (done counting up ballots)
-      try {
-        currentFile.close();
-      } catch (IOException e) {
-        // something unexpected happened when closing the election file
-        e.printStackTrace();
+      totalNumberOfBallots += fileTally.numberOfBallots;
+      for (int i = 0; i < fileTally.votes.length; i++) {
+        tally.addVotes(i, fileTally.votes[i]);
       }
     }
+    tally.countPartyVotes();
 
-    // now create all the Party and Candidate objects and assign the candidates to their
-    // respective parties
-    ArrayList<Party> partyArrayList = createPartyListForOPL(candidateArrayList);
-
-    return new OPL(totalNumberOfBallots, totalNumberOfSeats, partyArrayList);
+    return new OPL(totalNumberOfBallots, totalNumberOfSeats, tally.getParties(), allocationMethod);
   }
 
   /**
-   * This function reads the rest of the files passed to it by
-   * the createElection function. It processes each file and
-   * returns the PO object based on all of the files
+   * Creates the OPL election of one district of a multi-district election from the district's
+   * files. Every district reads its own header, but districts that list the same candidates share a
+   * single parse of them: the first district to read a candidate list stores a tally of the
+   * candidates with no votes in candidateLists, and every district counts into its own copy of the
+   * stored tally instead of parsing the candidates again. The ballots of the
+   * district are counted on the calling thread unless useWorkers is set, since the districts
+   * themselves are already run in parallel.
    *
-   * @param fileNames This is a list of file names for all the csv input files
-   * @return An instance of PO based on the specifications of the file
+   * @param electionFileNames The OPL files of the district
+   * @param candidateLists The tally of each candidate list already parsed, with no votes, shared
+   *                       between the districts
+   * @param allocationMethod How the seats are allocated to the parties
+   * @param useWorkers Whether the ballots of the district can be counted by the workers
+   * @return An instance of OPL for the district, or null if the district could not be created
    */
-  private static PO createPO(String[] fileNames) {
-    if (fileNames == null || fileNames.length == 0) return null; // bad stuff
+  static OPL createDistrictOPL(String[] electionFileNames,
+                               ConcurrentHashMap<String, VoteTally> candidateLists,
+                               OPL.AllocationMethod allocationMethod, boolean useWorkers) {
+    if (electionFileNames == null || electionFileNames.length < 1) {
+      System.out.println("Error: There needs to be at least one election files for an election.");
+      return null;
+    }
 
+    FileChannel firstFile = openElectionFile(electionFileNames[0]);
+    if (firstFile == null) {
+      return null;
+    }
     try {
-      ArrayList<Candidate> candidateArrayList = new ArrayList<> (); // candidates list
-      ArrayList<Party> partyArrayList = new ArrayList<>();          // party list
-      Map<String, Party> partyMap = new HashMap<>();                // party names mapped to their party objects
-      int currentCandidateID = 0, totalNumberOfBallots = 0;
-
-      // open first file and get to the candidates/parties line
-      BufferedReader currentCSV = openElectionFile(fileNames[0]);
-      assert currentCSV != null;
-      currentCSV.readLine();
-      currentCSV.readLine();
-
-      String candidatesAndPartiesString = currentCSV.readLine(), candidatePartyRegex = "\\[?(\\w+),(\\w+)]?";
-      String[] candidatesAndPartiesList = candidatesAndPartiesString.split("],\\s?\\[",0); // split list of the candidates and their parties
-
-      // store all candidates based on the pattern given to us for election files
-      Pattern candidatePartyPattern = Pattern.compile(candidatePartyRegex);
-      for (String candidateAndParty : candidatesAndPartiesList) {
-        Matcher candidatePartyMatcher = candidatePartyPattern.matcher(candidateAndParty);
-        if (!candidatePartyMatcher.matches()) throw new IOException();
-        candidateArrayList.add(new Candidate(candidatePartyMatcher.group(1), candidatePartyMatcher.group(2), currentCandidateID++));
-      }
-
-      // iterate over all election files
-      for (String fileName : fileNames) {
-        currentCSV = openElectionFile(fileName);
-        assert currentCSV != null;
-
-        // get to the total ballots line
-        currentCSV.readLine();
-        currentCSV.readLine();
-        currentCSV.readLine();
-
-        // read in ballots and update candidates accordingly
-        int currentNumOfBallots = Integer.parseInt(currentCSV.readLine());
-        totalNumberOfBallots += currentNumOfBallots;
-        for (int i = 0; i < currentNumOfBallots; i++)
-          candidateArrayList.get(currentCSV.readLine().indexOf("1")).incrementCurNumVotes(1);
+      ElectionFileHeader firstHeader = ElectionFileHeader.read(firstFile);
+      if (!firstHeader.getElectionType().equals("OPL")) {
+        System.out.println("Error: Only OPL elections can be run by district");
+        return null;
       }
 
-      // now create all the Party and Candidate objects and assign the candidates to their respective parties
-      for (Candidate currentCandidate : candidateArrayList) {
-        String candidateParty = currentCandidate.getParty();
-
-        if (!partyMap.containsKey(candidateParty)) {
-          Party currentParty = new Party(candidateParty);
-          currentParty.addCandidate(currentCandidate);
-          currentParty.setTotalVotes(currentCandidate.getCurNumVotes());
-          partyArrayList.add(currentParty);
-          partyMap.put(currentParty.getName(), currentParty);
-        } else {
-          int currentTotalPartyVotes = partyMap.get(candidateParty).getTotalVotes();
-          partyMap.get(candidateParty).addCandidate(currentCandidate);
-          partyMap.get(candidateParty).setTotalVotes(currentTotalPartyVotes + currentCandidate.getCurNumVotes());
+      // parse each distinct candidate list once, and give every district its own copy of the tally
+      VoteTally sharedTally = candidateLists.get(firstHeader.getCandidatesAndParties());
+      if (sharedTally == null) {
+        sharedTally = VoteTally.ofCandidates(firstHeader.getCandidates());
+        VoteTally storedTally = candidateLists.putIfAbsent(firstHeader.getCandidatesAndParties(),
+                sharedTally);
+        if (storedTally != null) {
+          sharedTally = storedTally;
         }
       }
 
-      return new PO(totalNumberOfBallots, partyArrayList);
-    }
-    catch (IOException ex){
-      System.out.println("Error: Invalid File Format");
+      return createOPL(electionFileNames, firstFile, firstHeader, sharedTally.copyVotes(),
+              allocationMethod, useWorkers);
+    } catch (IOException ex) {
+      System.out.println("Error: Invalid File Format for " + electionFileNames[0]);
       return null;
+    } finally {
+      closeElectionFile(firstFile);
     }
   }
 
-
-  ////////////////////////// Private Helper Functions //////////////////////////////////////////////
-
   /**
-   * Returns the total seats in an OPL election found within an election file
-   * @param electionFileName The election file that contains the header information
-   * @return the total number of seats in the election. Returns -1 if there is some invalid file
-   * format issue.
+   * This function reads the rest of the files passed to it by
+   * the createElection function. It processes each file and
+   * returns the PO object based on all of the files
+   *
+   * @param fileNames This is a list of file names for all the csv input files
+   * @param firstFile The first file, already opened by createElection
+   * @param firstHeader The header already read in from the first file
+   * @return An instance of PO based on the specifications of the file
    */
-  private static int getTotalSeatsOPL(String electionFileName) {
-    BufferedReader currentFile = openElectionFile(electionFileName);
-    try {
-      if (currentFile == null) {
-        throw new IOException();
-      }
-      // read through the election type, number of candidates, and candidate list
-      currentFile.readLine();
-      currentFile.readLine();
-      currentFile.readLine();
-      return Integer.parseInt(currentFile.readLine());
-    } catch (IOException e) {
-      return -1;
-    }
-  }
+  private static PO createPO(String[] fileNames, FileChannel firstFile,
+                             ElectionFileHeader firstHeader) {
+    if (fileNames == null || fileNames.length == 0) return null; // bad stuff
 
-  /**
-   * Processes the header of the Election file given to it
-   * @param filePath This is the first file path given in the list of file paths. This function
-   *                 will read the election header information from this file.
-   * @param initialSplit This is the regex of the initial split on the string of candidates and
-   *                     parties
-   * @param candidatePartyRegex This is the regex of splitting the candidate from the party itself
-   * @return An Arraylist of the Candidates present in the file
-   */
-  private static ArrayList<Candidate> electionHeader(String filePath, String initialSplit,
-                                                     String candidatePartyRegex) {
-    BufferedReader currentFile = openElectionFile(filePath);
     try {
-      if (currentFile == null) {
-        throw new IOException();
-      }
-      currentFile.readLine(); // skip over election type
-
-      // read in the parties and candidates
-      int numberOfCandidates = Integer.parseInt(currentFile.readLine());
-      String candidatesAndPartiesString = currentFile.readLine();
+      ArrayList<Candidate> candidateArrayList = firstHeader.getCandidates(); // candidates list
+      long totalNumberOfBallots = 0;
+
+      // iterate over all election files, going straight to the ballots of each file
+      ArrayList<FileTally> fileTallies = tallyFiles(fileNames, firstFile, firstHeader,
+              (currentFile, header, splitFile) -> countSingleChoiceBallots(currentFile, header,
+                      candidateArrayList.size(), splitFile), true);
+
+      // group the candidates into their parties, and add the votes of each file straight into the tally
+      VoteTally tally = VoteTally.ofCandidates(candidateArrayList);
+      for (FileTally fileTally : fileTallies) {
+        if (fileTally.errorMessage != null) {
+          System.out.println(fileTally.errorMessage);
+          return null;
+        }
 
-      //Processes the Candidates and Parties read in
-      String[] candidatesAndPartiesList = candidatesAndPartiesString.split(initialSplit, 0);
-      ArrayList<Candidate> candidateArrayList = new ArrayList<>();
+        totalNumberOfBallots += fileTally.numberOfBallots;
+        for (int i = 0; i < fileTally.votes.length; i++)
+          tally.addVotes(i, fileTally.votes[i]);
+      }
+      tally.countPartyVotes();
 
-      /*Trying to match String "Candidate (Party)" capturing
-      "Candidate" and "Party"*/
-      Pattern candidatePartyPattern = Pattern.compile(candidatePartyRegex);
-      getCandidatesFromString(candidatesAndPartiesList, candidateArrayList, candidatePartyPattern);
-      currentFile.close();
-      return candidateArrayList;
+      return new PO(totalNumberOfBallots, tally.getParties());
     }
     catch (IOException ex){
+      System.out.println("Error: Invalid File Format");
       return null;
     }
   }
 
+
+  ////////////////////////// Private Helper Functions //////////////////////////////////////////////
+
   /**
    * Opens up the election filename passed in a parameter and checks for invalid filename.
    *
    * @param filename the Election CSV filename
-   * @return The instance of a BufferedReader for the file. Null if the file is not found.
+   * @return The opened file. Null if the file is not found.
    */
-  private static BufferedReader openElectionFile(String filename) {
+  private static FileChannel openElectionFile(String filename) {
     try {
-      // single buffered reader to read in election type
-      return new BufferedReader(
-              new FileReader(filename));
-    } catch (FileNotFoundException ex) {
+      return FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+    } catch (IOException | InvalidPathException ex) {
       System.out.println("Error: File (" + filename + ") Not Found");
     }
     return null;
   }
 
   /**
-   * Iterates through a file a certain number of lines (essentially skipping them).
-   * Also makes sure the election type is the one that is expected.
-   * The numLines should be at least 1 so the election type can be read in and checked.
-   * @param currentFile The file that is iterated through
-   * @param numLines The number of lines to skip
-   * @param electionType The election type as a string
-   * @return true the lines were iterated through and the election type was correct, false otherwise
+   * Closes an election file that is done being read.
+   *
+   * @param electionFile the election file to close
    */
-  private static boolean iterateThroughFirstLines(BufferedReader currentFile, int numLines, String
-          electionType) {
-    if (numLines < 1) {
-      // don't iterate through anything
-      return true;
-    }
+  private static void closeElectionFile(FileChannel electionFile) {
     try {
-      // ensure the election type is the one that is expected
-      String currentElection = currentFile.readLine();
-      if (!currentElection.equals(electionType)) {
-        System.out.println("Error: The election type of one of the input files is not the same as" +
-                " the expected");
-        return false; // shouldn't continue with invalid file
-      }
-
-      // skip the remaining lines
-      for (int i = 1; i < numLines; i++) {
-        currentFile.readLine();
-      }
-      return true;
-    } catch (IOException ex){
-      System.out.println("Error: Invalid File Format");
-      return false; // shouldn't continue with invalid file
+      electionFile.close();
+    } catch (IOException e) {
+      // something unexpected happened when closing the election file
+      e.printStackTrace();
     }
   }
 
   /**
-   * Goes through all the candidates in an OPL election and groups them into parties
-   * @param candidateArrayList The candidates in the OPL Election
-   * @return The parties of candidates in the OPL election
+   * Counts the ballots of a single election file once its header has been read.
    */
-  private static ArrayList<Party> createPartyListForOPL(ArrayList<Candidate> candidateArrayList) {
-    ArrayList<Party> partyArrayList = new ArrayList<>();
-    for (Candidate currentCandidate : candidateArrayList) {
-      String candidateParty = currentCandidate.getParty();
-      boolean newParty = true;
-      for (Party currentParty: partyArrayList) {
-        if (currentParty.getName().equals(candidateParty)) {
-          newParty = false;
-          int currentTotalPartyVotes = currentParty.getTotalVotes();
-          currentParty.addCandidate(currentCandidate);
-          currentParty.setTotalVotes(currentTotalPartyVotes + currentCandidate.getCurNumVotes());
-          break;
-        }
-      }
-      if (newParty) {
-        Party currentParty = new Party(candidateParty);
-        currentParty.addCandidate(currentCandidate);
-        currentParty.setTotalVotes(currentCandidate.getCurNumVotes());
-        partyArrayList.add(currentParty);
-      }
-    }
-
-    return partyArrayList;
+  private interface FileCounter {
+
+    /**
+     * Counts the ballots of a file.
+     *
+     * @param currentFile The file to count
+     * @param header The header read in from the file
+     * @param splitFile Whether the ballots of the file can be split up between the workers
+     * @return The ballots counted from the file
+     */
+    FileTally count(FileChannel currentFile, ElectionFileHeader header, boolean splitFile);
   }
 
   /**
-   * Parses through a string to obtain the candidates and their parties based on the formatted
-   * expression passed in. Will also give each candidate a unique ID starting from 0.
-   * @param candidatesAndPartiesList The list of candidates and their parties in some predefined
-   *                                 format
-   * @param candidateArrayList A list of the candidates in the election (should already be
-   *                           initialized)
-   * @param candidatePartyPattern The predefined pattern of how parties and the candidates are
-   *                              split up.
-   * @throws IOException If the file does not match the expected format
+   * The ballots counted from a single election file before they are merged with the other files.
    */
-  private static void getCandidatesFromString(String[] candidatesAndPartiesList,
-                                              ArrayList<Candidate> candidateArrayList,
-                                              Pattern candidatePartyPattern) throws IOException {
-    int currentCandidateID = 0;
-    for (String candidateAndParty : candidatesAndPartiesList) {
-      Matcher candidatePartyMatcher = candidatePartyPattern.matcher(candidateAndParty);
-      if (!candidatePartyMatcher.matches()) {
-        throw new IOException();
-      }
-      String candidateName = candidatePartyMatcher.group(1);
-      String candidateParty = candidatePartyMatcher.group(2);
-      candidateArrayList.add(new Candidate(candidateName, candidateParty, currentCandidateID));
-      currentCandidateID++;
-    }
+  private static class FileTally {
+
+    /**
+     * The valid ballots of an IR file grouped by their rankings, in the order they were first seen.
+     */
+    private BallotGroups ballotGroups;
+
+    /**
+     * The ballots from an IR file that did not rank enough candidates, in the order they were read.
+     */
+    private ArrayList<String> invalidBallots;
+
+    /**
+     * The votes each candidate received in an OPL or PO file, indexed by candidate ID.
+     */
+    private long[] votes;
+
+    /**
+     * The number of valid ballots in the file.
+     */
+    private long numberOfBallots;
+
+    /**
+     * The error to report if the file could not be counted. Null if the file was counted.
+     */
+    private String errorMessage;
+
+    /**
+     * Whether the error should also be reported as an invalid file format.
+     */
+    private boolean invalidFormat;
   }
 }
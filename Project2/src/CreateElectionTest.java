@@ -165,37 +165,35 @@ public class CreateElectionTest {
     public void testParametersIRGivenFile() {
         Election testIR = CreateElection.createElection(new String[] {givenIRFilePath});
         assertTrue(testIR instanceof IR);
+        // the ballots are put in the order they are first seen in the file, so they are listed in
+        // the same order as a ballot counter that is filled in line by line
+        HashMap<String, Long> testBallotCounter = new HashMap<>();
+        testBallotCounter.put("(D)(L)(R)(I)", 1L);
+        testBallotCounter.put("(D)(I)", 1L);
+        testBallotCounter.put("(D)(R)(I)", 1L);
+        testBallotCounter.put("(I)(R)(D)(L)", 1L);
+        testBallotCounter.put("(I)(L)", 1L);
+        assertEquals(new ArrayList<>(testBallotCounter.entrySet()),
+                new ArrayList<>(((IR) testIR).getBallots().entrySet()));
+        ArrayList<Candidate> testCandidates = new ArrayList<>();
+        Candidate rosenCandidate = new Candidate("Rosen", "D", 0);
+        rosenCandidate.setCurNumVotes(3);
+        testCandidates.add(rosenCandidate);
+        testCandidates.add(new Candidate("Kleinberg", "R", 1));
+        Candidate chouCandidate = new Candidate("Chou", "I", 2);
+        chouCandidate.setCurNumVotes(2);
+        testCandidates.add(chouCandidate);
+        Candidate royceCandidate = new Candidate("Royce", "L", 3);
+        testCandidates.add(royceCandidate);
+        candidateArraylistIsEqual(testCandidates, ((IR) testIR).getCandidates());
         Class<?> spyIR = testIR.getClass();
         Field fields[] = spyIR.getDeclaredFields();
         for (Field field : fields) {
             field.setAccessible(true);
             try {
                 switch (field.getName()) {
-                    case "ballots":
-                        HashMap<String, Integer> testBallotCounter = new HashMap<>();
-                        testBallotCounter.put("(D)(I)", 1);
-                        testBallotCounter.put("(D)(L)(R)(I)", 1);
-                        testBallotCounter.put("(D)(R)(I)", 1);
-                        testBallotCounter.put("(I)(R)(D)(L)", 1);
-                        testBallotCounter.put("(I)(L)", 1);
-                        assertEquals(testBallotCounter, field.get(testIR));
-                        continue;
-                    case "candidates":
-                        ArrayList<Candidate> testCandidates = new ArrayList<>();
-                        Candidate rosenCandidate = new Candidate("Rosen", "D", 0);
-                        rosenCandidate.setCurNumVotes(3);
-                        testCandidates.add(rosenCandidate);
-                        testCandidates.add(new Candidate("Kleinberg", "R", 1));
-                        Candidate chouCandidate = new Candidate("Chou", "I", 2);
-                        chouCandidate.setCurNumVotes(2);
-                        testCandidates.add(chouCandidate);
-                        Candidate royceCandidate = new Candidate("Royce", "L", 3);
-                        testCandidates.add(royceCandidate);
-                        ArrayList<Candidate> realCandidates = (ArrayList<Candidate>) field.get(testIR);
-                        candidateArraylistIsEqual(testCandidates, realCandidates);
-                        continue;
                     case "totalCounts":
-                        assertEquals(field.get(testIR), 5);
+                        assertEquals(field.get(testIR), 5L);
                 }
             } catch (IllegalAccessException e) {
 
@@ -267,7 +265,7 @@ public class CreateElectionTest {
                         partyArraylistIsEqual(testParty, actualParty);
                         continue;
                     case "quota":
-                        assertEquals(field.get(testOPL), 3);
+                        assertEquals(field.get(testOPL), 3L);
                         continue;
                 }
             } catch (IllegalAccessException e) {
@@ -287,34 +285,29 @@ public class CreateElectionTest {
             return CreateElection.createElection(new String[] {bigIRFilePath});
         });
         assertTrue(testIR instanceof IR);
+        HashMap<String, Long> testBallotCounter = new HashMap<>();
+        testBallotCounter.put("(D)(R)(I)(L)", 50000L);
+        testBallotCounter.put("(L)(I)(R)(D)", 50000L);
+        assertEquals(testBallotCounter, ((IR) testIR).getBallots());
+        ArrayList<Candidate> testCandidates = new ArrayList<>();
+        //Have to make candidate objects for those we want to set votes of
+        Candidate rosenCandidate = new Candidate("Rosen", "D", 0);
+        rosenCandidate.setCurNumVotes(50000);
+        testCandidates.add(rosenCandidate);
+        testCandidates.add(new Candidate("Kleinberg", "R", 1));
+        testCandidates.add(new Candidate("Chou", "I", 2));
+        Candidate royceCandidate = new Candidate("Royce", "L", 3);
+        royceCandidate.setCurNumVotes(50000);
+        testCandidates.add(royceCandidate);
+        candidateArraylistIsEqual(testCandidates, ((IR) testIR).getCandidates());
         Class<?> spyIR = testIR.getClass();
         Field fields[] = spyIR.getDeclaredFields();
         for (Field field : fields) {
             field.setAccessible(true);
             try {
                 switch (field.getName()) {
-                    case "ballots":
-                        HashMap<String, Integer> testBallotCounter = new HashMap<>();
-                        testBallotCounter.put("(D)(R)(I)(L)", 50000);
-                        testBallotCounter.put("(L)(I)(R)(D)", 50000);
-                        assertEquals(testBallotCounter, field.get(testIR));
-                        continue;
-                    case "candidates":
-                        ArrayList<Candidate> testCandidates = new ArrayList<>();
-                        //Have to make candidate objects for those we want to set votes of
-                        Candidate rosenCandidate = new Candidate("Rosen", "D", 0);
-                        rosenCandidate.setCurNumVotes(50000);
-                        testCandidates.add(rosenCandidate);
-                        testCandidates.add(new Candidate("Kleinberg", "R", 1));
-                        testCandidates.add(new Candidate("Chou", "I", 2));
-                        Candidate royceCandidate = new Candidate("Royce", "L", 3);
-                        royceCandidate.setCurNumVotes(50000);
-                        testCandidates.add(royceCandidate);
-                        ArrayList<Candidate> realCandidates = (ArrayList<Candidate>) field.get(testIR);
-                        candidateArraylistIsEqual(testCandidates, realCandidates);
-                        continue;
                     case "totalCounts":
-                        assertEquals(field.get(testIR), 100000);
+                        assertEquals(field.get(testIR), 100000L);
                 }
             } catch (IllegalAccessException e) {
 
@@ -383,7 +376,7 @@ public class CreateElectionTest {
                         partyArraylistIsEqual(testParty, actualParty);
                         continue;
                     case "quota":
-                        assertEquals(field.get(testOPL), 33333);
+                        assertEquals(field.get(testOPL), 33333L);
                         continue;
                 }
             } catch (IllegalAccessException e) {
@@ -401,27 +394,22 @@ public class CreateElectionTest {
     public void testParametersIROneCandidate() {
         Election testIR = CreateElection.createElection(new String[] {oneCandidateIRFilePath});
         assertTrue(testIR instanceof IR);
+        HashMap<String, Long> testBallotCounter = new HashMap<>();
+        testBallotCounter.put("(D)", 1L);
+        assertEquals(testBallotCounter, ((IR) testIR).getBallots());
+        ArrayList<Candidate> testCandidates = new ArrayList<>();
+        Candidate rosenCandidate = new Candidate("Rosen", "D", 0);
+        rosenCandidate.setCurNumVotes(1);
+        testCandidates.add(rosenCandidate);
+        candidateArraylistIsEqual(testCandidates, ((IR) testIR).getCandidates());
         Class<?> spyIR = testIR.getClass();
         Field fields[] = spyIR.getDeclaredFields();
         for (Field field : fields) {
             field.setAccessible(true);
             try {
                 switch (field.getName()) {
-                    case "ballots":
-                        HashMap<String, Integer> testBallotCounter = new HashMap<>();
-                        testBallotCounter.put("(D)", 1);
-                        assertEquals(testBallotCounter, field.get(testIR));
-                        continue;
-                    case "candidates":
-                        ArrayList<Candidate> testCandidates = new ArrayList<>();
-                        Candidate rosenCandidate = new Candidate("Rosen", "D", 0);
-                        rosenCandidate.setCurNumVotes(1);
-                        testCandidates.add(rosenCandidate);
-                        ArrayList<Candidate> realCandidates = (ArrayList<Candidate>) field.get(testIR);
-                        candidateArraylistIsEqual(testCandidates, realCandidates);
-                        continue;
                     case "totalCounts":
-                        assertEquals(field.get(testIR), 1);
+                        assertEquals(field.get(testIR), 1L);
                 }
             } catch (IllegalAccessException e) {
 
@@ -462,7 +450,7 @@ public class CreateElectionTest {
                         partyArraylistIsEqual(testParty, actualParty);
                         continue;
                     case "quota":
-                        assertEquals(field.get(testOPL), 1);
+                        assertEquals(field.get(testOPL), 1L);
                         continue;
                 }
             } catch (IllegalAccessException e) {
@@ -479,37 +467,34 @@ public class CreateElectionTest {
         Election testIR = CreateElection.createElection(new String[] {IRSplitFile1FilePath,IRSpiltFile2FilePath});
 
         assertTrue(testIR instanceof IR);
+        // the ballots of the second file are seen after the ballots of the first file
+        HashMap<String, Long> testBallotCounter = new HashMap<>();
+        testBallotCounter.put("(D)(L)(R)(I)", 1L);
+        testBallotCounter.put("(D)(R)(I)(L)", 1L);
+        testBallotCounter.put("(I)(R)(D)", 1L);
+        testBallotCounter.put("(L)(D)(I)(R)", 1L);
+        assertEquals(new ArrayList<>(testBallotCounter.entrySet()),
+                new ArrayList<>(((IR) testIR).getBallots().entrySet()));
+        ArrayList<Candidate> testCandidates = new ArrayList<>();
+        Candidate rosenCandidate = new Candidate("Rosen", "D", 0);
+        rosenCandidate.setCurNumVotes(2);
+        testCandidates.add(rosenCandidate);
+        testCandidates.add(new Candidate("Kleinberg", "R", 1));
+        Candidate chouCandidate = new Candidate("Chou", "I", 2);
+        chouCandidate.setCurNumVotes(1);
+        testCandidates.add(chouCandidate);
+        Candidate royceCandidate = new Candidate("Royce", "L", 3);
+        royceCandidate.setCurNumVotes(1);
+        testCandidates.add(royceCandidate);
+        candidateArraylistIsEqual(testCandidates, ((IR) testIR).getCandidates());
         Class<?> spyIR = testIR.getClass();
         Field fields[] = spyIR.getDeclaredFields();
         for (Field field : fields) {
             field.setAccessible(true);
             try {
                 switch (field.getName()) {
-                    case "ballots":
-                        HashMap<String, Integer> testBallotCounter = new HashMap<>();
-                        testBallotCounter.put("(D)(L)(R)(I)", 1);
-                        testBallotCounter.put("(D)(R)(I)(L)", 1);
-                        testBallotCounter.put("(I)(R)(D)", 1);
-                        testBallotCounter.put("(L)(D)(I)(R)", 1);
-                        assertEquals(testBallotCounter, field.get(testIR));
-                        continue;
-                    case "candidates":
-                        ArrayList<Candidate> testCandidates = new ArrayList<>();
-                        Candidate rosenCandidate = new Candidate("Rosen", "D", 0);
-                        rosenCandidate.setCurNumVotes(2);
-                        testCandidates.add(rosenCandidate);
-                        testCandidates.add(new Candidate("Kleinberg", "R", 1));
-                        Candidate chouCandidate = new Candidate("Chou", "I", 2);
-                        chouCandidate.setCurNumVotes(1);
-                        testCandidates.add(chouCandidate);
-                        Candidate royceCandidate = new Candidate("Royce", "L", 3);
-                        royceCandidate.setCurNumVotes(1);
-                        testCandidates.add(royceCandidate);
-                        ArrayList<Candidate> realCandidates = (ArrayList<Candidate>) field.get(testIR);
-                        candidateArraylistIsEqual(testCandidates, realCandidates);
-                        continue;
                     case "totalCounts":
-                        assertEquals(field.get(testIR), 4);
+                        assertEquals(field.get(testIR), 4L);
                 }
             } catch (IllegalAccessException e) {
 
@@ -527,33 +512,28 @@ public class CreateElectionTest {
     public void testParametersIRSplitFilesWithInvalid() {
         Election testIR = CreateElection.createElection(getAllFilesInPath(multipleIRFilesPath));
         assertTrue(testIR instanceof IR);
+        HashMap<String, Long> testBallotCounter = new HashMap<>();
+        testBallotCounter.put("(D)(R)(I)(L)", 3L);
+        testBallotCounter.put("(L)(D)(I)", 2L);
+        assertEquals(testBallotCounter, ((IR) testIR).getBallots());
+        ArrayList<Candidate> testCandidates = new ArrayList<>();
+        Candidate rosenCandidate = new Candidate("Rosen", "D", 0);
+        rosenCandidate.setCurNumVotes(3);
+        testCandidates.add(rosenCandidate);
+        testCandidates.add(new Candidate("Kleinberg", "R", 1));
+        testCandidates.add(new Candidate("Chou", "I", 2));
+        Candidate royceCandidate = new Candidate("Royce", "L", 3);
+        royceCandidate.setCurNumVotes(2);
+        testCandidates.add(royceCandidate);
+        candidateArraylistIsEqual(testCandidates, ((IR) testIR).getCandidates());
         Class<?> spyIR = testIR.getClass();
         Field fields[] = spyIR.getDeclaredFields();
         for (Field field : fields) {
             field.setAccessible(true);
             try {
                 switch (field.getName()) {
-                    case "ballots":
-                        HashMap<String, Integer> testBallotCounter = new HashMap<>();
-                        testBallotCounter.put("(D)(R)(I)(L)", 3);
-                        testBallotCounter.put("(L)(D)(I)", 2);
-                        assertEquals(testBallotCounter, field.get(testIR));
-                        continue;
-                    case "candidates":
-                        ArrayList<Candidate> testCandidates = new ArrayList<>();
-                        Candidate rosenCandidate = new Candidate("Rosen", "D", 0);
-                        rosenCandidate.setCurNumVotes(3);
-                        testCandidates.add(rosenCandidate);
-                        testCandidates.add(new Candidate("Kleinberg", "R", 1));
-                        testCandidates.add(new Candidate("Chou", "I", 2));
-                        Candidate royceCandidate = new Candidate("Royce", "L", 3);
-                        royceCandidate.setCurNumVotes(2);
-                        testCandidates.add(royceCandidate);
-                        ArrayList<Candidate> realCandidates = (ArrayList<Candidate>) field.get(testIR);
-                        candidateArraylistIsEqual(testCandidates, realCandidates);
-                        continue;
                     case "totalCounts":
-                        assertEquals(field.get(testIR), 5);
+                        assertEquals(field.get(testIR), 5L);
                 }
             } catch (IllegalAccessException e) {
 
@@ -573,38 +553,34 @@ public class CreateElectionTest {
             return CreateElection.createElection(new String[] {invalidBallotsFilePath});
         });
         assertTrue(testIR instanceof IR);
+        HashMap<String, Long> testBallotCounter = new HashMap<>();
+        testBallotCounter.put("(D)(R)(I)(L)(C)(S)(B)", 1L);
+        testBallotCounter.put("(D)(R)(I)(L)(C)(S)", 1L);
+        testBallotCounter.put("(D)(R)(I)(L)(C)", 1L);
+        testBallotCounter.put("(D)(R)(I)(L)", 1L);
+        assertEquals(new ArrayList<>(testBallotCounter.entrySet()),
+                new ArrayList<>(((IR) testIR).getBallots().entrySet()));
+        ArrayList<Candidate> testCandidates = new ArrayList<>();
+        int candidateID = 0;
+        //Have to make candidate objects for those we want to set votes of
+        Candidate rosenCandidate = new Candidate("Rosen", "D", candidateID++);
+        rosenCandidate.setCurNumVotes(4);
+        testCandidates.add(rosenCandidate);
+        testCandidates.add(new Candidate("Kleinberg", "R", candidateID++));
+        testCandidates.add(new Candidate("Chou", "I", candidateID++));
+        testCandidates.add(new Candidate("Royce", "L", candidateID++));
+        testCandidates.add(new Candidate("Cena", "C", candidateID++));
+        testCandidates.add(new Candidate("Stark", "S", candidateID++));
+        testCandidates.add(new Candidate("Barnes", "B", candidateID++));
+        candidateArraylistIsEqual(testCandidates, ((IR) testIR).getCandidates());
         Class<?> spyIR = testIR.getClass();
         Field fields[] = spyIR.getDeclaredFields();
         for (Field field : fields) {
             field.setAccessible(true);
             try {
                 switch (field.getName()) {
-                    case "ballots":
-                        HashMap<String, Integer> testBallotCounter = new HashMap<>();
-                        testBallotCounter.put("(D)(R)(I)(L)(C)(S)(B)", 1);
-                        testBallotCounter.put("(D)(R)(I)(L)(C)(S)", 1);
-                        testBallotCounter.put("(D)(R)(I)(L)(C)", 1);
-                        testBallotCounter.put("(D)(R)(I)(L)", 1);
-                        assertEquals(testBallotCounter, field.get(testIR));
-                        continue;
-                    case "candidates":
-                        ArrayList<Candidate> testCandidates = new ArrayList<>();
-                        int candidateID = 0;
-                        //Have to make candidate objects for those we want to set votes of
-                        Candidate rosenCandidate = new Candidate("Rosen", "D", candidateID++);
-                        rosenCandidate.setCurNumVotes(4);
-                        testCandidates.add(rosenCandidate);
-                        testCandidates.add(new Candidate("Kleinberg", "R", candidateID++));
-                        testCandidates.add(new Candidate("Chou", "I", candidateID++));
-                        testCandidates.add(new Candidate("Royce", "L", candidateID++));
-                        testCandidates.add(new Candidate("Cena", "C", candidateID++));
-                        testCandidates.add(new Candidate("Stark", "S", candidateID++));
-                        testCandidates.add(new Candidate("Barnes", "B", candidateID++));
-                        ArrayList<Candidate> realCandidates = (ArrayList<Candidate>) field.get(testIR);
-                        candidateArraylistIsEqual(testCandidates, realCandidates);
-                        continue;
                     case "totalCounts":
-                        assertEquals(field.get(testIR), 4);
+                        assertEquals(field.get(testIR), 4L);
                 }
             } catch (IllegalAccessException e) {
 
@@ -713,6 +689,54 @@ public class CreateElectionTest {
         assertEquals(testOutput, actualOutput);
     }
 
+    /**
+     * Tests that counting each of a thousand small files on its own virtual thread gives the same
+     * ballots, in the same order, as counting them one after another
+     */
+    @Test
+    public void testVirtualThreadsManyFiles() {
+        String[] precinctFiles = getAllFilesInPath(multipleIRFilesPath);
+        String[] filenames = new String[1000];
+        for (int i = 0; i < filenames.length; i++) {
+            filenames[i] = precinctFiles[i % precinctFiles.length];
+        }
+
+        int workers = CreateElection.getNumWorkers();
+        try {
+            CreateElection.setNumWorkers(1);
+            IR sequentialIR = (IR) CreateElection.createElection(filenames);
+            CreateElection.setNumWorkers(workers);
+            CreateElection.setUseVirtualThreads(true);
+            IR virtualIR = (IR) CreateElection.createElection(filenames);
+
+            assertEquals(new ArrayList<>(sequentialIR.getBallots().entrySet()),
+                    new ArrayList<>(virtualIR.getBallots().entrySet()));
+            assertEquals(sequentialIR.getTotalCounts(), virtualIR.getTotalCounts());
+        } finally {
+            CreateElection.setNumWorkers(workers);
+            CreateElection.setUseVirtualThreads(false);
+        }
+    }
+
+    /**
+     * Tests that files counted on virtual threads are still checked against the election type of
+     * the first file
+     */
+    @Test
+    public void multipleElectionTypesVirtualThreadsTest() {
+        String[] filenames = getAllFilesInPath(differentElectionTypesPath);
+        try {
+            CreateElection.setUseVirtualThreads(true);
+            assertNull(CreateElection.createElection(filenames));
+        } finally {
+            CreateElection.setUseVirtualThreads(false);
+        }
+        String actualOutput = systemOut.toString().replaceAll("[\n\r]", "");
+        String testOutput = "Error: The election type of one of the input files is not the same " +
+                "as the expected";
+        assertEquals(testOutput, actualOutput);
+    }
+
     /**
      * Gets all the filenames in the directory provided by path and returns the filenames as an
      * array of strings
@@ -790,7 +814,7 @@ public class CreateElectionTest {
                         partyArraylistIsEqual(testParty, actualParty);
                         continue;
                     case "quota":
-                        assertEquals(field.get(testOPL), 33333);
+                        assertEquals(field.get(testOPL), 33333L);
                         continue;
                 }
             } catch (IllegalAccessException e) {
@@ -805,38 +829,34 @@ public class CreateElectionTest {
             return CreateElection.createElection(new String[] {noInvalidBallotsFilePath});
         });
         assertTrue(testIR instanceof IR);
+        HashMap<String, Long> testBallotCounter = new HashMap<>();
+        testBallotCounter.put("(D)(R)(I)(L)(C)(S)(B)", 1L);
+        testBallotCounter.put("(D)(R)(I)(L)(C)(S)", 1L);
+        testBallotCounter.put("(D)(R)(I)(L)(C)", 1L);
+        testBallotCounter.put("(D)(R)(I)(L)", 1L);
+        assertEquals(new ArrayList<>(testBallotCounter.entrySet()),
+                new ArrayList<>(((IR) testIR).getBallots().entrySet()));
+        ArrayList<Candidate> testCandidates = new ArrayList<>();
+        int candidateID = 0;
+        //Have to make candidate objects for those we want to set votes of
+        Candidate rosenCandidate = new Candidate("Rosen", "D", candidateID++);
+        rosenCandidate.setCurNumVotes(4);
+        testCandidates.add(rosenCandidate);
+        testCandidates.add(new Candidate("Kleinberg", "R", candidateID++));
+        testCandidates.add(new Candidate("Chou", "I", candidateID++));
+        testCandidates.add(new Candidate("Royce", "L", candidateID++));
+        testCandidates.add(new Candidate("Cena", "C", candidateID++));
+        testCandidates.add(new Candidate("Stark", "S", candidateID++));
+        testCandidates.add(new Candidate("Barnes", "B", candidateID++));
+        candidateArraylistIsEqual(testCandidates, ((IR) testIR).getCandidates());
         Class<?> spyIR = testIR.getClass();
         Field fields[] = spyIR.getDeclaredFields();
         for (Field field : fields) {
             field.setAccessible(true);
             try {
                 switch (field.getName()) {
-                    case "ballots":
-                        HashMap<String, Integer> testBallotCounter = new HashMap<>();
-                        testBallotCounter.put("(D)(R)(I)(L)(C)(S)(B)", 1);
-                        testBallotCounter.put("(D)(R)(I)(L)(C)(S)", 1);
-                        testBallotCounter.put("(D)(R)(I)(L)(C)", 1);
-                        testBallotCounter.put("(D)(R)(I)(L)", 1);
-                        assertEquals(testBallotCounter, field.get(testIR));
-                        continue;
-                    case "candidates":
-                        ArrayList<Candidate> testCandidates = new ArrayList<>();
-                        int candidateID = 0;
-                        //Have to make candidate objects for those we want to set votes of
-                        Candidate rosenCandidate = new Candidate("Rosen", "D", candidateID++);
-                        rosenCandidate.setCurNumVotes(4);
-                        testCandidates.add(rosenCandidate);
-                        testCandidates.add(new Candidate("Kleinberg", "R", candidateID++));
-                        testCandidates.add(new Candidate("Chou", "I", candidateID++));
-                        testCandidates.add(new Candidate("Royce", "L", candidateID++));
-                        testCandidates.add(new Candidate("Cena", "C", candidateID++));
-                        testCandidates.add(new Candidate("Stark", "S", candidateID++));
-                        testCandidates.add(new Candidate("Barnes", "B", candidateID++));
-                        ArrayList<Candidate> realCandidates = (ArrayList<Candidate>) field.get(testIR);
-                        candidateArraylistIsEqual(testCandidates, realCandidates);
-                        continue;
                     case "totalCounts":
-                        assertEquals(field.get(testIR), 4);
+                        assertEquals(field.get(testIR), 4L);
                 }
         } catch (IllegalAccessException e) {
 
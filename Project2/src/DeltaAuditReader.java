@@ -0,0 +1,141 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+/**
+ * Reads the ballot distributions of an IR audit file so the full distribution of any round can be
+ * rebuilt. Audit files written with -Delection.auditFormat=delta have every ballot in the first
+ * round, and after that only the ballots that changed, written as "ballot: votes", or that were
+ * removed, written as "-ballot". Rounds where more ballots changed than were left have every ballot,
+ * and audit files with every ballot in every round can be read as well.
+ *
+ * <p>Only the changes are kept in memory. A round's distribution is rebuilt by replaying the
+ * changes since the last round that has every ballot.
+ */
+public class DeltaAuditReader {
+
+  /**
+   * The ballots written in each round, where the first round is index 0.
+   */
+  private final ArrayList<String[]> roundBallots = new ArrayList<>();
+
+  /**
+   * The votes of the ballots written in each round, or -1 for ballots that were removed.
+   */
+  private final ArrayList<long[]> roundVotes = new ArrayList<>();
+
+  /**
+   * Whether each round has every ballot, instead of only the ballots that changed.
+   */
+  private final ArrayList<Boolean> fullRounds = new ArrayList<>();
+
+  /**
+   * Constructor reads the ballot distributions of an IR audit file.
+   *
+   * @param auditFileName the name of the IR audit file.
+   * @throws IOException if the file could not be read or is not an IR audit file.
+   */
+  public DeltaAuditReader(String auditFileName) throws IOException {
+    try (BufferedReader in = new BufferedReader(new FileReader(auditFileName))) {
+      String line = in.readLine();
+      if (!"Election Type: Instant Runoff".equals(line)) {
+        throw new IOException(auditFileName + " is not an IR audit file.");
+      }
+
+      // skip the header until the first round
+      while ((line = in.readLine()) != null && !line.startsWith("Original Distribution")) {
+        // keep reading until the first round
+      }
+      if (line == null) {
+        throw new IOException(auditFileName + " does not have a distribution.");
+      }
+
+      // the ballots of the rounds end at the empty line before the election statistics
+      ArrayList<String> ballots = new ArrayList<>();
+      ArrayList<Long> votes = new ArrayList<>();
+      boolean full = true;
+      while ((line = in.readLine()) != null && !line.isEmpty()) {
+        boolean distribution = line.startsWith("Distribution after ");
+        if (distribution || line.startsWith("Changes after ")) {
+          addRound(ballots, votes, full);
+          full = distribution;
+        } else if (line.startsWith("-")) {
+          ballots.add(line.substring(1));
+          votes.add(-1L);
+        } else {
+          int separator = line.lastIndexOf(": ");
+          if (separator < 0) {
+            throw new IOException("Ballot " + line + " in " + auditFileName + " has no votes.");
+          }
+          ballots.add(line.substring(0, separator));
+          try {
+            votes.add(Long.parseLong(line.substring(separator + 2)));
+          } catch (NumberFormatException ex) {
+            throw new IOException("Ballot " + line + " in " + auditFileName + " has no votes.");
+          }
+        }
+      }
+      addRound(ballots, votes, full);
+    }
+  }
+
+  /**
+   * Records the ballots read for a round, and clears them for the next round.
+   *
+   * @param ballots the ballots of the round.
+   * @param votes the votes of each ballot, or -1 for removed ballots.
+   * @param full whether the round has every ballot.
+   */
+  private void addRound(ArrayList<String> ballots, ArrayList<Long> votes, boolean full) {
+    long[] counts = new long[votes.size()];
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = votes.get(i);
+    }
+    roundBallots.add(ballots.toArray(new String[0]));
+    roundVotes.add(counts);
+    fullRounds.add(full);
+    ballots.clear();
+    votes.clear();
+  }
+
+  /**
+   * Gets the number of rounds in the audit file.
+   * @return the number of rounds
+   */
+  public int getNumRounds() {
+    return roundBallots.size();
+  }
+
+  /**
+   * Rebuilds the full ballot distribution of a round. Ballots are in the order they were first
+   * written to the audit file, which can differ from the order of a full audit file.
+   *
+   * @param round the round, where the first round is 1.
+   * @return every ballot left in the round and its number of votes.
+   * @throws IllegalArgumentException if the audit file does not have the round.
+   */
+  public LinkedHashMap<String, Long> getDistribution(int round) throws IllegalArgumentException {
+    if (round < 1 || round > getNumRounds()) throw new IllegalArgumentException("The audit file does not have round " + round + ".");
+
+    // replay the changes since the last round that has every ballot
+    int start = round - 1;
+    while (!fullRounds.get(start)) {
+      start--;
+    }
+    LinkedHashMap<String, Long> distribution = new LinkedHashMap<>();
+    for (int index = start; index < round; index++) {
+      String[] ballots = roundBallots.get(index);
+      long[] votes = roundVotes.get(index);
+      for (int i = 0; i < ballots.length; i++) {
+        if (votes[i] < 0) {
+          distribution.remove(ballots[i]);
+        } else {
+          distribution.put(ballots[i], votes[i]);
+        }
+      }
+    }
+    return distribution;
+  }
+}
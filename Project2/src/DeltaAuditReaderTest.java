@@ -0,0 +1,134 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DeltaAuditReader Class Unit Tests
+ */
+public class DeltaAuditReaderTest {
+
+  private final ByteArrayOutputStream systemOut = new ByteArrayOutputStream();
+  private final PrintStream originalOut = System.out;
+
+  /**
+   * Redirects any standard system output to a print steam.
+   */
+  @BeforeEach
+  public void setUp() {
+    System.setOut(new PrintStream(systemOut));
+    IRTestHelpers.deleteElectionOutputFiles();
+  }
+
+  /**
+   * Restores the standard system output to the original output.
+   */
+  @AfterEach
+  public void restoreStreams() {
+    System.setOut(originalOut);
+    IRTestHelpers.deleteElectionOutputFiles();
+  }
+
+  /**
+   * Runs an IR election where most ballots only rank one or two candidates, so most ballots don't
+   * change each round, and copies its audit file to a temporary file, since elections run in the
+   * same second write to the same audit file.
+   *
+   * @param deltaAudit whether the audit only has the ballots that changed in each round.
+   * @return the copy of the audit file.
+   * @throws IOException if the audit file could not be copied.
+   */
+  private static Path runElection(boolean deltaAudit) throws IOException {
+    ArrayList<Candidate> candidates = new ArrayList<>();
+    HashMap<String, Long> ballots = new HashMap<>();
+    long totalBallots = 0;
+    for (int i = 0; i < 8; i++) {
+      candidates.add(new Candidate("c" + i, "p" + i, i));
+      ballots.put("(p" + i + ")", 50L + 9 * i);
+      totalBallots += 50 + 9 * i;
+      for (int j = 0; j < 8; j++) {
+        if (j != i) {
+          ballots.put("(p" + i + ")(p" + j + ")", (i * 8L + j) % 13 + 1);
+          totalBallots += (i * 8 + j) % 13 + 1;
+        }
+      }
+    }
+    IR ir = new IR(ballots, candidates, totalBallots);
+    ir.setDeltaAudit(deltaAudit);
+    ir.runVotingAlgorithm();
+    Path audit = Files.createTempFile("audit", ".txt");
+    audit.toFile().deleteOnExit();
+    Files.copy(Path.of(ir.getAuditFileName()), audit, StandardCopyOption.REPLACE_EXISTING);
+    return audit;
+  }
+
+  /**
+   * Tests that every round rebuilt from a delta audit has the same ballots as the full audit, and
+   * that the delta audit is smaller.
+   */
+  @Test
+  public void testDeltaMatchesFullAudit() throws IOException {
+    Path fullAudit = runElection(false);
+    Path deltaAudit = runElection(true);
+
+    DeltaAuditReader full = new DeltaAuditReader(fullAudit.toString());
+    DeltaAuditReader delta = new DeltaAuditReader(deltaAudit.toString());
+    assertTrue(full.getNumRounds() > 2);
+    assertEquals(full.getNumRounds(), delta.getNumRounds());
+    for (int round = 1; round <= full.getNumRounds(); round++) {
+      Map<String, Long> distribution = full.getDistribution(round);
+      assertFalse(distribution.isEmpty());
+      assertEquals(distribution, delta.getDistribution(round));
+    }
+    assertTrue(Files.size(deltaAudit) < Files.size(fullAudit));
+
+    // everything after the ballots is the same, and no ties were settled at random
+    String fullText = Files.readString(fullAudit);
+    String deltaText = Files.readString(deltaAudit);
+    assertTrue(deltaText.contains("Changes after 2nd Count:\n"));
+    assertTrue(fullText.endsWith("No ties occurred in this election."));
+    assertEquals(fullText.substring(fullText.indexOf("\nElection Statistics:")),
+            deltaText.substring(deltaText.indexOf("\nElection Statistics:")));
+  }
+
+  /**
+   * Tests that removed ballots are taken out of the rebuilt rounds.
+   */
+  @Test
+  public void testRemovedBallots() throws IOException {
+    Path audit = Files.createTempFile("audit", ".txt");
+    audit.toFile().deleteOnExit();
+    Files.writeString(audit, "Election Type: Instant Runoff\nNumber of candidates: 3\n"
+            + "Original Distribution (i.e., 1st count):\n(pa)(pb): 2\n(pb): 3\n(pc): 4\n"
+            + "Changes after 2nd Count:\n-(pa)(pb)\n(pb): 5\n"
+            + "Changes after 3rd Count:\n-(pb)\n(pc): 9\n\nElection Statistics:\n");
+    DeltaAuditReader reader = new DeltaAuditReader(audit.toString());
+    assertEquals(3, reader.getNumRounds());
+    assertEquals(Map.of("(pa)(pb)", 2L, "(pb)", 3L, "(pc)", 4L), reader.getDistribution(1));
+    assertEquals(Map.of("(pb)", 5L, "(pc)", 4L), reader.getDistribution(2));
+    assertEquals(Map.of("(pc)", 9L), reader.getDistribution(3));
+    assertThrows(IllegalArgumentException.class, () -> reader.getDistribution(0));
+    assertThrows(IllegalArgumentException.class, () -> reader.getDistribution(4));
+  }
+
+  /**
+   * Tests exception thrown on files that aren't IR audit files.
+   */
+  @Test
+  public void testNotAnAuditFile() {
+    assertThrows(IOException.class, () -> new DeltaAuditReader("testing/testFiles/givenIR.csv"));
+    assertThrows(IOException.class, () -> new DeltaAuditReader("nonexistent" + File.separator + "audit.txt"));
+  }
+}
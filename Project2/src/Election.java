@@ -11,7 +11,7 @@ public abstract class Election {
   /**
    * The total number of ballots cast in the election.
    */
-  protected int totalNumBallots;
+  protected long totalNumBallots;
 
   /**
    * An string builder that will be used to generate the audit file as the election is run.
@@ -0,0 +1,402 @@
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The header of an election file, read in once from the start of the file. The header holds the
+ * election type, the candidates, the number of seats (OPL only), the number of ballots, and the
+ * byte offset where the ballots start so the ballots can be read without reading the header again.
+ */
+public class ElectionFileHeader {
+
+  /**
+   * The number of bytes read from the start of the file at first. Twice as many bytes are read
+   * until the whole header fits.
+   */
+  private static final int INITIAL_READ_SIZE = 8 * 1024;
+
+  /**
+   * The election type on the first line of the file.
+   */
+  private final String electionType;
+
+  /**
+   * The number of candidates on the second line of the file.
+   */
+  private final int numberOfCandidates;
+
+  /**
+   * The candidates and their parties as they are written on the third line of the file.
+   */
+  private final String candidatesAndParties;
+
+  /**
+   * The number of seats available. Only OPL files have seats, so this is 0 for other files.
+   */
+  private final int numberOfSeats;
+
+  /**
+   * The number of ballots in the file.
+   */
+  private final long numberOfBallots;
+
+  /**
+   * The byte offset of the first ballot.
+   */
+  private final long ballotStart;
+
+  /**
+   * Whether the file is a binary ballot file instead of a CSV file.
+   */
+  private final boolean binary;
+
+  /**
+   * Whether the file is a gzip compressed CSV file. The byte offset of the first ballot is then an
+   * offset into the decompressed contents of the file.
+   */
+  private final boolean compressed;
+
+  /**
+   * The decompressed contents of a gzip compressed file starting at the first ballot, left over
+   * from reading the header until openBallots hands them over. Null for other files.
+   */
+  private InputStream ballots;
+
+  /**
+   * Constructor initializes a header that has already been read in.
+   *
+   * @param electionType the election type.
+   * @param numberOfCandidates the number of candidates.
+   * @param candidatesAndParties the candidates and their parties as they are written in the file.
+   * @param numberOfSeats the number of seats available.
+   * @param numberOfBallots the number of ballots.
+   * @param ballotStart the byte offset of the first ballot.
+   * @param binary whether the file is a binary ballot file.
+   * @param compressed whether the file is a gzip compressed CSV file.
+   */
+  ElectionFileHeader(String electionType, int numberOfCandidates, String candidatesAndParties,
+                     int numberOfSeats, long numberOfBallots, long ballotStart, boolean binary,
+                     boolean compressed) {
+    this.electionType = electionType;
+    this.numberOfCandidates = numberOfCandidates;
+    this.candidatesAndParties = candidatesAndParties;
+    this.numberOfSeats = numberOfSeats;
+    this.numberOfBallots = numberOfBallots;
+    this.ballotStart = ballotStart;
+    this.binary = binary;
+    this.compressed = compressed;
+  }
+
+  /**
+   * Reads the header from the start of an election file. The rest of the header is read based on
+   * the election type of the file. If the election type is not IR, OPL, or PO only the election
+   * type is read. Binary ballot files are detected by their magic bytes and their header is read
+   * by BinaryBallotFile. Gzip compressed files are detected by their magic bytes and the header is
+   * read from the start of their decompressed contents.
+   *
+   * @param electionFile the election file.
+   * @return the header of the file.
+   * @throws IOException if the file could not be read or the header is not formatted correctly.
+   */
+  public static ElectionFileHeader read(FileChannel electionFile) throws IOException {
+    if (BinaryBallotFile.isBinaryBallotFile(electionFile)) {
+      return BinaryBallotFile.readHeader(electionFile);
+    }
+
+    if (GzipElectionFile.isGzipFile(electionFile)) {
+      return readCompressed(electionFile);
+    }
+
+    long fileSize = electionFile.size();
+    for (long readSize = INITIAL_READ_SIZE; ; readSize *= 2) {
+      ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(readSize, fileSize));
+      while (buffer.hasRemaining() && electionFile.read(buffer, buffer.position()) > 0) {
+        // keep reading until the buffer is full
+      }
+      buffer.flip();
+
+      ElectionFileHeader header = parse(buffer, buffer.limit() == fileSize, false);
+      if (header != null) {
+        return header;
+      }
+      if (readSize >= Integer.MAX_VALUE) {
+        throw new IOException("The header is too large.");
+      }
+    }
+  }
+
+  /**
+   * Reads the header from the start of the decompressed contents of a gzip compressed file. The
+   * file is decompressed once: the bytes read past the header and the rest of the decompressed
+   * stream are kept so openBallots can hand them over already positioned at the first ballot.
+   *
+   * @param electionFile the compressed election file.
+   * @return the header of the file.
+   * @throws IOException if the file could not be decompressed or the header is not formatted
+   *                     correctly.
+   */
+  private static ElectionFileHeader readCompressed(FileChannel electionFile) throws IOException {
+    InputStream decompressed = GzipElectionFile.open(electionFile, 0);
+    try {
+      byte[] start = new byte[0];
+      int filled = 0;
+      for (int readSize = INITIAL_READ_SIZE; ; readSize = (int) Math.min(2L * readSize,
+              Integer.MAX_VALUE)) {
+        // read more of the same stream instead of decompressing the start of the file again
+        start = Arrays.copyOf(start, readSize);
+        filled += decompressed.readNBytes(start, filled, readSize - filled);
+        ByteBuffer buffer = ByteBuffer.wrap(start, 0, filled);
+
+        ElectionFileHeader header = parse(buffer, filled < readSize, true);
+        if (header != null) {
+          header.ballots = new SequenceInputStream(new ByteArrayInputStream(start,
+                  buffer.position(), filled - buffer.position()), decompressed);
+          return header;
+        }
+        if (readSize == Integer.MAX_VALUE) {
+          throw new IOException("The header is too large.");
+        }
+      }
+    } catch (IOException ex) {
+      decompressed.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Parses the header from a buffer holding the start of an election file.
+   *
+   * @param buffer the buffer holding the start of the file.
+   * @param endOfFile whether the buffer holds the whole file.
+   * @param compressed whether the file is gzip compressed.
+   * @return the header of the file. Null if more of the file needs to be read to parse the header.
+   * @throws IOException if the header is not formatted correctly.
+   */
+  private static ElectionFileHeader parse(ByteBuffer buffer, boolean endOfFile,
+                                          boolean compressed) throws IOException {
+    String[] lines = new String[5];
+    int numLines = 1;
+    for (int i = 0; i < numLines; i++) {
+      lines[i] = readLine(buffer, endOfFile);
+      if (lines[i] == null) {
+        if (endOfFile) throw new IOException("The header is missing lines.");
+        return null;
+      }
+      if (i == 0) {
+        numLines = numberOfLines(lines[0]);
+      }
+    }
+
+    try {
+      switch (lines[0]) {
+        case "IR":
+        case "PO":
+          return new ElectionFileHeader(lines[0], Integer.parseInt(lines[1]), lines[2], 0,
+                  Long.parseLong(lines[3]), buffer.position(), false, compressed);
+        case "OPL":
+          return new ElectionFileHeader(lines[0], Integer.parseInt(lines[1]), lines[2],
+                  Integer.parseInt(lines[3]), Long.parseLong(lines[4]), buffer.position(),
+                  false, compressed);
+        default:
+          return new ElectionFileHeader(lines[0], 0, "", 0, 0, buffer.position(), false,
+                  compressed);
+      }
+    } catch (NumberFormatException ex) {
+      throw new IOException(ex);
+    }
+  }
+
+  /**
+   * Gets the number of lines in the header of an election type.
+   *
+   * @param electionType the election type.
+   * @return the number of lines in the header, including the election type.
+   */
+  private static int numberOfLines(String electionType) {
+    switch (electionType) {
+      case "IR":
+      case "PO":
+        return 4;
+      case "OPL":
+        return 5;
+      default:
+        return 1;
+    }
+  }
+
+  /**
+   * Reads the next line of the header from a buffer, starting at the buffer's position. The
+   * position is moved to the start of the following line.
+   *
+   * @param buffer the buffer holding the start of the file.
+   * @param endOfFile whether the buffer holds the whole file.
+   * @return the line without the line ending. Null if the line does not end within the buffer and
+   * more of the file needs to be read, or the end of the file has been reached.
+   */
+  private static String readLine(ByteBuffer buffer, boolean endOfFile) {
+    int lineStart = buffer.position();
+    int lineEnd = lineStart;
+    while (lineEnd < buffer.limit() && buffer.get(lineEnd) != '\n') {
+      lineEnd++;
+    }
+    if (lineEnd == buffer.limit() && (!endOfFile || lineEnd == lineStart)) {
+      return null;
+    }
+    buffer.position(Math.min(lineEnd + 1, buffer.limit()));
+
+    if (lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r') {
+      lineEnd--; // ignore windows line endings
+    }
+    StringBuilder line = new StringBuilder(lineEnd - lineStart);
+    for (int i = lineStart; i < lineEnd; i++) {
+      line.append((char) (buffer.get(i) & 0xFF));
+    }
+    return line.toString();
+  }
+
+  /**
+   * Creates the candidates listed in the header. Each candidate is given a unique ID starting from
+   * 0 in the order they are listed. IR files list the candidates as "Candidate (Party), ..." and
+   * OPL and PO files list them as "[Candidate,Party], ...".
+   *
+   * @return a new list of the candidates, each with no votes.
+   * @throws IOException if the candidates are not formatted correctly.
+   */
+  public ArrayList<Candidate> getCandidates() throws IOException {
+    String initialSplit;
+    Pattern candidatePartyPattern;
+    if (electionType.equals("IR")) {
+      initialSplit = ", ";
+      candidatePartyPattern = Pattern.compile("(\\w+) \\((\\w+)\\)");
+    } else {
+      initialSplit = "],\\s?\\[";
+      candidatePartyPattern = Pattern.compile("\\[?(\\w+),(\\w+)]?");
+    }
+
+    ArrayList<Candidate> candidateArrayList = new ArrayList<>();
+    int currentCandidateID = 0;
+    for (String candidateAndParty : candidatesAndParties.split(initialSplit, 0)) {
+      Matcher candidatePartyMatcher = candidatePartyPattern.matcher(candidateAndParty);
+      if (!candidatePartyMatcher.matches()) {
+        throw new IOException();
+      }
+      String candidateName = candidatePartyMatcher.group(1);
+      String candidateParty = candidatePartyMatcher.group(2);
+      candidateArrayList.add(new Candidate(candidateName, candidateParty, currentCandidateID));
+      currentCandidateID++;
+    }
+    return candidateArrayList;
+  }
+
+  /**
+   * Gets the candidates and their parties as they are written in the header. Files that list the
+   * same candidates in the same order have equal strings, so the candidates only need to be
+   * created from one of them.
+   *
+   * @return the candidates and their parties as they are written in the file.
+   */
+  public String getCandidatesAndParties() {
+    return candidatesAndParties;
+  }
+
+  /**
+   * Gets the election type.
+   *
+   * @return election type.
+   */
+  public String getElectionType() {
+    return electionType;
+  }
+
+  /**
+   * Gets the number of candidates written in the header.
+   *
+   * @return number of candidates.
+   */
+  public int getNumberOfCandidates() {
+    return numberOfCandidates;
+  }
+
+  /**
+   * Gets the number of seats available. Only OPL files have seats.
+   *
+   * @return number of seats, or 0 if the file is not an OPL file.
+   */
+  public int getNumberOfSeats() {
+    return numberOfSeats;
+  }
+
+  /**
+   * Gets the number of ballots in the file.
+   *
+   * @return number of ballots.
+   */
+  public long getNumberOfBallots() {
+    return numberOfBallots;
+  }
+
+  /**
+   * Gets the number of ballot lines to parse from a CSV file. The ballots of a CSV file are parsed
+   * one line at a time, so a file can't have more lines than an int can count. Elections with more
+   * ballots than that are split into several files or given as binary ballot files.
+   *
+   * @return number of ballot lines.
+   * @throws IOException if the file has too many ballots to parse.
+   */
+  public int getNumberOfBallotLines() throws IOException {
+    if (numberOfBallots > Integer.MAX_VALUE) throw new IOException("Too many ballots in one file.");
+
+    return (int) numberOfBallots;
+  }
+
+  /**
+   * Checks if the file is a binary ballot file instead of a CSV file.
+   *
+   * @return true if the file is a binary ballot file, false otherwise.
+   */
+  public boolean isBinary() {
+    return binary;
+  }
+
+  /**
+   * Checks if the file is a gzip compressed CSV file.
+   *
+   * @return true if the file is gzip compressed, false otherwise.
+   */
+  public boolean isCompressed() {
+    return compressed;
+  }
+
+  /**
+   * Opens a stream of the decompressed ballots of a gzip compressed file, starting at the first
+   * ballot. The first time, the stream the header was read from is handed over, so the start of
+   * the file is not decompressed again. After that, the file is decompressed again from the start.
+   *
+   * @param electionFile the compressed election file the header was read from.
+   * @return the decompressed contents of the file starting at the first ballot.
+   * @throws IOException if the file is not compressed, or could not be decompressed.
+   */
+  public InputStream openBallots(FileChannel electionFile) throws IOException {
+    if (!compressed) throw new IOException("Only the ballots of a compressed file are streamed.");
+
+    InputStream handedOver = ballots;
+    ballots = null;
+    return handedOver != null ? handedOver : GzipElectionFile.open(electionFile, ballotStart);
+  }
+
+  /**
+   * Gets the byte offset of the first ballot.
+   *
+   * @return byte offset of the first ballot.
+   */
+  public long getBallotStart() {
+    return ballotStart;
+  }
+}
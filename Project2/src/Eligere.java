@@ -1,3 +1,7 @@
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
 /**
  * The main driver of the program
  *
@@ -11,13 +15,45 @@ public class Eligere {
    * the wrong number of argument a help message is
    * given to the user.
    *
-   * @param args Args[0] should be the name of the file
+   * @param args Args[0] should be the name of the file. If args[0] is --convert, args[1] is
+   *             converted into a binary ballot file named args[2]. If args[0] is
+   *             --export-groups, the IR files after args[1] are merged into a group file
+   *             named args[1]. If args[0] is --replay-audit, the ballot distribution of round
+   *             args[2] of the IR audit file args[1] is printed. If args[0] is --districts, an
+   *             OPL election is run in each district listed in the manifest args[1]. If args[0]
+   *             is --seat-sweep, the OPL election in the files after args[2] is run for every
+   *             number of seats from args[1] to args[2]
    */
   public static void main(String[] args) {
     if (args.length < 1){
       System.out.println("java Eligere <name_of_ballot_csv_1> <name_of_ballot_csv_2> ...");
+      System.out.println("java Eligere --convert <name_of_ballot_csv> <name_of_binary_file>");
+      System.out.println("java Eligere --export-groups <name_of_group_file> <name_of_ir_file_1> ...");
+      System.out.println("java Eligere --replay-audit <name_of_ir_audit_file> <round>");
+      System.out.println("java Eligere --districts <name_of_district_manifest>");
+      System.out.println("java Eligere --seat-sweep <min_seats> <max_seats> <name_of_ballot_csv_1> ...");
       System.exit(0);
     }
+    if (args[0].equals("--convert")) {
+      convert(args);
+      return;
+    }
+    if (args[0].equals("--export-groups")) {
+      exportGroups(args);
+      return;
+    }
+    if (args[0].equals("--replay-audit")) {
+      replayAudit(args);
+      return;
+    }
+    if (args[0].equals("--districts")) {
+      runDistricts(args);
+      return;
+    }
+    if (args[0].equals("--seat-sweep")) {
+      sweepSeats(args);
+      return;
+    }
     Election election = CreateElection.createElection(args);
     if(election==null){
       System.exit(-1);
@@ -25,4 +61,136 @@ public class Eligere {
     election.runVotingAlgorithm();
   }
 
+  /**
+   * Converts an election CSV file into a binary ballot file that can be given to Eligere in
+   * place of the CSV file.
+   *
+   * @param args Args[1] should be the name of the CSV file and args[2] the name of the binary file
+   */
+  private static void convert(String[] args) {
+    if (args.length != 3) {
+      System.out.println("java Eligere --convert <name_of_ballot_csv> <name_of_binary_file>");
+      System.exit(0);
+    }
+    try {
+      BinaryBallotFile.convert(args[1], args[2]);
+    } catch (IOException ex) {
+      System.out.println("Error: Could not convert " + args[1]);
+      System.exit(-1);
+    }
+  }
+
+  /**
+   * Merges the ballots of IR election files into groups of distinct rankings and exports them
+   * to a binary ballot file that can be given to Eligere in place of the IR files.
+   *
+   * @param args Args[1] should be the name of the group file and the rest the names of the IR files
+   */
+  private static void exportGroups(String[] args) {
+    if (args.length < 3) {
+      System.out.println("java Eligere --export-groups <name_of_group_file> <name_of_ir_file_1> ...");
+      System.exit(0);
+    }
+    if (!CreateElection.exportIRBallotGroups(Arrays.copyOfRange(args, 2, args.length), args[1])) {
+      System.exit(-1);
+    }
+  }
+
+  /**
+   * Prints the full ballot distribution of a round of an IR audit file, including audit files that
+   * only have the ballots that changed in each round.
+   *
+   * @param args Args[1] should be the name of the audit file and args[2] the round, starting at 1
+   */
+  private static void replayAudit(String[] args) {
+    if (args.length != 3) {
+      System.out.println("java Eligere --replay-audit <name_of_ir_audit_file> <round>");
+      System.exit(0);
+    }
+    try {
+      DeltaAuditReader audit = new DeltaAuditReader(args[1]);
+      for (Map.Entry<String, Long> ballot : audit.getDistribution(Integer.parseInt(args[2])).entrySet()) {
+        System.out.println(ballot.getKey() + ": " + ballot.getValue());
+      }
+    } catch (IOException ex) {
+      System.out.println("Error: Could not read " + args[1]);
+      System.exit(-1);
+    } catch (IllegalArgumentException ex) {
+      System.out.println("Error: " + args[1] + " does not have round " + args[2]);
+      System.exit(-1);
+    }
+  }
+
+  /**
+   * Runs an OPL election in each district listed in a manifest, then summarizes the results of
+   * every district.
+   *
+   * @param args Args[1] should be the name of the manifest, with a line for each district
+   *             holding the district name followed by its ballot files
+   */
+  private static void runDistricts(String[] args) {
+    if (args.length != 2) {
+      System.out.println("java Eligere --districts <name_of_district_manifest>");
+      System.exit(0);
+    }
+    MultiDistrictOPL districts;
+    try {
+      districts = MultiDistrictOPL.readManifest(args[1]);
+    } catch (IOException ex) {
+      System.out.println("Error: Could not read " + args[1]);
+      System.exit(-1);
+      return;
+    } catch (IllegalArgumentException ex) {
+      System.out.println("Error: " + ex.getMessage());
+      System.exit(-1);
+      return;
+    }
+    if (!districts.runDistricts()) {
+      System.exit(-1);
+    }
+  }
+
+  /**
+   * Runs an OPL election for every number of seats in a range, reading the ballots only once, and
+   * prints a table of the seats won by each party for each number of seats.
+   *
+   * @param args Args[1] and args[2] should be the fewest and most seats, and the rest the names of
+   *             the OPL files
+   */
+  private static void sweepSeats(String[] args) {
+    if (args.length < 4) {
+      System.out.println("java Eligere --seat-sweep <min_seats> <max_seats> <name_of_ballot_csv_1> ...");
+      System.exit(0);
+    }
+    int minSeats;
+    int maxSeats;
+    try {
+      minSeats = Integer.parseInt(args[1]);
+      maxSeats = Integer.parseInt(args[2]);
+    } catch (NumberFormatException ex) {
+      System.out.println("Error: The number of seats must be whole numbers");
+      System.exit(-1);
+      return;
+    }
+    if (minSeats < 1 || minSeats > maxSeats) {
+      System.out.println("Error: The fewest seats must be positive and at most the most seats");
+      System.exit(-1);
+    }
+
+    Election election = CreateElection.createElection(Arrays.copyOfRange(args, 3, args.length));
+    if (election == null) {
+      System.exit(-1);
+    }
+    if (!(election instanceof OPL)) {
+      System.out.println("Error: Only OPL elections can be run for a range of seats");
+      System.exit(-1);
+    }
+    try {
+      ((OPL) election).runSeatSweep(minSeats, maxSeats, CreateElection.getNumWorkers());
+    } catch (IllegalArgumentException ex) {
+      System.out.println("Error: The most seats must be at most the number of ballots");
+      System.exit(-1);
+    }
+  }
+
 }
@@ -0,0 +1,70 @@
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streams the contents of gzip compressed election files so they can be read without being
+ * decompressed to disk first. Compressed files are detected by the gzip magic bytes, so the name
+ * of the file does not matter.
+ */
+public class GzipElectionFile {
+
+  /**
+   * The first two bytes of every gzip file.
+   */
+  private static final int GZIP_MAGIC = 0x8B1F;
+
+  /**
+   * The size of the buffers used to read the compressed bytes and decompress them. Large buffers
+   * keep the number of reads (and inflater calls) per file small.
+   */
+  public static final int BUFFER_SIZE = 1024 * 1024;
+
+  /**
+   * Checks if a file starts with the gzip magic bytes.
+   *
+   * @param electionFile the file to check.
+   * @return true if the file is gzip compressed, false otherwise.
+   * @throws IOException if the file could not be read.
+   */
+  public static boolean isGzipFile(FileChannel electionFile) throws IOException {
+    ByteBuffer start = ByteBuffer.allocate(2);
+    while (start.hasRemaining() && electionFile.read(start, start.position()) > 0) {
+      // keep reading until the magic bytes have been read
+    }
+    return !start.hasRemaining() && ((start.get(0) & 0xFF) | (start.get(1) & 0xFF) << 8) == GZIP_MAGIC;
+  }
+
+  /**
+   * Opens a stream of the decompressed contents of a gzip compressed file. Closing the stream
+   * frees the decompressor but leaves the file open, since the file belongs to the caller.
+   *
+   * @param electionFile the compressed file.
+   * @param skip the number of decompressed bytes to skip before the stream starts.
+   * @return the decompressed contents of the file after the skipped bytes.
+   * @throws IOException if the file is not a valid gzip file or ends before the skipped bytes.
+   */
+  public static InputStream open(FileChannel electionFile, long skip) throws IOException {
+    InputStream compressed = new FilterInputStream(Channels.newInputStream(electionFile.position(0))) {
+      @Override
+      public void close() {
+        // leave the file open
+      }
+    };
+    InputStream decompressed = new GZIPInputStream(compressed, BUFFER_SIZE);
+    long skipped = 0;
+    while (skipped < skip) {
+      long current = decompressed.skip(skip - skipped);
+      if (current <= 0) {
+        decompressed.close();
+        throw new IOException("The file ended unexpectedly.");
+      }
+      skipped += current;
+    }
+    return decompressed;
+  }
+}
@@ -0,0 +1,152 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for creating elections from gzip compressed election files.
+ */
+public class GzipElectionFileTest {
+  private final ByteArrayOutputStream systemOut = new ByteArrayOutputStream();
+  private final PrintStream originalOut = System.out;
+
+  final private String testingPath = "./testing/testFiles/";
+
+  /**
+   * A directory for the compressed election files that is deleted after each test.
+   */
+  @TempDir
+  Path tempDir;
+
+  /**
+   * Sets the standard output to a different stream so no output to the terminal happens during
+   * unit tests.
+   */
+  @BeforeEach
+  public void setUp() {
+    System.setOut(new PrintStream(systemOut));
+  }
+
+  /**
+   * Resets the standard output to stdout and deletes the invalidated ballot files.
+   */
+  @AfterEach
+  public void tearDown() {
+    System.setOut(originalOut);
+    CreateElectionTestHelpers.deleteElectionOutputFiles();
+  }
+
+  /**
+   * Compresses a CSV file into the temporary directory. The compressed file is not given a .gz
+   * extension since compressed files are detected by their contents.
+   *
+   * @param csvFileName the name of the CSV file in the testing directory.
+   * @return the path of the compressed file.
+   * @throws IOException if the file could not be compressed.
+   */
+  private String compress(String csvFileName) throws IOException {
+    Path compressedFile = tempDir.resolve(Path.of(csvFileName).getFileName());
+    try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressedFile))) {
+      Files.copy(Path.of(testingPath + csvFileName), out);
+    }
+    return compressedFile.toString();
+  }
+
+  /**
+   * Tests that an IR election created from compressed files has the same ballots, in the same
+   * order, as one created from the CSV files, and that compressed and CSV files can be mixed.
+   */
+  @Test
+  public void testIRCompressed() throws IOException {
+    IR fromCSV = (IR) CreateElection.createElection(new String[] {testingPath + "bigRandomIR2.csv",
+        testingPath + "givenBigIR.csv"});
+    IR fromCompressed = (IR) CreateElection.createElection(new String[] {
+        compress("bigRandomIR2.csv"), testingPath + "givenBigIR.csv"});
+
+    assertEquals(new ArrayList<>(fromCSV.getBallots().entrySet()),
+            new ArrayList<>(fromCompressed.getBallots().entrySet()));
+    assertEquals(fromCSV.getTotalCounts(), fromCompressed.getTotalCounts());
+    CreateElectionTest.candidateArraylistIsEqual(fromCSV.getCandidates(),
+            fromCompressed.getCandidates());
+  }
+
+  /**
+   * Tests that an OPL election created from compressed files has the same votes as one created
+   * from the CSV files.
+   */
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testOPLCompressed() throws IOException, ReflectiveOperationException {
+    OPL fromCSV = (OPL) CreateElection.createElection(new String[] {testingPath + "givenOPL.csv",
+        testingPath + "givenOPLModified.csv"});
+    OPL fromCompressed = (OPL) CreateElection.createElection(new String[] {
+        compress("givenOPL.csv"), compress("givenOPLModified.csv")});
+
+    assertEquals(fromCSV.getTotalNumBallots(), fromCompressed.getTotalNumBallots());
+    assertEquals(fromCSV.getNumSeatsAvailable(), fromCompressed.getNumSeatsAvailable());
+    Field parties = OPL.class.getDeclaredField("parties");
+    parties.setAccessible(true);
+    CreateElectionTest.partyArraylistIsEqual((ArrayList<Party>) parties.get(fromCSV),
+            (ArrayList<Party>) parties.get(fromCompressed));
+  }
+
+  /**
+   * Tests that the header of a compressed file is read from the same stream as the ballots, even
+   * when the header is longer than the first read, and that the ballots can be opened again.
+   */
+  @Test
+  public void testHeaderAndBallotsFromOneStream() throws IOException {
+    StringBuilder candidates = new StringBuilder("C0 (P0)");
+    for (int i = 1; i < 2000; i++) {
+      candidates.append(", C").append(i).append(" (P").append(i).append(")");
+    }
+    assertTrue(candidates.length() > 8 * 1024);
+    Path compressedFile = tempDir.resolve("longHeaderIR.csv");
+    try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressedFile))) {
+      out.write(("IR\n2000\n" + candidates + "\n2\n1,2\r\n2,1\n")
+              .getBytes(StandardCharsets.UTF_8));
+    }
+
+    try (FileChannel channel = FileChannel.open(compressedFile, StandardOpenOption.READ)) {
+      ElectionFileHeader header = ElectionFileHeader.read(channel);
+      assertTrue(header.isCompressed());
+      assertEquals(2000, header.getCandidates().size());
+      assertEquals(2, header.getNumberOfBallots());
+      for (int i = 0; i < 2; i++) {
+        try (InputStream ballots = header.openBallots(channel)) {
+          assertEquals("1,2\r\n2,1\n", new String(ballots.readAllBytes(), StandardCharsets.UTF_8));
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that a compressed file that has been cut short is not used to create an election.
+   */
+  @Test
+  public void testTruncatedFile() throws IOException {
+    Path compressedFile = Path.of(compress("givenIR.csv"));
+    byte[] bytes = Files.readAllBytes(compressedFile);
+    Files.write(compressedFile, Arrays.copyOf(bytes, bytes.length / 2));
+
+    assertNull(CreateElection.createElection(new String[] {compressedFile.toString()}));
+    assertTrue(systemOut.toString().contains("Error: Invalid File Format"));
+  }
+}
@@ -4,6 +4,7 @@ import java.io.PrintWriter;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * The IR class is in charge of running an Instant Runoff election and outputting any results
@@ -14,15 +15,113 @@ import java.util.*;
 public class IR extends Election {
 
   /**
-   * A map between the different permutations of candidate preferences, and the current number of
-   * votes towards that preference.
+   * The default number of trie nodes an eliminated candidate needs before they are spliced out in
+   * shards that run in parallel.
    */
-  private HashMap<String, Integer> ballots;
+  private static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 15;
 
   /**
-   * A list of candidates currently in the election.
+   * The number of characters of the audit kept in memory before they are written to the audit file.
    */
-  private ArrayList<Candidate> candidates;
+  private static final int AUDIT_CHUNK_SIZE = 1 << 16;
+
+  /**
+   * The number of trie nodes an eliminated candidate needs before they are spliced out in shards
+   * that run in parallel. Splicing the candidate out of the trie is the only part of a round that
+   * runs in parallel, and it is never split if there is only one processor.
+   */
+  private int parallelThreshold = ForkJoinPool.getCommonPoolParallelism() > 1
+          ? DEFAULT_PARALLEL_THRESHOLD : Integer.MAX_VALUE;
+
+  /**
+   * The rankings of the ballots as a prefix trie of candidate IDs. The ballots that cast each
+   * distinct ranking are a group in the trie, and eliminated candidates are spliced out of the
+   * trie, so the first candidate of a group's ranking is the candidate its ballots count towards.
+   * The trie is the only record of the rankings, and the ballots written as parties are worked out
+   * from it whenever they are written.
+   */
+  private RankingTrie trie;
+
+  /**
+   * The candidates currently in the election ordered by their number of votes.
+   */
+  private CandidateStandings standings;
+
+  /**
+   * Every candidate in the election, including eliminated candidates, indexed by the candidate IDs
+   * used in rankings.
+   */
+  private Candidate[] candidatesByID;
+
+  /**
+   * The votes of every candidate in the election, indexed by the candidate IDs used in rankings.
+   */
+  private VoteTally tally;
+
+  /**
+   * The party of each candidate as it is written in ballots, like "(p0)", indexed by candidate ID.
+   */
+  private String[] partyLabels;
+
+  /**
+   * The hash code of the party of each candidate as it is written in ballots, indexed by candidate
+   * ID.
+   */
+  private int[] partyLabelHashes;
+
+  /**
+   * The number each hash code is multiplied by when the party of each candidate is written after
+   * it, which is 31 to the power of the length of the party as it is written in ballots, indexed by
+   * candidate ID.
+   */
+  private int[] partyLabelShifts;
+
+  /**
+   * The order each group's ballot was added to the ballots in, indexed by group. The ballots are
+   * written in the order a hashmap of them would be iterated in if each ballot had been put into it
+   * in this order, which is the order they were written in when the ballots were kept in a hashmap.
+   * Rankings that are written as the same ballot are written where the first of them was added.
+   */
+  private int[] ballotOrder;
+
+  /**
+   * The order the next ballot added to the ballots is given.
+   */
+  private int nextBallotOrder;
+
+  /**
+   * The number of buckets a hashmap of the ballots would have. It doubles whenever the ballots no
+   * longer fit in three quarters of the buckets, and never shrinks, like the buckets of a hashmap.
+   */
+  private int ballotBuckets = 16;
+
+  /**
+   * The index of the party of each candidate, indexed by candidate ID. Rankings whose candidates
+   * are from the same parties in the same order are written as the same ballot.
+   */
+  private int[] partyOf;
+
+  /**
+   * Whether two or more candidates are from the same party, so that different rankings can be
+   * written as the same ballot.
+   */
+  private boolean partiesShared;
+
+  /**
+   * The audit file that the audit is written to as each round is counted, or null if it hasn't been
+   * created yet.
+   */
+  private PrintWriter auditFile;
+
+  /**
+   * The name of the audit file, or null if it hasn't been created yet.
+   */
+  private String auditFileName;
+
+  /**
+   * The candidate IDs of the candidates currently in the election.
+   */
+  private BitSet candidatesLeft;
 
   /**
    * A string builder to help keep track of election results throughout the election.
@@ -43,7 +142,7 @@ public class IR extends Election {
   /**
    * The total votes left in the election
    */
-  private int totalCounts;
+  private long totalCounts;
 
   /**
    * The current round that we are counting for
@@ -62,10 +161,56 @@ public class IR extends Election {
   private Candidate candidateToEliminate;
 
   /**
-   * Keeps track of the number of votes each candidate had before a voting redistribution. This
-   * is useful for showing how the votes for each candidate changed between rounds.
+   * Keeps track of the number of votes each candidate had before a voting redistribution, indexed
+   * by candidate ID. This is useful for showing how the votes for each candidate changed between
+   * rounds.
+   */
+  private long[] votesBeforeRedistribution;
+
+  /**
+   * Whether every candidate that can no longer win is eliminated in the same round, instead of one
+   * candidate per round. This can be turned on from the command line with
+   * -Delection.bulkExclusion=true.
+   */
+  private boolean bulkExclusion = Boolean.getBoolean("election.bulkExclusion");
+
+  /**
+   * Whether the election stops as soon as the leader can no longer lose, instead of counting rounds
+   * until a candidate has a majority. This can be turned on from the command line with
+   * -Delection.earlyTermination=true.
+   */
+  private boolean earlyTermination = Boolean.getBoolean("election.earlyTermination");
+
+  /**
+   * The candidates eliminated together in the current round, or null if only candidateToEliminate
+   * was eliminated.
+   */
+  private ArrayList<Candidate> bulkExcluded;
+
+  /**
+   * The number of rounds that were not needed because candidates were eliminated together.
+   */
+  private int roundsSaved;
+
+  /**
+   * Whether the audit file only has the ballots that changed in each round after the first, instead
+   * of every ballot. Rounds where more ballots changed than are left still have every ballot. This
+   * can be turned on from the command line with -Delection.auditFormat=delta, and the audit can be
+   * read back with DeltaAuditReader.
+   */
+  private boolean deltaAudit = "delta".equals(System.getProperty("election.auditFormat"));
+
+  /**
+   * The ballots whose number of votes changed, or that were added or removed, since the last
+   * round was written to the audit file, with the index of the party of each of their candidates.
+   * Only kept for the delta audit format.
+   */
+  private LinkedHashMap<String, int[]> changedBallots = new LinkedHashMap<>();
+
+  /**
+   * The number of ballots written as parties that are left in the election.
    */
-  private HashMap<Candidate, Integer> votesBeforeRedistribution;
+  private int numBallots;
 
   /**
    * The constructor for IR initializes the IR class so it is ready to run the IR algorithm. It is assumed that
@@ -77,17 +222,49 @@ public class IR extends Election {
    * @param totalNumBallots the total number of ballots cast for this election.
    * @throws IllegalArgumentException if the totalNumBallots or numSeatsAvailable is nonpositive, or the parties is null or empty.
    */
-  public IR(HashMap<String, Integer> ballots, ArrayList<Candidate> candidates, int totalNumBallots) {
+  public IR(HashMap<String, Long> ballots, ArrayList<Candidate> candidates, long totalNumBallots) {
+    this(candidates, totalNumBallots, ballots, null);
+  }
+
+  /**
+   * The constructor for IR initializes the IR class from the distinct rankings of the ballots, where
+   * each candidate ID is the index of the candidate in candidates. Unlike the ballots written as
+   * parties, rankings of candidates from the same party are kept apart.
+   *
+   * @param candidates a list of candidates in the election.
+   * @param ballotGroups the distinct rankings cast and how many ballots cast each ranking.
+   * @param totalNumBallots the total number of ballots cast for this election.
+   * @throws IllegalArgumentException if the totalNumBallots is nonpositive, or the candidates or
+   * ballotGroups is null or empty.
+   */
+  public IR(ArrayList<Candidate> candidates, BallotGroups ballotGroups, long totalNumBallots) {
+    this(candidates, totalNumBallots, null, ballotGroups);
+  }
+
+  /**
+   * Initializes the IR class from either the ballots written as parties or the distinct rankings
+   * of the ballots.
+   *
+   * @param candidates a list of candidates in the election.
+   * @param totalNumBallots the total number of ballots cast for this election.
+   * @param ballots a hashmap containing all the votes cast, or null to read the rankings from
+   * ballotGroups.
+   * @param ballotGroups the distinct rankings cast and how many ballots cast each ranking, or null
+   * to read the rankings from ballots.
+   * @throws IllegalArgumentException if the inputs are not valid.
+   */
+  private IR(ArrayList<Candidate> candidates, long totalNumBallots, HashMap<String, Long> ballots,
+             BallotGroups ballotGroups) {
     // check invalid inputs
-    if (totalNumBallots <= 0 || candidates == null || ballots == null || candidates.isEmpty() || ballots.isEmpty()) {
+    boolean noBallots = ballotGroups == null ? ballots == null || ballots.isEmpty()
+            : ballotGroups.size() == 0;
+    if (totalNumBallots <= 0 || candidates == null || candidates.isEmpty() || noBallots) {
       throw new IllegalArgumentException("totalNumBallots must be positive, candidates and ballots must be " +
               "non-null and non-empty");
     }
 
     // initialize from parameters to constructor
     this.totalNumBallots = totalNumBallots;
-    this.ballots = ballots;
-    this.candidates = candidates;
 
     // Create auditString
     auditString = new StringBuilder();
@@ -130,10 +307,56 @@ public class IR extends Election {
     this.roundCount = 1;
 
     // initialize to empty
-    votesBeforeRedistribution = new HashMap<>();
+    votesBeforeRedistribution = new long[candidates.size()];
+
+    // the rankings are only kept in the trie
+    candidatesByID = candidates.toArray(new Candidate[0]);
+    tally = VoteTally.ofCandidates(candidates);
+    partyLabels = new String[candidatesByID.length];
+    partyLabelHashes = new int[candidatesByID.length];
+    partyLabelShifts = new int[candidatesByID.length];
+    partyOf = new int[candidatesByID.length];
+    for (int candidateID = 0; candidateID < candidatesByID.length; candidateID++) {
+      partyLabels[candidateID] = "(".concat(candidatesByID[candidateID].getParty()).concat(")");
+      partyLabelHashes[candidateID] = partyLabels[candidateID].hashCode();
+      partyLabelShifts[candidateID] = 1;
+      for (int i = 0; i < partyLabels[candidateID].length(); i++) {
+        partyLabelShifts[candidateID] *= 31;
+      }
+      partyOf[candidateID] = tally.getPartyOf(candidateID);
+    }
+    partiesShared = tally.getParties().size() < candidatesByID.length;
+    candidatesLeft = new BitSet(candidatesByID.length);
+    candidatesLeft.set(0, candidatesByID.length);
+    trie = new RankingTrie(candidatesByID.length);
+    if (ballotGroups == null) {
+      // each party is read as the first candidate from that party
+      HashMap<String, Short> candidateIDsByParty = new HashMap<>();
+      for (int candidateID = 0; candidateID < candidatesByID.length; candidateID++) {
+        candidateIDsByParty.putIfAbsent(candidatesByID[candidateID].getParty(),
+                (short) candidateID);
+      }
+      for (Map.Entry<String, Long> ballot : ballots.entrySet()) {
+        trie.add(parseBallot(ballot.getKey(), candidateIDsByParty), ballot.getValue());
+      }
+    } else {
+      for (int group = 0; group < ballotGroups.size(); group++) {
+        trie.add(ballotGroups.getRanking(group), ballotGroups.getCount(group));
+      }
+    }
+
+    // the ballots were added to the hashmap they were counted in the order they were first seen
+    ballotOrder = new int[trie.getNumGroups()];
+    for (int group = 0; group < ballotOrder.length; group++) {
+      ballotOrder[group] = group;
+    }
+    nextBallotOrder = ballotOrder.length;
+    numBallots = partiesShared ? getBallots().size() : trie.getNumGroups();
+    growBallotBuckets(numBallots);
 
     //set original vote count for each candidate
     setCandidateOriginalVotes();
+    standings = new CandidateStandings(candidatesByID);
   }
 
   /**
@@ -142,16 +365,43 @@ public class IR extends Election {
    * three steps until a winner is found. Then, it will output results and generate audit and media files.
    */
   public void runVotingAlgorithm() {
+    // write the audit to its file as each round is counted, so the rounds aren't all kept in memory
+    try {
+      auditFile = createAuditFile();
+    } catch (FileNotFoundException f) {
+      auditFile = null; // the audit stays in memory and generateAuditFile tries again
+    }
     updateAuditAndElectionStatistics();
     roundCount++;
     // repeat until winner is found
     while (!checkMajority()) {
+      // update the previous votes for each candidate
+      for (int candidateID = candidatesLeft.nextSetBit(0); candidateID >= 0;
+           candidateID = candidatesLeft.nextSetBit(candidateID + 1)) {
+        votesBeforeRedistribution[candidateID] = tally.getVotes(candidateID);
+      }
+
       // redistribute the votes when there is not a majority
-      candidateToEliminate = eliminateCandidate();
-      updateVotes(candidateToEliminate);
+      bulkExcluded = bulkExclusion ? findBulkExclusion() : null;
+      if (bulkExcluded != null) {
+        for (Candidate candidate : bulkExcluded) {
+          candidateToEliminate = candidate;
+          updateVotes(candidateToEliminate);
+        }
+        roundsSaved += bulkExcluded.size() - 1;
+      } else {
+        candidateToEliminate = eliminateCandidate();
+        updateVotes(candidateToEliminate);
+      }
       updateAuditAndElectionStatistics();
       roundCount++;
     }
+    if (roundsSaved > 0) {
+      if (finalNotes.charAt(finalNotes.length() - 1) != '\n') {
+        finalNotes.append("\n");
+      }
+      finalNotes.append("Bulk exclusion saved " + roundsSaved + " rounds of counting.\n");
+    }
 
     // output results to screen
     outputResults();
@@ -176,34 +426,89 @@ public class IR extends Election {
   protected void updateAuditAndElectionStatistics() {
     String roundN = addNCountToStatistics(roundCount);
     electionStatistics.append(roundN);
-    if (roundCount > 1) {
+    if (bulkExcluded != null) {
+      // need to mention that every candidate that could no longer win was eliminated
+      electionStatistics.append(" (Bulk exclusion, transfer of ");
+      for (int i = 0; i < bulkExcluded.size(); i++) {
+        if (i > 0) {
+          electionStatistics.append(i == bulkExcluded.size() - 1 ? " and " : ", ");
+        }
+        electionStatistics.append(bulkExcluded.get(i).getName());
+      }
+      electionStatistics.append("'s votes):\n");
+    } else if (roundCount > 1) {
       // need to mention whose votes are being redistributed
       electionStatistics.append(" (Transfer of ".concat(candidateToEliminate.getName()).concat(
               "'s votes):\n"));
     } else {
       electionStatistics.append(":\n");
     }
-    for (Candidate candidate : candidates) {
+    for (int candidateID = candidatesLeft.nextSetBit(0); candidateID >= 0;
+         candidateID = candidatesLeft.nextSetBit(candidateID + 1)) {
+      Candidate candidate = candidatesByID[candidateID];
       electionStatistics.append("\t");
       electionStatistics.append(candidate.getName() + " (" + candidate.getParty() + "): " + candidate.getCurNumVotes());
       if (roundCount > 1) {
         // need to say how votes were redistributed
-        int redistribution = candidate.getCurNumVotes() - votesBeforeRedistribution.get(candidate);
+        long redistribution = candidate.getCurNumVotes() - votesBeforeRedistribution[candidateID];
         electionStatistics.append(" (+".concat(String.valueOf(redistribution)).concat(")"));
       }
       electionStatistics.append("\n");
     }
 
-    if (roundCount > 1) {
-      auditString.append("Distribution after ".concat(roundN).concat(":\n"));
+    // the delta audit format only has the ballots that changed after the first round, unless more
+    // ballots changed than are left
+    boolean onlyChanges = deltaAudit && roundCount > 1 && changedBallots.size() < numBallots;
+    String distribution = onlyChanges ? "Changes after " : "Distribution after ";
+    if (bulkExcluded != null) {
+      auditString.append(distribution.concat(roundN).concat(" (bulk exclusion of ")
+              .concat(String.valueOf(bulkExcluded.size())).concat(" candidates):\n"));
+    } else if (roundCount > 1) {
+      auditString.append(distribution.concat(roundN).concat(":\n"));
     } else {
       auditString.append("Original Distribution (i.e., 1st count):\n");
     }
-    Iterator ballotsIteratorAudit = ballots.entrySet().iterator();
-    while (ballotsIteratorAudit.hasNext()) {
-      Map.Entry pair = (Map.Entry) ballotsIteratorAudit.next();
-      auditString.append(pair.getKey().toString() + ": ");
-      auditString.append(pair.getValue().toString() + "\n");
+    if (onlyChanges) {
+      for (Map.Entry<String, int[]> ballot : changedBallots.entrySet()) {
+        // removed ballots are written with a minus sign in front of them
+        long votes = trie.countRankings(ballot.getValue(), partyOf);
+        appendToAudit(votes < 0 ? "-".concat(ballot.getKey()).concat("\n")
+                : ballot.getKey().concat(": ").concat(String.valueOf(votes)).concat("\n"));
+      }
+      changedBallots.clear();
+      flushAudit();
+      return;
+    }
+    changedBallots.clear();
+    short[] ranking = new short[candidatesByID.length];
+    for (int group : findBallotsInOrder()) {
+      int length = trie.getRanking(group, ranking);
+      appendToAudit(formatBallot(ranking, length).concat(": ")
+              .concat(String.valueOf(countBallot(group, ranking, length))).concat("\n"));
+    }
+    flushAudit();
+  }
+
+  /**
+   * Adds a line to the audit kept in memory, and writes the audit to the audit file once enough of
+   * it is kept in memory.
+   *
+   * @param line the line to add.
+   */
+  private void appendToAudit(String line) {
+    auditString.append(line);
+    if (auditString.length() >= AUDIT_CHUNK_SIZE) {
+      flushAudit();
+    }
+  }
+
+  /**
+   * Writes the audit kept in memory to the audit file, if it has been created.
+   */
+  private void flushAudit() {
+    if (auditFile != null) {
+      auditFile.append(auditString);
+      auditString.setLength(0);
     }
   }
 
@@ -217,33 +522,29 @@ public class IR extends Election {
    * no candidate was delcared a winner.
    */
   private boolean checkMajority() {
-    // iterate through to find candidate with most votes
-    Candidate mostVotes = candidates.get(0);
-    for (Candidate candidate: candidates) {
-      if(mostVotes.getCurNumVotes() < candidate.getCurNumVotes())
-      mostVotes = candidate;
-    }
+    // find the first candidate with the most votes
+    Candidate mostVotes = standings.getLeader();
 
     //check for majority
     float proportion = (float) mostVotes.getCurNumVotes() / (float) totalCounts;
+    // the most votes another candidate could still get, which is only needed to stop early
+    long mostVotesAgainst = earlyTermination && proportion <= .5 ? findMostVotesAgainst(mostVotes)
+            : Long.MAX_VALUE;
     if( proportion > .5 ) {
-      winner = mostVotes;
-      String addition = mostVotes.getName() + " (" + mostVotes.getParty() + ") " + "has won the election with "
-              +  String.valueOf(proportion * 100) + "% of the remaining votes.\nThis is " +
-              String.valueOf((float) mostVotes.getCurNumVotes() / (float) totalNumBallots * 100) + " % of the total votes cast in " +
-              "this election.\n";
-      auditString.append("\n");
-      auditString.append(electionStatistics);
-      auditString.append(addition);
-      electionResults.append(addition);
-
-      if(finalNotes.length() < 40) {
-        finalNotes.append("No ties occurred in this election.");
-      }
+      declareWinner(mostVotes, proportion, "");
       return true;
     }
-    else if(candidates.size() == 2) {
+    else if (mostVotes.getCurNumVotes() > mostVotesAgainst) {
+      // the rounds left can't change the winner, so they aren't counted
+      declareWinner(mostVotes, proportion, "Counting stopped early because " + mostVotes.getName()
+              + " can no longer lose. " + mostVotes.getName() + " has " + mostVotes.getCurNumVotes()
+              + " votes, and no other candidate can get more than " + mostVotesAgainst
+              + " votes in the rounds left.\n");
+      return true;
+    }
+    else if(standings.size() == 2) {
       // if two candidates remain handle tie appropriately
+      ArrayList<Candidate> candidates = getCandidates();
       int winnerIndx = handleTie(2);
       candidates.get(winnerIndx);
       winner = candidates.get(winnerIndx);
@@ -265,6 +566,60 @@ public class IR extends Election {
     return false;
   }
 
+  /**
+   * Declares a candidate the winner, and adds the winner and the count that decided the election
+   * to the audit and the election results.
+   *
+   * @param winningCandidate the candidate that won the election.
+   * @param proportion the proportion of the remaining votes the candidate has.
+   * @param extraNote a note on how the election was decided that is only added to the audit, or an
+   *                  empty string for none.
+   */
+  private void declareWinner(Candidate winningCandidate, float proportion, String extraNote) {
+    winner = winningCandidate;
+    float proportionOfTotal = (float) winningCandidate.getCurNumVotes() / (float) totalNumBallots;
+    String addition = winningCandidate.getName() + " (" + winningCandidate.getParty() + ") "
+            + "has won the election with " + String.valueOf(proportion * 100)
+            + "% of the remaining votes.\nThis is "
+            + String.valueOf(proportionOfTotal * 100)
+            + " % of the total votes cast in this election.\n";
+    auditString.append("\n");
+    auditString.append(electionStatistics);
+    auditString.append(addition);
+    auditString.append(extraNote);
+    electionResults.append(addition);
+
+    if(finalNotes.length() < 40) {
+      finalNotes.append("No ties occurred in this election.");
+    }
+  }
+
+  /**
+   * Finds the most votes any candidate other than the leader could still get. A ballot can only
+   * help another candidate if it ranks a candidate other than the leader after the candidate it
+   * counts towards, since the rest either leave the election or go to the leader when their
+   * candidate is eliminated. Even if every ballot that can move went to the same candidate, that
+   * candidate would have no more than these votes, so the leader can't lose once it has more.
+   *
+   * @param leader the candidate with the most votes.
+   * @return the most votes another candidate could get before the election ends.
+   */
+  private long findMostVotesAgainst(Candidate leader) {
+    short leaderID = (short) leader.getTallyIndex();
+    long movableVotes = 0;
+    long mostHeldVotes = 0;
+    for (int candidateID = candidatesLeft.nextSetBit(0); candidateID >= 0;
+         candidateID = candidatesLeft.nextSetBit(candidateID + 1)) {
+      if (candidateID == leaderID) {
+        continue;
+      }
+      long heldVotes = trie.countHeldBallots((short) candidateID, leaderID);
+      movableVotes += tally.getVotes(candidateID) - heldVotes;
+      mostHeldVotes = Math.max(mostHeldVotes, heldVotes);
+    }
+    return movableVotes + mostHeldVotes;
+  }
+
   /**
    * This function finds the candidate to be eliminated given that no majority was found.
    * It eliminates the last place candidate so far. If multiple candidates tie for last place.
@@ -273,21 +628,8 @@ public class IR extends Election {
    * @return the candidate that will be eliminated
    */
   private Candidate eliminateCandidate() {
-    // iterate through to find candidate with the least votes
-    Candidate leastVotes = candidates.get(0);
-    for (Candidate candidate: candidates) {
-      if(leastVotes.getCurNumVotes() > candidate.getCurNumVotes())
-        leastVotes = candidate;
-    }
-
-    // create a list of candidates tied for last
-    ArrayList<Candidate> losingCandidates = new ArrayList<Candidate>();
-    losingCandidates.add(leastVotes);
-    for (Candidate candidate: candidates) {
-      if(!leastVotes.equals(candidate) && leastVotes.getCurNumVotes() == candidate.getCurNumVotes()) {
-        losingCandidates.add(candidate);
-      }
-    }
+    // get the list of candidates tied for last, in the order they are in the election
+    ArrayList<Candidate> losingCandidates = standings.getTiedForLast();
 
     // if only one candidate in last return
     if(losingCandidates.size() == 1) {
@@ -311,85 +653,222 @@ public class IR extends Election {
   }
 
   /**
-   * This function iterates through the hashmap of ballots and selects the ballots
-   * that contain the eliminated candidate. Then, it redistributes votes in that
-   * ballot accordingly.
-   * For example if p3 is eliminated votes in ballot (p0)(p3)(p1)(p2) go to ballot
-   * (p0)(p1)(p2). Also, total counts and counts for each candidate are adjusted accordingly.
+   * Finds the candidates that can no longer win, which are the lowest candidates whose votes added
+   * together are fewer than the votes of the next lowest candidate. Even if every one of their votes
+   * went to the same candidate, that candidate would still have fewer votes than the next lowest,
+   * so eliminating them one per round would end the same way.
+   *
+   * @return the candidates that can no longer win from fewest to most votes, or null if there are
+   * fewer than two of them.
+   */
+  private ArrayList<Candidate> findBulkExclusion() {
+    // at least two candidates are left to decide the election
+    int numToWalk = standings.size() - 2;
+    if (numToWalk < 2) {
+      return null;
+    }
+
+    // once the walked votes reach the leader's, no later candidate can have more than them
+    long leaderVotes = standings.getLeader().getCurNumVotes();
+    Iterator<Candidate> fewestFirst = standings.fewestFirst();
+    ArrayList<Candidate> walked = new ArrayList<>();
+    Candidate next = fewestFirst.next();
+    int numExcluded = 0;
+    long excludedVotes = 0;
+    for (int i = 0; i < numToWalk && excludedVotes < leaderVotes; i++) {
+      walked.add(next);
+      excludedVotes += next.getCurNumVotes();
+      next = fewestFirst.next();
+      if (excludedVotes < next.getCurNumVotes()) {
+        numExcluded = i + 1;
+      }
+    }
+    return numExcluded < 2 ? null : new ArrayList<>(walked.subList(0, numExcluded));
+  }
+
+  /**
+   * This function moves the ballots counting towards the eliminated candidate to their next
+   * continuing preference by splicing the candidate out of the trie. For example if p3 is
+   * eliminated votes in ballot (p0)(p3)(p1)(p2) go to ballot (p0)(p1)(p2). Also, total counts and
+   * counts for each candidate are adjusted accordingly.
    *
    * @param c the candidate that will be removed
    */
   private void updateVotes(Candidate c) {
-    // make arrays to store elements in hash map that will be
-    // removed or added
-    ArrayList<String> willBeRemoved = new ArrayList<>();
-    ArrayList<Object[]> willBeAdded = new ArrayList<>();
+    // the candidate's ID in rankings is its index in the election's tally
+    short eliminatedID = (short) c.getTallyIndex();
+    standings.remove(eliminatedID);
+    candidatesLeft.clear(eliminatedID);
 
-    // update the previous votes for each candidate
-    votesBeforeRedistribution = new HashMap<>();
-    for (Candidate candidate: candidates) {
-      if (candidate != c) {
-        // only do this for candidates not being eliminated
-        votesBeforeRedistribution.put(candidate, candidate.getCurNumVotes());
+    // the ballots that change are found while the rankings still have the candidate in them
+    LinkedHashMap<String, int[]> changed = findChangedBallots(eliminatedID);
+    int ballotsLeft = countBallotsLeft(changed);
+    // a hashmap of the ballots would fit the new ballots before the old ballots were removed
+    growBallotBuckets(numBallots + changed.size() - ballotsLeft);
+    numBallots -= ballotsLeft;
+
+    // splice the candidate out of the trie, in shards when the candidate has enough nodes
+    int numNodes = trie.getNumNodes(eliminatedID);
+    int shardSize = numNodes < parallelThreshold ? numNodes
+            : Math.max(1, numNodes / (4 * ForkJoinPool.getCommonPoolParallelism()));
+    RankingTrie.Transfer transfer = trie.eliminate(eliminatedID, shardSize);
+
+    numBallots += countBallotsLeft(changed);
+    if (deltaAudit) {
+      for (Map.Entry<String, int[]> ballot : changed.entrySet()) {
+        changedBallots.putIfAbsent(ballot.getKey(), ballot.getValue());
       }
     }
 
-    // iterate through each element in hashmap
-    Iterator ballotsIterator = ballots.entrySet().iterator();
-    while (ballotsIterator.hasNext()) {
-      Map.Entry pair = (Map.Entry) ballotsIterator.next();
-      String ballotKey = pair.getKey().toString();
-      // if element contains the party that was removed redistribute it
-      if (ballotKey.contains('(' + c.getParty() + ')')) {
-        // replacement is the ballot that the values will be moved to
-        String replacement = ballotKey.replace('(' + c.getParty() + ')', "");
-        // get value of the eliminated ballot
-        int eliminatedBallotValue = (int) pair.getValue();
-        // if you can't redistribute reduce count
-        if (replacement.length() == 0) {
-          totalCounts = totalCounts - eliminatedBallotValue;
-        }
-        // if the replacement is in the ballot add the new value
-        else if (ballots.containsKey(replacement)) {
-          int oldValue = ballots.get(replacement);
-          ballots.replace(replacement, (oldValue + eliminatedBallotValue));
-
-          // if votes have moved from loser to somebody else
-          // increment there votes
-          Candidate lostBallot = getCandidateFromBallot(ballotKey);
-          Candidate wonBallot= getCandidateFromBallot(replacement);
-          if (lostBallot != wonBallot) {
-            wonBallot.incrementCurNumVotes((int)pair.getValue());
-          }
-
-        // otherwise create a new ballot with the key = replacement
+    // if you can't redistribute reduce count
+    totalCounts = totalCounts - transfer.getExhaustedVotes();
+    // only the candidates that received votes move in the standings, and each only moves once
+    for (int candidateID : transfer.getReceivers()) {
+      tally.addVotes(candidateID, transfer.getVotes(candidateID));
+      standings.update(candidateID);
+    }
+  }
+
+  /**
+   * Finds the ballots written as parties that change when a candidate is eliminated, which are the
+   * ballots of the rankings with the candidate and the ballots those rankings move to. Only the
+   * groups under the candidate's nodes in the trie are visited, so the ballots that don't change
+   * are never written out. The groups are visited in the order their ballots are written to the
+   * audit, and each group that moves is given the order its new ballot is added to the ballots in.
+   * A group that moves to a ballot that is already left keeps that ballot's place, since its
+   * ballots are merged into the group that is already there.
+   *
+   * @param eliminatedID the candidate ID of the candidate being eliminated.
+   * @return the ballots that change, with the index of the party of each of their candidates.
+   */
+  private LinkedHashMap<String, int[]> findChangedBallots(short eliminatedID) {
+    int[] groups = trie.findGroupsWith(eliminatedID);
+    int[] hashes = new int[groups.length];
+    int[] orders = new int[groups.length];
+    short[] ranking = new short[candidatesByID.length];
+    for (int i = 0; i < groups.length; i++) {
+      hashes[i] = hashBallot(ranking, trie.getRanking(groups[i], ranking));
+      orders[i] = ballotOrder[groups[i]];
+    }
+
+    LinkedHashMap<String, int[]> changed = new LinkedHashMap<>();
+    HashMap<String, Integer> newOrders = new HashMap<>();
+    for (int i : sortInHashOrder(hashes, orders)) {
+      int length = trie.getRanking(groups[i], ranking);
+      int position = indexOf(ranking, length, eliminatedID);
+      changed.putIfAbsent(formatBallot(ranking, length), formatParties(ranking, length));
+
+      // the ballot without the candidate, unless the ballots leave the election
+      if (length > 1) {
+        System.arraycopy(ranking, position + 1, ranking, position, length - position - 1);
+        String newBallot = formatBallot(ranking, length - 1);
+        changed.putIfAbsent(newBallot, formatParties(ranking, length - 1));
+        Integer order = newOrders.get(newBallot);
+        if (order == null) {
+          order = nextBallotOrder++;
+          newOrders.put(newBallot, order);
         }
-        else {
-          Object toAdd[] = {replacement, eliminatedBallotValue};
-          willBeAdded.add(toAdd);
-
-          // if votes have moved from loser to somebody else
-          // increment there votes
-          Candidate lostBallot = getCandidateFromBallot(ballotKey);
-          Candidate wonBallot= getCandidateFromBallot(replacement);
-          if (lostBallot != wonBallot) {
-            wonBallot.incrementCurNumVotes((int)pair.getValue());
-          }
+        ballotOrder[groups[i]] = order;
+      }
+    }
+    return changed;
+  }
 
+  /**
+   * Finds a group of each ballot left in the election, in the order the ballots are written to the
+   * audit.
+   *
+   * @return a group whose ranking is written as each ballot.
+   */
+  private int[] findBallotsInOrder() {
+    int[] groups = new int[trie.getNumGroups()];
+    int[] hashes = new int[groups.length];
+    int[] orders = new int[groups.length];
+    int numFound = 0;
+    // rankings written as the same ballot are only found once
+    HashMap<String, Integer> foundBallots = partiesShared ? new HashMap<>() : null;
+    short[] ranking = new short[candidatesByID.length];
+    for (int group = 0; group < trie.getNumGroups(); group++) {
+      if (trie.isRemoved(group)) {
+        continue;
+      }
+      int length = trie.getRanking(group, ranking);
+      if (foundBallots != null) {
+        Integer found = foundBallots.putIfAbsent(formatBallot(ranking, length), numFound);
+        if (found != null) {
+          orders[found] = Math.min(orders[found], ballotOrder[group]);
+          continue;
         }
-        willBeRemoved.add(ballotKey);
       }
+      groups[numFound] = group;
+      hashes[numFound] = hashBallot(ranking, length);
+      orders[numFound] = ballotOrder[group];
+      numFound++;
     }
-    for (Object[] addable : willBeAdded) {
-      int currentVal = ballots.getOrDefault((String) addable[0], 0);
-      ballots.put((String) addable[0], currentVal + (int) addable[1]);
+
+    int[] ballots = sortInHashOrder(Arrays.copyOf(hashes, numFound),
+            Arrays.copyOf(orders, numFound));
+    for (int i = 0; i < ballots.length; i++) {
+      ballots[i] = groups[ballots[i]];
+    }
+    return ballots;
+  }
+
+  /**
+   * Sorts ballots into the order a hashmap of them would be iterated in, which is by the bucket of
+   * each ballot's hash code and then by the order the ballots were added to the bucket.
+   *
+   * @param hashes the hash code of each ballot.
+   * @param orders the order each ballot was added in.
+   * @return the indexes of the ballots in the order they would be iterated in.
+   */
+  private int[] sortInHashOrder(int[] hashes, int[] orders) {
+    long[] byOrder = new long[hashes.length];
+    for (int i = 0; i < hashes.length; i++) {
+      byOrder[i] = (long) orders[i] << 32 | i;
+    }
+    Arrays.sort(byOrder);
+
+    // the bucket is worked out from the hash code the same way a hashmap does
+    long[] byBucket = new long[hashes.length];
+    for (int rank = 0; rank < byOrder.length; rank++) {
+      int hash = hashes[(int) byOrder[rank]];
+      byBucket[rank] = (long) ((hash ^ (hash >>> 16)) & (ballotBuckets - 1)) << 32 | rank;
+    }
+    Arrays.sort(byBucket);
+
+    int[] indexes = new int[hashes.length];
+    for (int i = 0; i < indexes.length; i++) {
+      indexes[i] = (int) byOrder[(int) byBucket[i]];
     }
-    for (String removable : willBeRemoved) {
-      ballots.remove(removable);
+    return indexes;
+  }
+
+  /**
+   * Doubles the buckets a hashmap of the ballots would have until they fit a number of ballots.
+   *
+   * @param numBallots the number of ballots the hashmap holds.
+   */
+  private void growBallotBuckets(int numBallots) {
+    while (numBallots > ballotBuckets / 4 * 3) {
+      ballotBuckets *= 2;
     }
+  }
 
-    // Lastly remove the candidate
-    candidates.remove(c);
+  /**
+   * Counts how many of the ballots written as parties are left in the election.
+   *
+   * @param ballots the ballots, with the index of the party of each of their candidates.
+   * @return the number of ballots that at least one ranking left in the trie is written as.
+   */
+  private int countBallotsLeft(Map<String, int[]> ballots) {
+    int ballotsLeft = 0;
+    for (int[] parties : ballots.values()) {
+      if (trie.countRankings(parties, partyOf) >= 0) {
+        ballotsLeft++;
+      }
+    }
+    return ballotsLeft;
   }
 
   /**
@@ -412,18 +891,34 @@ public class IR extends Election {
   }
 
   /**
-   * Creates the audit file and outputs the auditString to the new file.
+   * Finishes the audit file by outputting the rest of the auditString and the final notes, creating
+   * the audit file first if it wasn't created when the algorithm started.
    */
   protected void generateAuditFile() throws FileNotFoundException {
+    if (auditFile == null) {
+      auditFile = createAuditFile();
+    }
+    flushAudit();
+    auditFile.print("\n");
+    auditFile.print(finalNotes);
+    auditFile.close();
+    auditFile = null;
+  }
+
+  /**
+   * Creates a new audit file named after the current time.
+   *
+   * @return the audit file.
+   * @throws FileNotFoundException If the file was not created successfully
+   */
+  private PrintWriter createAuditFile() throws FileNotFoundException {
     DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern("yyyy_MM_dd_HH_mm_ss");
     LocalDateTime currentTime = LocalDateTime.now();
     String filename = "IRAuditFile_".concat(dateFormat.format(currentTime)).concat(".txt");
 
     PrintWriter out = new PrintWriter(new File(filename));
-    out.print(auditString.toString());
-    out.print("\n");
-    out.print(finalNotes);
-    out.close();
+    auditFileName = filename;
+    return out;
   }
 
   /**
@@ -452,66 +947,162 @@ public class IR extends Election {
   }
 
   /**
-   * Helper Function that finds the number 1 ranked candidate given a ballot as
-   * a string.
-   * @param ballot the ballot in the form of a string
-   * @return the number 1 ranked candidate in the ballot
+   * Writes a ranking as a ballot written as parties, like "(p0)(p2)(p1)".
+   *
+   * @param ranking the candidate IDs in order of preference.
+   * @param length the length of the ranking, which can be shorter than the array.
+   * @return the ranking written as parties.
    */
-  private Candidate getCandidateFromBallot(String ballot) {
+  private String formatBallot(short[] ranking, int length) {
+    StringBuilder formattedBallot = new StringBuilder();
+    for (int i = 0; i < length; i++) {
+      formattedBallot.append(partyLabels[ranking[i]]);
+    }
+    return formattedBallot.toString();
+  }
 
-    StringBuilder partyString = new StringBuilder();
-    for (int i = 1; i < ballot.length(); i++) {
-      char c = ballot.charAt(i);
-      if (c == ')') {
-        break;
-      }
-      partyString.append(c);
+  /**
+   * Works out the hash code of the ballot a ranking is written as, without writing it.
+   *
+   * @param ranking the candidate IDs in order of preference.
+   * @param length the length of the ranking, which can be shorter than the array.
+   * @return the hash code of the ranking written as parties.
+   */
+  private int hashBallot(short[] ranking, int length) {
+    int hash = 0;
+    for (int i = 0; i < length; i++) {
+      hash = hash * partyLabelShifts[ranking[i]] + partyLabelHashes[ranking[i]];
+    }
+    return hash;
+  }
+
+  /**
+   * Counts the votes of the ballot a group's ranking is written as, which adds together the
+   * rankings written as the same ballot when candidates share a party.
+   *
+   * @param group the group.
+   * @param ranking the group's ranking.
+   * @param length the length of the ranking, which can be shorter than the array.
+   * @return the number of votes.
+   */
+  private long countBallot(int group, short[] ranking, int length) {
+    return partiesShared ? trie.countRankings(formatParties(ranking, length), partyOf)
+            : trie.getCount(group);
+  }
 
+  /**
+   * Gets the index of the party of each candidate in a ranking, which is what the ballot written
+   * as parties stands for.
+   *
+   * @param ranking the candidate IDs in order of preference.
+   * @param length the length of the ranking, which can be shorter than the array.
+   * @return the party indexes in order of preference.
+   */
+  private int[] formatParties(short[] ranking, int length) {
+    int[] parties = new int[length];
+    for (int i = 0; i < length; i++) {
+      parties[i] = partyOf[ranking[i]];
     }
-    for (Candidate candidate : candidates) {
-      if (candidate.getParty().equals(partyString.toString())) {
-        return candidate;
+    return parties;
+  }
+
+  /**
+   * Reads the ranking of a ballot written as parties, like "(p0)(p2)(p1)". The ballots are only
+   * read once, when the election is created, and are counted as candidate IDs from then on.
+   *
+   * @param ballot the ballot written as parties.
+   * @param candidateIDsByParty the candidate ID each party is read as.
+   * @return the candidate IDs of the ballot in order of preference.
+   * @throws IllegalArgumentException if the ballot is empty, not written as parties, or has a party
+   * that no candidate is from or that it ranks more than once.
+   */
+  private short[] parseBallot(String ballot, HashMap<String, Short> candidateIDsByParty)
+          throws IllegalArgumentException {
+    short[] ranking = new short[ballot.length()];
+    boolean[] ranked = new boolean[candidatesByID.length];
+    int length = 0;
+    int partyStart = 0;
+    while (partyStart < ballot.length()) {
+      int partyEnd = ballot.indexOf(')', partyStart);
+      if (ballot.charAt(partyStart) != '(' || partyEnd < 0) {
+        throw new IllegalArgumentException("Ballot " + ballot + " is not written as parties.");
+      }
+      String party = ballot.substring(partyStart + 1, partyEnd);
+      Short candidateID = candidateIDsByParty.get(party);
+      if (candidateID == null) {
+        throw new IllegalArgumentException("No candidate is from party " + party + ".");
       }
+      if (ranked[candidateID]) {
+        throw new IllegalArgumentException("Ballot " + ballot + " ranks party " + party + " twice.");
+      }
+      ranked[candidateID] = true;
+      ranking[length++] = candidateID;
+      partyStart = partyEnd + 1;
     }
-    return null;
+
+    if (length == 0) throw new IllegalArgumentException("A ballot must rank at least one candidate.");
+    return Arrays.copyOf(ranking, length);
   }
 
   /**
-   * This function is called by the constructor to initialize the current number of votes for
-   * each candidate based on the hashmap of ballots given as an input to the constructor
+   * Finds where a candidate is in a ranking.
+   *
+   * @param ranking the candidate IDs in order of preference.
+   * @param length the length of the ranking, which can be shorter than the array.
+   * @param candidateID the candidate ID to find.
+   * @return the index of the candidate in the ranking, or -1 if the ranking does not have it.
    */
-  private void setCandidateOriginalVotes() {
-    // reset all candidate votes to zero since we are recounting if not counted already
-    for (Candidate candidate: candidates) {
-      candidate.setCurNumVotes(0);
+  private static int indexOf(short[] ranking, int length, short candidateID) {
+    for (int i = 0; i < length; i++) {
+      if (ranking[i] == candidateID) {
+        return i;
+      }
     }
+    return -1;
+  }
 
-    // iterate through each element in hashmap
-    Iterator ballotsIterator = ballots.entrySet().iterator();
-    while (ballotsIterator.hasNext()) {
-      Map.Entry pair = (Map.Entry) ballotsIterator.next();
-      String ballotKey = pair.getKey().toString();
-      // find first choice candidate in hashmap
-      Candidate firstChoice = getCandidateFromBallot(ballotKey);
-      // increment first choice candidate
-      firstChoice.incrementCurNumVotes((int) pair.getValue());
+  /**
+   * This function is called by the constructor to initialize the current number of votes for
+   * each candidate based on the rankings of the ballots given as an input to the constructor
+   */
+  private void setCandidateOriginalVotes() {
+    // recount every candidate's votes from the first choice of each ranking
+    long[] firstChoices = trie.countFirstChoices();
+    for (int candidateID = 0; candidateID < candidatesByID.length; candidateID++) {
+      tally.setVotes(candidateID, firstChoices[candidateID]);
     }
 
   }
 
   /**
-   * Gets the array list containing the candidates currently in the election
+   * Gets the candidates currently in the election, in the order they were given to the election.
+   * The list is made from the candidate IDs left each time, so changing it doesn't change the
+   * election.
    * @return the candidate array list
    */
   public ArrayList<Candidate> getCandidates() {
+    ArrayList<Candidate> candidates = new ArrayList<>(candidatesLeft.cardinality());
+    for (int candidateID = candidatesLeft.nextSetBit(0); candidateID >= 0;
+         candidateID = candidatesLeft.nextSetBit(candidateID + 1)) {
+      candidates.add(candidatesByID[candidateID]);
+    }
     return candidates;
   }
 
   /**
-   * Gets the hashmap containing all of the ballots
-   * @return  the hashmap containing all of the ballots
+   * Gets the ballots left in the election written as parties, like "(p0)(p2)(p1)", and their
+   * current number of votes. The ballots are worked out from the rankings in the trie each time,
+   * in the order they are written to the audit, and rankings that are written as the same ballot
+   * are added together.
+   * @return  a new hashmap containing all of the ballots
    */
-  public HashMap<String, Integer> getBallots() {
+  public HashMap<String, Long> getBallots() {
+    LinkedHashMap<String, Long> ballots = new LinkedHashMap<>();
+    short[] ranking = new short[candidatesByID.length];
+    for (int group : findBallotsInOrder()) {
+      int length = trie.getRanking(group, ranking);
+      ballots.put(formatBallot(ranking, length), countBallot(group, ranking, length));
+    }
     return ballots;
   }
 
@@ -519,10 +1110,72 @@ public class IR extends Election {
    * Gets the current total Number of Votes in the election
    * @return the total number of votes
    */
-  public int getTotalCounts() {
+  public long getTotalCounts() {
     return totalCounts;
   }
 
+  /**
+   * Sets whether every candidate that can no longer win is eliminated in the same round. The
+   * winner is the same either way, but fewer rounds are counted and written to the audit file.
+   *
+   * @param bulkExclusion true to eliminate the candidates together, false to eliminate one
+   * candidate per round.
+   */
+  public void setBulkExclusion(boolean bulkExclusion) {
+    this.bulkExclusion = bulkExclusion;
+  }
+
+  /**
+   * Sets whether the election stops as soon as the leader can no longer lose. The winner is the
+   * same either way, but the rounds that can't change the winner are only counted and written to
+   * the audit file when this is off.
+   *
+   * @param earlyTermination true to stop once the leader can no longer lose, false to count rounds
+   * until a candidate has a majority.
+   */
+  public void setEarlyTermination(boolean earlyTermination) {
+    this.earlyTermination = earlyTermination;
+  }
+
+  /**
+   * Sets whether the audit file only has the ballots that changed in each round after the first.
+   * The first round and everything after the ballots is written the same either way.
+   *
+   * @param deltaAudit true to only write the ballots that changed, false to write every ballot in
+   * every round.
+   */
+  public void setDeltaAudit(boolean deltaAudit) {
+    this.deltaAudit = deltaAudit;
+  }
+
+  /**
+   * Gets the number of rounds that were not needed because candidates were eliminated together.
+   * @return the number of rounds saved by bulk exclusion
+   */
+  public int getRoundsSaved() {
+    return roundsSaved;
+  }
+
+  /**
+   * Sets the number of trie nodes an eliminated candidate needs before they are spliced out in
+   * shards that run in parallel. The results are the same either way.
+   *
+   * @param threshold the number of nodes, or Integer.MAX_VALUE to never split rounds.
+   * @throws IllegalArgumentException if the threshold is nonpositive.
+   */
+  public void setParallelThreshold(int threshold) throws IllegalArgumentException {
+    if (threshold <= 0) throw new IllegalArgumentException("The threshold must be positive.");
+    this.parallelThreshold = threshold;
+  }
+
+  /**
+   * Returns the name of the audit file. Will be null before the algorithm is run.
+   * @return The name of the IR audit file.
+   */
+  public String getAuditFileName() {
+    return auditFileName;
+  }
+
   /**
    * Returns the winner of the election. Will be null before the algorithm is run.
    * @return The winner of the IR election.
@@ -530,6 +1183,4 @@ public class IR extends Election {
   public Candidate getWinner() {
     return winner;
   }
-
 }
-
@@ -0,0 +1,183 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Parses the ballots of an IR election file byte by byte. The rank digits are parsed in place and
+ * each ballot is turned into a ranking of candidate IDs that is counted in a BallotGroups, so no
+ * Strings are created for valid ballots.
+ */
+public class IRBallotParser extends BallotParser {
+
+  /**
+   * The number of candidates in the election.
+   */
+  private final int numberOfCandidates;
+
+  /**
+   * The number of candidates a ballot has to rank to be valid.
+   */
+  private final int halfCandidates;
+
+  /**
+   * The candidate ID at each preference of the ballot being parsed, or -1 if no candidate has
+   * that preference.
+   */
+  private final short[] preferences;
+
+  /**
+   * The ranking of the ballot being parsed with the unused preferences removed.
+   */
+  private final short[] ranking;
+
+  /**
+   * The valid ballots parsed so far.
+   */
+  private final BallotGroups ballotGroups;
+
+  /**
+   * The ballots that did not rank enough candidates, in the order they were parsed.
+   */
+  private final ArrayList<String> invalidBallots;
+
+  /**
+   * The number of valid ballots parsed so far.
+   */
+  private long numberOfBallots;
+
+  /**
+   * Constructor initializes a parser for an election with the given number of candidates.
+   *
+   * @param numberOfCandidates the number of candidates in the election.
+   * @throws IllegalArgumentException if numberOfCandidates is negative.
+   */
+  public IRBallotParser(int numberOfCandidates) throws IllegalArgumentException {
+    if (numberOfCandidates < 0) throw new IllegalArgumentException("Number of candidates cannot be negative.");
+
+    this.numberOfCandidates = numberOfCandidates;
+    halfCandidates = (numberOfCandidates + 1) / 2;
+    preferences = new short[numberOfCandidates];
+    Arrays.fill(preferences, (short) -1);
+    ranking = new short[numberOfCandidates];
+    ballotGroups = new BallotGroups();
+    invalidBallots = new ArrayList<>();
+    numberOfBallots = 0;
+  }
+
+  /**
+   * Parses a single ballot. The ballot is counted in ballotGroups if it ranks at least half of the
+   * candidates, otherwise it is added to invalidBallots.
+   *
+   * @param buffer the buffer holding the ballot.
+   * @param start the index of the first byte of the ballot.
+   * @param end the index right after the last byte of the ballot (not including the newline).
+   * @throws IOException if a rank of a valid ballot is not a number between 1 and the number of
+   *                     candidates.
+   */
+  @Override
+  protected void parseBallot(ByteBuffer buffer, int start, int end) throws IOException {
+    if (end > start && buffer.get(end - 1) == '\r') {
+      end--; // ignore windows line endings
+    }
+
+    int candidate = 0;            // the column of the rank being parsed
+    int numCandidatesRanked = 0;
+    int rank = 0;
+    boolean emptyRank = true;
+    boolean malformed = false;
+    for (int i = start; i <= end; i++) {
+      byte current = i < end ? buffer.get(i) : (byte) ',';
+      if (current == ',') {
+        if (!emptyRank) {
+          numCandidatesRanked++;
+          if (candidate < numberOfCandidates) {
+            if (rank < 1 || rank > numberOfCandidates) {
+              malformed = true;
+            } else {
+              preferences[rank - 1] = (short) candidate;
+            }
+          }
+        }
+        candidate++;
+        rank = 0;
+        emptyRank = true;
+      } else {
+        emptyRank = false;
+        if (current >= '0' && current <= '9') {
+          // stop growing once the rank is too large so it can't overflow
+          rank = Math.min(rank * 10 + (current - '0'), numberOfCandidates + 1);
+        } else {
+          malformed = true;
+        }
+      }
+    }
+
+    // remove the unused preferences (and reset them for the next ballot)
+    int length = 0;
+    for (int i = 0; i < numberOfCandidates; i++) {
+      if (preferences[i] != -1) {
+        ranking[length++] = preferences[i];
+        preferences[i] = -1;
+      }
+    }
+
+    //Checks if the ballot has at least half of the candidates ranked, ignores ballot if it does not.
+    if (numCandidatesRanked < halfCandidates) {
+      byte[] ballot = new byte[end - start];
+      for (int i = start; i < end; i++) {
+        ballot[i - start] = buffer.get(i);
+      }
+      invalidBallots.add(new String(ballot, StandardCharsets.UTF_8));
+      return;
+    }
+    if (malformed) {
+      throw new IOException("A ballot has an invalid rank.");
+    }
+
+    ballotGroups.add(ranking, length, 1);
+    numberOfBallots++;
+  }
+
+  /**
+   * Adds the ballots parsed by another IR parser after the ballots parsed by this parser.
+   *
+   * @param other an IR parser that parsed the ballots following this parser's.
+   */
+  @Override
+  protected void merge(BallotParser other) {
+    IRBallotParser otherIR = (IRBallotParser) other;
+    ballotGroups.addAll(otherIR.ballotGroups);
+    invalidBallots.addAll(otherIR.invalidBallots);
+    numberOfBallots += otherIR.numberOfBallots;
+    linesParsed += otherIR.linesParsed;
+  }
+
+  /**
+   * Gets the valid ballots parsed so far grouped by their rankings.
+   *
+   * @return the groups of valid ballots.
+   */
+  public BallotGroups getBallotGroups() {
+    return ballotGroups;
+  }
+
+  /**
+   * Gets the ballots that did not rank enough candidates, in the order they were parsed.
+   *
+   * @return the invalid ballots.
+   */
+  public ArrayList<String> getInvalidBallots() {
+    return invalidBallots;
+  }
+
+  /**
+   * Gets the number of valid ballots parsed so far.
+   *
+   * @return number of valid ballots.
+   */
+  public long getNumberOfBallots() {
+    return numberOfBallots;
+  }
+}
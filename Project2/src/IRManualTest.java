@@ -40,11 +40,11 @@ public class IRManualTest {
             int[] votes = new int[]{0, 0, 0, 0};
 
             ArrayList<Candidate> candidates = IRTestHelpers.createBasicCandidateInstance(votes);
-            HashMap<String, Integer> ballots = new HashMap<String, Integer>();
-            ballots.put("(p0)", 10);
-            ballots.put("(p1)", 10);
-            ballots.put("(p2)", 10);
-            ballots.put("(p3)", 10);
+            HashMap<String, Long> ballots = new HashMap<String, Long>();
+            ballots.put("(p0)", 10L);
+            ballots.put("(p1)", 10L);
+            ballots.put("(p2)", 10L);
+            ballots.put("(p3)", 10L);
 
             IR ir = new IR(ballots, candidates, totalNumBallots);
             ir.runVotingAlgorithm();
@@ -4,7 +4,10 @@ import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -265,6 +268,23 @@ public class IRSystemTest {
         assertTrue(IRTestHelpers.checkFileIsEmpty(invalidatedName));
     }
 
+    /**
+     * Tests that the audit file of a 100000 ballot csv, which is written to the file as each round
+     * is counted, is byte for byte the same as the expected audit, including its line endings.
+     */
+    @Test
+    public void bigIRAuditBytesTest() throws IOException {
+        String[] args = new String[]{"testing/testFiles/bigRandomIR.csv"};
+        Eligere.main(args);
+
+        String auditName = IRTestHelpers.findAuditAndMedia()[1];
+        assertNotNull(auditName);
+
+        byte[] expectedAudit = Files.readAllBytes(Paths.get("testing/ExampleIRFiles/ExpectedBigIRAudit.txt"));
+        byte[] actualAudit = Files.readAllBytes(Paths.get(auditName));
+        assertArrayEquals(expectedAudit, actualAudit);
+    }
+
     /**
      * Tests a csv where two candidates tie for most votes.
      */
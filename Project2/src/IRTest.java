@@ -2,9 +2,18 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -64,8 +73,8 @@ public class IRTest {
 
         int[] votes = new int[]{20};
         ArrayList<Candidate> candidates = IRTestHelpers.createBasicCandidateInstance(votes);
-        HashMap<String, Integer> ballots = new HashMap<String, Integer>();
-        ballots.put("(p0)", 20);
+        HashMap<String, Long> ballots = new HashMap<String, Long>();
+        ballots.put("(p0)", 20L);
 
         IR correctIR = new IR(ballots, candidates, totalNumBallots);
 
@@ -74,6 +83,216 @@ public class IRTest {
         assertEquals(ballots, correctIR.getBallots());
     }
 
+    /**
+     * Tests that the votes of candidates from the same party are kept apart when the election is
+     * created from rankings of candidate IDs, even though their ballots are written the same way.
+     */
+    @Test
+    public void testCandidatesSharingParty() {
+        ArrayList<Candidate> candidates = new ArrayList<>();
+        candidates.add(new Candidate("c0", "p0", 0));
+        candidates.add(new Candidate("c1", "p1", 1));
+        candidates.add(new Candidate("c2", "p0", 2));
+        BallotGroups ballotGroups = new BallotGroups();
+        ballotGroups.add(new short[]{0, 1}, 2, 4);
+        ballotGroups.add(new short[]{2, 1}, 2, 3);
+        ballotGroups.add(new short[]{1}, 1, 5);
+
+        IR ir = new IR(candidates, ballotGroups, 12);
+        HashMap<String, Long> ballots = new HashMap<>();
+        ballots.put("(p0)(p1)", 7L);
+        ballots.put("(p1)", 5L);
+        assertEquals(ballots, ir.getBallots());
+        assertEquals(4, candidates.get(0).getCurNumVotes());
+        assertEquals(5, candidates.get(1).getCurNumVotes());
+        assertEquals(3, candidates.get(2).getCurNumVotes());
+
+        // c2 is eliminated, and only c2's votes move to c1
+        ir.runVotingAlgorithm();
+        assertEquals("c1", ir.getWinner().getName());
+        assertEquals(8, ir.getWinner().getCurNumVotes());
+        // the candidates given to the election are left as they were
+        assertEquals(3, candidates.size());
+        assertEquals(List.of(candidates.get(0), candidates.get(1)), ir.getCandidates());
+        ballots.clear();
+        ballots.put("(p0)(p1)", 4L);
+        ballots.put("(p1)", 8L);
+        assertEquals(ballots, ir.getBallots());
+    }
+
+    /**
+     * Tests that votes moving from an eliminated candidate skip over the candidates that were
+     * eliminated before, and that votes with no candidates left leave the election.
+     */
+    @Test
+    public void testSkipsEliminatedCandidates() {
+        ArrayList<Candidate> candidates = new ArrayList<>();
+        candidates.add(new Candidate("a", "pa", 0));
+        candidates.add(new Candidate("b", "pb", 1));
+        candidates.add(new Candidate("c", "pc", 2));
+        candidates.add(new Candidate("d", "pd", 3));
+        HashMap<String, Long> ballots = new HashMap<>();
+        ballots.put("(pa)(pb)(pc)", 3L);
+        ballots.put("(pb)", 2L);
+        ballots.put("(pc)", 4L);
+        ballots.put("(pd)", 5L);
+
+        // b is eliminated first, then a's votes skip b and go to c
+        IR ir = new IR(ballots, candidates, 14);
+        ir.runVotingAlgorithm();
+        assertEquals("c", ir.getWinner().getName());
+        assertEquals(7, ir.getWinner().getCurNumVotes());
+        assertEquals(12, ir.getTotalCounts());
+        HashMap<String, Long> expectedBallots = new HashMap<>();
+        expectedBallots.put("(pc)", 7L);
+        expectedBallots.put("(pd)", 5L);
+        assertEquals(expectedBallots, ir.getBallots());
+    }
+
+    /**
+     * Creates an election where a, b, and c together have fewer votes than e, so none of them
+     * can win.
+     *
+     * @return the IR election.
+     */
+    private IR createBulkExclusionElection() {
+        ArrayList<Candidate> candidates = new ArrayList<>();
+        candidates.add(new Candidate("a", "pa", 0));
+        candidates.add(new Candidate("b", "pb", 1));
+        candidates.add(new Candidate("c", "pc", 2));
+        candidates.add(new Candidate("d", "pd", 3));
+        candidates.add(new Candidate("e", "pe", 4));
+        HashMap<String, Long> ballots = new HashMap<>();
+        ballots.put("(pa)(pe)", 1L);
+        ballots.put("(pb)(pe)", 2L);
+        ballots.put("(pc)(pd)", 4L);
+        ballots.put("(pd)", 10L);
+        ballots.put("(pe)", 9L);
+        return new IR(ballots, candidates, 26);
+    }
+
+    /**
+     * Tests that the candidates that can no longer win are eliminated in one round, with the same
+     * winner as eliminating them one per round.
+     */
+    @Test
+    public void testBulkExclusion() {
+        IR ir = createBulkExclusionElection();
+        ir.setBulkExclusion(false);
+        ir.runVotingAlgorithm();
+        assertEquals("d", ir.getWinner().getName());
+        assertEquals(0, ir.getRoundsSaved());
+
+        systemOut.reset();
+        ir = createBulkExclusionElection();
+        ir.setBulkExclusion(true);
+        ir.runVotingAlgorithm();
+        assertEquals("d", ir.getWinner().getName());
+        assertEquals(14, ir.getWinner().getCurNumVotes());
+        assertEquals(2, ir.getRoundsSaved());
+        assertTrue(systemOut.toString().contains("2nd Count (Bulk exclusion, transfer of a, b and c's votes)"));
+        assertTrue(systemOut.toString().contains("Bulk exclusion saved 2 rounds of counting."));
+    }
+
+    /**
+     * Creates an election where a leads without a majority, and c's ballots either go to a or to b.
+     *
+     * @param cVotesToB the number of c's ballots that rank b next instead of a.
+     * @return the IR election.
+     */
+    private IR createEarlyTerminationElection(long cVotesToB) {
+        ArrayList<Candidate> candidates = new ArrayList<>();
+        candidates.add(new Candidate("a", "pa", 0));
+        candidates.add(new Candidate("b", "pb", 1));
+        candidates.add(new Candidate("c", "pc", 2));
+        candidates.add(new Candidate("d", "pd", 3));
+        HashMap<String, Long> ballots = new HashMap<>();
+        ballots.put("(pa)", 5L);
+        ballots.put("(pb)", 3L);
+        ballots.put("(pc)(pa)", 2L - cVotesToB);
+        ballots.put("(pc)(pb)", cVotesToB);
+        ballots.put("(pd)", 1L);
+        ballots.values().removeIf(votes -> votes == 0);
+        IR ir = new IR(ballots, candidates, 11);
+        ir.setEarlyTermination(true);
+        return ir;
+    }
+
+    /**
+     * Tests that the election stops once the leader can no longer lose, and only then, with the same
+     * winner as counting every round.
+     */
+    @Test
+    public void testEarlyTermination() throws IOException {
+        IR ir = createEarlyTerminationElection(0);
+        ir.runVotingAlgorithm();
+        assertEquals("a", ir.getWinner().getName());
+        String audit = Files.readString(Path.of(ir.getAuditFileName()));
+        assertFalse(audit.contains("2nd Count"));
+        assertTrue(audit.contains("a (pa) has won the election with 45.454548% of the remaining votes.\n"));
+        assertTrue(audit.contains("Counting stopped early because a can no longer lose. a has 5 votes, "
+                + "and no other candidate can get more than 3 votes in the rounds left.\n"));
+
+        // two of c's ballots could go to b, which could tie a
+        ir = createEarlyTerminationElection(2);
+        ir.runVotingAlgorithm();
+        audit = Files.readString(Path.of(ir.getAuditFileName()));
+        assertTrue(audit.contains("2nd Count"));
+        assertFalse(audit.contains("Counting stopped early"));
+
+        ir = createEarlyTerminationElection(0);
+        ir.setEarlyTermination(false);
+        ir.runVotingAlgorithm();
+        assertEquals("a", ir.getWinner().getName());
+        assertEquals(7, ir.getWinner().getCurNumVotes());
+        audit = Files.readString(Path.of(ir.getAuditFileName()));
+        assertTrue(audit.contains("3rd Count"));
+        assertFalse(audit.contains("Counting stopped early"));
+    }
+
+    /**
+     * Tests that splitting every round into shards that are redistributed in parallel gives the
+     * same audit and ballots as redistributing the rounds on one thread.
+     */
+    @Test
+    public void testParallelRedistribution() throws IOException {
+        String[] files = {"testing/testFiles/bigRandomIR.csv"};
+        IR oneThread = (IR) CreateElection.createElection(files);
+        oneThread.setParallelThreshold(Integer.MAX_VALUE);
+        oneThread.runVotingAlgorithm();
+        // read the audit before the next election can write over a file with the same name
+        String oneThreadAudit = Files.readString(Path.of(oneThread.getAuditFileName()));
+
+        IR parallel = (IR) CreateElection.createElection(files);
+        parallel.setParallelThreshold(1);
+        parallel.runVotingAlgorithm();
+
+        assertEquals(oneThreadAudit, Files.readString(Path.of(parallel.getAuditFileName())));
+        assertEquals(new ArrayList<>(oneThread.getBallots().entrySet()),
+                new ArrayList<>(parallel.getBallots().entrySet()));
+        assertEquals(oneThread.getTotalCounts(), parallel.getTotalCounts());
+        assertThrows(IllegalArgumentException.class, () -> parallel.setParallelThreshold(0));
+    }
+
+    /**
+     * Tests that the audit is written to the audit file as the rounds are counted, so none of it is
+     * left in memory once the audit file is finished.
+     */
+    @Test
+    public void testAuditStreamedToFile() throws IOException {
+        IR ir = createBulkExclusionElection();
+        assertNull(ir.getAuditFileName());
+        assertTrue(ir.auditString.toString().startsWith("Election Type: Instant Runoff\n"));
+
+        ir.runVotingAlgorithm();
+        assertEquals(0, ir.auditString.length());
+        String audit = Files.readString(Path.of(ir.getAuditFileName()));
+        assertTrue(audit.startsWith("Election Type: Instant Runoff\nNumber of candidates: 5\n"));
+        assertTrue(audit.contains("Original Distribution (i.e., 1st count):\n"));
+        assertTrue(audit.contains("Distribution after 4th Count:\n(pd): 14\n(pe): 12\n"));
+        assertTrue(audit.endsWith("No ties occurred in this election."));
+    }
+
     /**
      * Tests Constructor when inputted Null parameters.
      */
@@ -83,8 +302,8 @@ public class IRTest {
         int[] votes = new int[]{10, 20, 30, 40, 5420};
 
         ArrayList<Candidate> candidates = IRTestHelpers.createBasicCandidateInstance(votes);
-        HashMap<String, Integer> ballots = new HashMap<String, Integer>();
-        ballots.put("c0", 20);
+        HashMap<String, Long> ballots = new HashMap<String, Long>();
+        ballots.put("c0", 20L);
 
 
         try {
@@ -112,12 +331,12 @@ public class IRTest {
         int[] votes = new int[]{10, 20, 30, 40, 50};
 
         ArrayList<Candidate> candidates = IRTestHelpers.createBasicCandidateInstance(votes);
-        HashMap<String, Integer> ballots = new HashMap<String, Integer>();
-        ballots.put("c0", 20);
+        HashMap<String, Long> ballots = new HashMap<String, Long>();
+        ballots.put("c0", 20L);
 
         votes = new int[]{};
         ArrayList<Candidate> emptyCandidates = IRTestHelpers.createBasicCandidateInstance(votes);
-        HashMap<String, Integer> emptyBallots = new HashMap<String, Integer>();
+        HashMap<String, Long> emptyBallots = new HashMap<String, Long>();
 
         try {
             IR invalidBallot = new IR(emptyBallots, candidates, totalNumBallots);
@@ -144,8 +363,8 @@ public class IRTest {
         int[] votes = new int[]{10, 20, 30, 40, 50};
 
         ArrayList<Candidate> candidates = IRTestHelpers.createBasicCandidateInstance(votes);
-        HashMap<String, Integer> ballots = new HashMap<String, Integer>();
-        ballots.put("c0", 20);
+        HashMap<String, Long> ballots = new HashMap<String, Long>();
+        ballots.put("c0", 20L);
 
         try {
             IR invalidTotal = new IR(ballots, candidates, totalNumBallots);
@@ -168,11 +387,11 @@ public class IRTest {
         int[] votes = new int[]{10, 20, 30, 40};
         ArrayList<Candidate> candidates = IRTestHelpers.createBasicCandidateInstance(votes);
         int totalNumBallots = 100;
-        HashMap<String, Integer> ballots = new HashMap<String, Integer>();
-        ballots.put("(p0)(p2)(p1)", 10);
-        ballots.put("(p1)(p3)(p2)", 20);
-        ballots.put("(p2)(p1)(p3)", 30);
-        ballots.put("(p3)(p1)(p2)", 40);
+        HashMap<String, Long> ballots = new HashMap<String, Long>();
+        ballots.put("(p0)(p2)(p1)", 10L);
+        ballots.put("(p1)(p3)(p2)", 20L);
+        ballots.put("(p2)(p1)(p3)", 30L);
+        ballots.put("(p3)(p1)(p2)", 40L);
 
         // create election
         IR ir = new IR(ballots, candidates, totalNumBallots);
@@ -207,13 +426,13 @@ public class IRTest {
         int[] votes = new int[]{10, 20, 30, 70};
         ArrayList<Candidate> candidates = IRTestHelpers.createBasicCandidateInstance(votes);
         int totalNumBallots = 130;
-        HashMap<String, Integer> ballots = new HashMap<String, Integer>();
-        ballots.put("(p0)(p2)(p1)", 10);
-        ballots.put("(p1)(p3)(p2)", 20);
-        ballots.put("(p2)(p1)(p3)", 30);
-        ballots.put("(p3)(p1)(p2)", 70);
+        HashMap<String, Long> ballots = new HashMap<String, Long>();
+        ballots.put("(p0)(p2)(p1)", 10L);
+        ballots.put("(p1)(p3)(p2)", 20L);
+        ballots.put("(p2)(p1)(p3)", 30L);
+        ballots.put("(p3)(p1)(p2)", 70L);
 
-        HashMap<String, Integer> ballotsCopy = (HashMap<String, Integer>) ballots.clone();
+        HashMap<String, Long> ballotsCopy = (HashMap<String, Long>) ballots.clone();
 
         // create election
         IR ir = new IR(ballots, candidates, totalNumBallots);
@@ -237,13 +456,13 @@ public class IRTest {
         int[] votes = new int[]{10, 20, 30, 60};
         ArrayList<Candidate> candidates = IRTestHelpers.createBasicCandidateInstance(votes);
         int totalNumBallots = 120;
-        HashMap<String, Integer> ballots = new HashMap<String, Integer>();
-        ballots.put("(p0)(p2)(p1)", 10);
-        ballots.put("(p1)(p3)(p2)", 20);
-        ballots.put("(p2)(p1)(p3)", 30);
-        ballots.put("(p3)(p1)(p2)", 60);
+        HashMap<String, Long> ballots = new HashMap<String, Long>();
+        ballots.put("(p0)(p2)(p1)", 10L);
+        ballots.put("(p1)(p3)(p2)", 20L);
+        ballots.put("(p2)(p1)(p3)", 30L);
+        ballots.put("(p3)(p1)(p2)", 60L);
 
-        HashMap<String, Integer> ballotsCopy = (HashMap<String, Integer>) ballots.clone();
+        HashMap<String, Long> ballotsCopy = (HashMap<String, Long>) ballots.clone();
 
         // create election
         IR ir = new IR(ballots, candidates, totalNumBallots);
@@ -252,7 +471,7 @@ public class IRTest {
         ir.runVotingAlgorithm();
 
         //check for early termination
-        assertFalse(ballots.equals(ballotsCopy));
+        assertFalse(ir.getBallots().equals(ballotsCopy));
 
     }
 
@@ -267,11 +486,11 @@ public class IRTest {
         int[] votes = new int[]{10, 10};
         ArrayList<Candidate> candidates = IRTestHelpers.createBasicCandidateInstance(votes);
         int totalNumBallots = 20;
-        HashMap<String, Integer> ballots = new HashMap<String, Integer>();
-        ballots.put("(p0)", 10);
-        ballots.put("(p1)", 10);
+        HashMap<String, Long> ballots = new HashMap<String, Long>();
+        ballots.put("(p0)", 10L);
+        ballots.put("(p1)", 10L);
 
-        HashMap<String, Integer> ballotsCopy = (HashMap<String, Integer>) ballots.clone();
+        HashMap<String, Long> ballotsCopy = (HashMap<String, Long>) ballots.clone();
 
         // create election
         IR ir = new IR(ballots, candidates, totalNumBallots);
@@ -280,7 +499,7 @@ public class IRTest {
         ir.runVotingAlgorithm();
 
         //check for early termination
-        assertTrue(ballots.equals(ballotsCopy));
+        assertTrue(ir.getBallots().equals(ballotsCopy));
     }
 
     /**
@@ -293,19 +512,19 @@ public class IRTest {
         int[] votes = new int[] {10, 15, 30, 20};
         ArrayList<Candidate> candidates = IRTestHelpers.createBasicCandidateInstance(votes);
         int totalNumBallots = 120;
-        HashMap<String, Integer> ballots = new HashMap<String, Integer>();
-        ballots.put("(p0)", 10);
-        ballots.put("(p1)(p2)(p0)", 10);
-        ballots.put("(p3)(p2)", 20);
-        ballots.put("(p2)(p1)(p0)", 10);
-        ballots.put("(p1)(p2)", 5);
-        ballots.put("(p2)(p1)(p3)", 20);
+        HashMap<String, Long> ballots = new HashMap<String, Long>();
+        ballots.put("(p0)", 10L);
+        ballots.put("(p1)(p2)(p0)", 10L);
+        ballots.put("(p3)(p2)", 20L);
+        ballots.put("(p2)(p1)(p0)", 10L);
+        ballots.put("(p1)(p2)", 5L);
+        ballots.put("(p2)(p1)(p3)", 20L);
 
         // expected ballots after the election is run
-        HashMap<String, Integer> expectedBallots = new HashMap<>();
-        expectedBallots.put("(p2)", 25);
-        expectedBallots.put("(p3)(p2)", 20);
-        expectedBallots.put("(p2)(p3)", 20);
+        HashMap<String, Long> expectedBallots = new HashMap<>();
+        expectedBallots.put("(p2)", 25L);
+        expectedBallots.put("(p3)(p2)", 20L);
+        expectedBallots.put("(p2)(p3)", 20L);
 
         // create election
         IR ir = new IR(ballots, candidates, totalNumBallots);
@@ -314,7 +533,72 @@ public class IRTest {
         ir.runVotingAlgorithm();
 
         // check that the expected ballots is equal to the ballots after running the algorithm
-        assertEquals(expectedBallots, ballots);
+        assertEquals(expectedBallots, ir.getBallots());
+    }
+
+    /**
+     * Tests that every round of the audit lists the ballots in the same order as the hashmap of
+     * ballots did when each round went through every ballot, even though only the rankings with the
+     * eliminated candidate are visited now. The hashmap is changed here the way it was then.
+     */
+    @Test
+    public void checkAuditBallotOrderAfterEliminations() throws IOException {
+        // create election parts, with enough distinct ballots that the hashmap grows
+        int numCandidates = 9;
+        ArrayList<Candidate> candidates = new ArrayList<>();
+        List<Integer> candidateIDs = new ArrayList<>();
+        for (int i = 0; i < numCandidates; i++) {
+            candidates.add(new Candidate("c" + i, "p" + i, i));
+            candidateIDs.add(i);
+        }
+        Random random = new Random(11);
+        HashMap<String, Long> ballots = new HashMap<>();
+        int totalNumBallots = 3000;
+        for (int i = 0; i < totalNumBallots; i++) {
+            Collections.shuffle(candidateIDs, random);
+            StringBuilder ballot = new StringBuilder();
+            for (int rank = 0; rank <= random.nextInt(4); rank++) {
+                ballot.append("(p").append(candidateIDs.get(rank)).append(")");
+            }
+            ballots.merge(ballot.toString(), 1L, Long::sum);
+        }
+
+        // the election doesn't change the hashmap it is given
+        IR ir = new IR(ballots, candidates, totalNumBallots);
+        ir.runVotingAlgorithm();
+        DeltaAuditReader audit = new DeltaAuditReader(ir.getAuditFileName());
+        Matcher eliminated = Pattern.compile("Transfer of c(\\d+)'s votes")
+                .matcher(Files.readString(Path.of(ir.getAuditFileName())));
+        assertTrue(audit.getNumRounds() > 3);
+
+        for (int round = 1; round <= audit.getNumRounds(); round++) {
+            if (round > 1) {
+                assertTrue(eliminated.find());
+                String party = "(p" + eliminated.group(1) + ")";
+                ArrayList<String> willBeRemoved = new ArrayList<>();
+                ArrayList<Map.Entry<String, Long>> willBeAdded = new ArrayList<>();
+                for (Map.Entry<String, Long> ballot : ballots.entrySet()) {
+                    if (ballot.getKey().contains(party)) {
+                        String replacement = ballot.getKey().replace(party, "");
+                        if (ballots.containsKey(replacement)) {
+                            ballots.put(replacement, ballots.get(replacement) + ballot.getValue());
+                        } else if (!replacement.isEmpty()) {
+                            willBeAdded.add(Map.entry(replacement, ballot.getValue()));
+                        }
+                        willBeRemoved.add(ballot.getKey());
+                    }
+                }
+                for (Map.Entry<String, Long> ballot : willBeAdded) {
+                    ballots.put(ballot.getKey(), ballots.getOrDefault(ballot.getKey(), 0L)
+                            + ballot.getValue());
+                }
+                for (String ballot : willBeRemoved) {
+                    ballots.remove(ballot);
+                }
+            }
+            assertEquals(new ArrayList<>(ballots.entrySet()),
+                    new ArrayList<>(audit.getDistribution(round).entrySet()));
+        }
     }
 
     /**
@@ -327,13 +611,13 @@ public class IRTest {
         int[] votes = new int[] {10, 15, 30, 20};
         ArrayList<Candidate> candidates = IRTestHelpers.createBasicCandidateInstance(votes);
         int totalNumBallots = 75;
-        HashMap<String, Integer> ballots = new HashMap<String, Integer>();
-        ballots.put("(p0)", 10);
-        ballots.put("(p1)(p2)(p0)", 10);
-        ballots.put("(p3)(p2)", 20);
-        ballots.put("(p2)(p1)(p0)", 10);
-        ballots.put("(p1)(p2)", 5);
-        ballots.put("(p2)(p1)(p3)", 20);
+        HashMap<String, Long> ballots = new HashMap<String, Long>();
+        ballots.put("(p0)", 10L);
+        ballots.put("(p1)(p2)(p0)", 10L);
+        ballots.put("(p3)(p2)", 20L);
+        ballots.put("(p2)(p1)(p0)", 10L);
+        ballots.put("(p1)(p2)", 5L);
+        ballots.put("(p2)(p1)(p3)", 20L);
 
         Candidate expectedWinner = candidates.get(2);
 
@@ -357,8 +641,8 @@ public class IRTest {
         int[] votes = new int[] {10};
         ArrayList<Candidate> candidates = IRTestHelpers.createBasicCandidateInstance(votes);
         int totalNumBallots = 10;
-        HashMap<String, Integer> ballots = new HashMap<String, Integer>();
-        ballots.put("(p0)", 10);
+        HashMap<String, Long> ballots = new HashMap<String, Long>();
+        ballots.put("(p0)", 10L);
 
         Candidate expectedWinner = candidates.get(0);
 
@@ -387,13 +671,13 @@ public class IRTest {
         int[] votes = new int[] {10, 15, 30, 20};
         ArrayList<Candidate> candidates = IRTestHelpers.createBasicCandidateInstance(votes);
         int totalNumBallots = 75;
-        HashMap<String, Integer> ballots = new HashMap<String, Integer>();
-        ballots.put("(p0)", 10);
-        ballots.put("(p1)(p2)(p0)", 10);
-        ballots.put("(p3)(p2)", 20);
-        ballots.put("(p2)(p1)(p0)", 10);
-        ballots.put("(p1)(p2)", 5);
-        ballots.put("(p2)(p1)(p3)", 20);
+        HashMap<String, Long> ballots = new HashMap<String, Long>();
+        ballots.put("(p0)", 10L);
+        ballots.put("(p1)(p2)(p0)", 10L);
+        ballots.put("(p3)(p2)", 20L);
+        ballots.put("(p2)(p1)(p0)", 10L);
+        ballots.put("(p1)(p2)", 5L);
+        ballots.put("(p2)(p1)(p3)", 20L);
 
         // create election
         IR ir = new IR(ballots, candidates, totalNumBallots);
@@ -470,18 +754,18 @@ public class IRTest {
             int[] votes = new int[] {33, 35, 40, 45};
             ArrayList<Candidate> candidates = IRTestHelpers.createBasicCandidateInstance(votes);
             int totalNumBallots = 153;
-            HashMap<String, Integer> ballots = new HashMap<String, Integer>();
-            ballots.put("(p0)(p1)(p3)", 15);
-            ballots.put("(p0)", 3);
-            ballots.put("(p0)(p2)", 5);
-            ballots.put("(p0)(p2)(p1)(p3)", 5);
-            ballots.put("(p0)(p3)(p1)", 5);
-            ballots.put("(p1)(p2)(p0)", 20);
-            ballots.put("(p1)(p2)", 15);
-            ballots.put("(p2)(p1)(p0)", 20);;
-            ballots.put("(p2)(p1)(p3)", 20);
-            ballots.put("(p3)(p2)", 25);
-            ballots.put("(p3)", 20);
+            HashMap<String, Long> ballots = new HashMap<String, Long>();
+            ballots.put("(p0)(p1)(p3)", 15L);
+            ballots.put("(p0)", 3L);
+            ballots.put("(p0)(p2)", 5L);
+            ballots.put("(p0)(p2)(p1)(p3)", 5L);
+            ballots.put("(p0)(p3)(p1)", 5L);
+            ballots.put("(p1)(p2)(p0)", 20L);
+            ballots.put("(p1)(p2)", 15L);
+            ballots.put("(p2)(p1)(p0)", 20L);;
+            ballots.put("(p2)(p1)(p3)", 20L);
+            ballots.put("(p3)(p2)", 25L);
+            ballots.put("(p3)", 20L);
 
             // create election
             IR ir = new IR(ballots, candidates, totalNumBallots);
@@ -558,20 +842,20 @@ public class IRTest {
             int[] votes = new int[] {33, 34, 40, 40};
             ArrayList<Candidate> candidates = IRTestHelpers.createBasicCandidateInstance(votes);
             int totalNumBallots = 147;
-            HashMap<String, Integer> ballots = new HashMap<String, Integer>();
-            ballots.put("(p0)(p2)(p1)", 15);
-            ballots.put("(p0)(p3)(p2)", 15);
-            ballots.put("(p0)(p1)", 3);
-            ballots.put("(p1)(p2)(p0)", 15);
-            ballots.put("(p1)(p0)(p2)(p3)", 2);
-            ballots.put("(p1)(p3)(p0)(p2)", 7);
-            ballots.put("(p1)(p0)(p3)", 10);
-            ballots.put("(p2)(p3)(p0)(p1)", 10);
-            ballots.put("(p2)(p1)", 20);
-            ballots.put("(p2)(p0)(p3)", 10);
-            ballots.put("(p3)", 15);
-            ballots.put("(p3)(p2)", 10);
-            ballots.put("(p3)(p1)(p0)", 15);
+            HashMap<String, Long> ballots = new HashMap<String, Long>();
+            ballots.put("(p0)(p2)(p1)", 15L);
+            ballots.put("(p0)(p3)(p2)", 15L);
+            ballots.put("(p0)(p1)", 3L);
+            ballots.put("(p1)(p2)(p0)", 15L);
+            ballots.put("(p1)(p0)(p2)(p3)", 2L);
+            ballots.put("(p1)(p3)(p0)(p2)", 7L);
+            ballots.put("(p1)(p0)(p3)", 10L);
+            ballots.put("(p2)(p3)(p0)(p1)", 10L);
+            ballots.put("(p2)(p1)", 20L);
+            ballots.put("(p2)(p0)(p3)", 10L);
+            ballots.put("(p3)", 15L);
+            ballots.put("(p3)(p2)", 10L);
+            ballots.put("(p3)(p1)(p0)", 15L);
 
             // create election
             IR ir = new IR(ballots, candidates, totalNumBallots);
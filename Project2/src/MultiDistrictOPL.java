@@ -0,0 +1,310 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Runs an OPL election in each of several districts. The districts and their ballot files are
+ * listed in a manifest, and each district is created and run as its own OPL election on a
+ * work-stealing pool, so a district with many ballots doesn't hold up the others. Each district
+ * writes its own audit and media files, named after the district, and the results of every
+ * district are put together into a single summary once they are all done. Districts that list the
+ * same candidates share a single parse of the candidates.
+ */
+public class MultiDistrictOPL {
+
+  /**
+   * The names of the districts, in the order they are listed in the manifest.
+   */
+  private final ArrayList<String> districtNames;
+
+  /**
+   * The ballot files of each district, in the same order as the district names.
+   */
+  private final ArrayList<String[]> districtFiles;
+
+  /**
+   * The election of each district, in the same order as the district names. A district that could
+   * not be created is null. Empty until the districts are run.
+   */
+  private final ArrayList<OPL> elections;
+
+  /**
+   * Constructor initializes the districts so they are ready to be run.
+   *
+   * @param districts the ballot files of each district, by district name, in the order the
+   *                  districts are summarized.
+   * @throws IllegalArgumentException if the districts is null or empty, a district name has
+   *         characters other than letters, digits, '_' and '-', or a district has no files.
+   */
+  public MultiDistrictOPL(LinkedHashMap<String, String[]> districts)
+          throws IllegalArgumentException {
+    if (districts == null || districts.isEmpty()) throw new IllegalArgumentException("districts must not be null or empty");
+
+    districtNames = new ArrayList<>();
+    districtFiles = new ArrayList<>();
+    for (Map.Entry<String, String[]> district : districts.entrySet()) {
+      if (district.getKey() == null || !district.getKey().matches("[\\w-]+")) {
+        throw new IllegalArgumentException("District " + district.getKey()
+                + " must only have letters, digits, '_' and '-' in its name.");
+      }
+      if (district.getValue() == null || district.getValue().length == 0) {
+        throw new IllegalArgumentException("District " + district.getKey()
+                + " must have at least one ballot file.");
+      }
+      districtNames.add(district.getKey());
+      districtFiles.add(district.getValue());
+    }
+    elections = new ArrayList<>();
+  }
+
+  /**
+   * Reads the districts from a manifest. Each line of the manifest is a district name followed by
+   * the district's ballot files, separated by commas:
+   * <pre>
+   * North,north_precinct_1.csv,north_precinct_2.csv
+   * South,south.csv
+   * </pre>
+   * Blank lines are skipped. Ballot files that are not absolute paths are found relative to the
+   * directory of the manifest.
+   *
+   * @param manifestName the name of the manifest file.
+   * @return the districts listed in the manifest.
+   * @throws IOException if the manifest could not be read.
+   * @throws IllegalArgumentException if a line does not have a district and a ballot file, a
+   *         district name is not valid, or a district is listed more than once.
+   */
+  public static MultiDistrictOPL readManifest(String manifestName)
+          throws IOException, IllegalArgumentException {
+    Path manifest = Paths.get(manifestName);
+    LinkedHashMap<String, String[]> districts = new LinkedHashMap<>();
+    try (BufferedReader in = Files.newBufferedReader(manifest)) {
+      int lineNumber = 0;
+      for (String line = in.readLine(); line != null; line = in.readLine()) {
+        lineNumber++;
+        if (line.trim().isEmpty()) {
+          continue;
+        }
+
+        String[] fields = line.split(",");
+        if (fields.length < 2) {
+          throw new IllegalArgumentException("Line " + lineNumber + " of " + manifestName
+                  + " does not have a district and a ballot file.");
+        }
+        String districtName = fields[0].trim();
+        String[] files = new String[fields.length - 1];
+        for (int i = 1; i < fields.length; i++) {
+          files[i - 1] = manifest.resolveSibling(fields[i].trim()).toString();
+        }
+        if (districts.put(districtName, files) != null) {
+          throw new IllegalArgumentException("District " + districtName + " is listed more than "
+                  + "once in " + manifestName + ".");
+        }
+      }
+    }
+    if (districts.isEmpty()) {
+      throw new IllegalArgumentException(manifestName + " does not list any districts.");
+    }
+    return new MultiDistrictOPL(districts);
+  }
+
+  /**
+   * Creates and runs the election of every district on a work-stealing pool with one thread for
+   * each of CreateElection's workers. When there are several districts, the ballots of each
+   * district are counted on the thread running the district, otherwise the workers count the
+   * ballots of the single district. Once every district is done, the summary is output to the
+   * screen and to the summary file.
+   *
+   * @return true if every district was created and run, false otherwise.
+   */
+  public boolean runDistricts() {
+    // every district is allocated the same way
+    OPL.AllocationMethod allocationMethod;
+    try {
+      allocationMethod = OPL.AllocationMethod.fromOptionName(
+              System.getProperty("election.oplAllocation"));
+    } catch (IllegalArgumentException ex) {
+      System.out.println("Error: " + ex.getMessage());
+      return false;
+    }
+
+    ConcurrentHashMap<String, VoteTally> candidateLists = new ConcurrentHashMap<>();
+    boolean countWithWorkers = districtNames.size() == 1;
+    ArrayList<Callable<OPL>> districtTasks = new ArrayList<>();
+    for (int i = 0; i < districtNames.size(); i++) {
+      String districtName = districtNames.get(i);
+      String[] electionFileNames = districtFiles.get(i);
+      districtTasks.add(() -> runDistrict(districtName, electionFileNames, candidateLists,
+              allocationMethod, countWithWorkers));
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(CreateElection.getNumWorkers());
+    elections.clear();
+    try {
+      for (Future<OPL> election : pool.invokeAll(districtTasks)) {
+        elections.add(election.get());
+      }
+    } catch (InterruptedException | ExecutionException ex) {
+      System.out.println("Error: The districts could not be run");
+      return false;
+    } finally {
+      pool.shutdown();
+    }
+
+    // output the summary to the screen and the summary file
+    String summary = getSummary();
+    System.out.print(summary);
+    try {
+      generateSummaryFile(summary);
+    } catch (FileNotFoundException f) {
+      System.out.println(f.getMessage());
+    }
+    return !elections.contains(null);
+  }
+
+  /**
+   * Creates the election of a single district and runs it, writing the district's audit and media
+   * files.
+   *
+   * @param districtName the name of the district.
+   * @param electionFileNames the ballot files of the district.
+   * @param candidateLists the tally of each candidate list already parsed, with no votes, shared
+   *                       between the districts.
+   * @param allocationMethod how the seats are allocated to the parties.
+   * @param countWithWorkers whether the ballots of the district can be counted by the workers.
+   * @return the district's election, or null if it could not be created.
+   */
+  private static OPL runDistrict(String districtName, String[] electionFileNames,
+                                 ConcurrentHashMap<String, VoteTally> candidateLists,
+                                 OPL.AllocationMethod allocationMethod, boolean countWithWorkers) {
+    OPL election;
+    try {
+      election = CreateElection.createDistrictOPL(electionFileNames, candidateLists,
+              allocationMethod, countWithWorkers);
+    } catch (IllegalArgumentException ex) {
+      // the files were read, but the district can't hold an election (such as having no ballots)
+      System.out.println("Error: District " + districtName + " could not be created. "
+              + ex.getMessage());
+      return null;
+    }
+    if (election == null) {
+      System.out.println("Error: District " + districtName + " could not be created.");
+      return null;
+    }
+    election.setDistrictName(districtName);
+    election.runDistrictVotingAlgorithm();
+    return election;
+  }
+
+  /**
+   * Gets the names of the districts.
+   *
+   * @return the district names, in the order they are summarized.
+   */
+  public ArrayList<String> getDistrictNames() {
+    return districtNames;
+  }
+
+  /**
+   * Gets the elections of the districts once they have been run.
+   *
+   * @return the election of each district in the same order as the district names, with null for
+   *         any district that could not be created. Empty if the districts have not been run.
+   */
+  public ArrayList<OPL> getElections() {
+    return elections;
+  }
+
+  /**
+   * Gathers the results of every district together into a string. This includes the votes, seats,
+   * and winners of each district, and the votes and seats of each party over every district.
+   *
+   * @return the summary of the districts in a string format.
+   */
+  public String getSummary() {
+    StringBuilder summary = new StringBuilder();
+    long totalNumBallots = 0;
+    int totalNumSeats = 0;
+    LinkedHashMap<String, long[]> partyTotals = new LinkedHashMap<>(); // votes, then seats
+    StringBuilder districtResults = new StringBuilder();
+    districtResults.append("[District],[Votes],[Seats],[Winners]\n");
+    for (int i = 0; i < elections.size(); i++) {
+      OPL election = elections.get(i);
+      districtResults.append(districtNames.get(i).concat(","));
+      if (election == null) {
+        districtResults.append("Not Counted\n");
+        continue;
+      }
+
+      totalNumBallots += election.getTotalNumBallots();
+      totalNumSeats += election.getNumSeatsAvailable();
+      districtResults.append(String.valueOf(election.getTotalNumBallots()).concat(",")
+                     .concat(String.valueOf(election.getNumSeatsAvailable())).concat(","));
+      for (Candidate candidate : election.getWinningCandidates()) {
+        districtResults.append(candidate.getName().concat(" (").concat(candidate.getParty())
+                       .concat("), "));
+      }
+      if (!election.getWinningCandidates().isEmpty()) {
+        districtResults.setLength(districtResults.length() - 2); // remove last comma and space
+      }
+      districtResults.append("\n");
+      for (Party party : election.getParties()) {
+        long[] partyTotal = partyTotals.computeIfAbsent(party.getName(), name -> new long[2]);
+        partyTotal[0] += party.getTotalVotes();
+        partyTotal[1] += party.getNumberOfSeats();
+      }
+    }
+
+    summary.append("Multi-District Election Results:\n");
+    summary.append("--------------------------------\n");
+    summary.append("Number of districts: ".concat(String.valueOf(districtNames.size()))
+           .concat("\n"));
+    summary.append("Total Number of votes cast: ".concat(String.valueOf(totalNumBallots))
+           .concat("\n"));
+    summary.append("Number of seats up for election: ".concat(String.valueOf(totalNumSeats))
+           .concat("\n\n"));
+    summary.append("District Results:\n");
+    summary.append("-----------------\n");
+    summary.append(districtResults).append("\n");
+    summary.append("Party Totals:\n");
+    summary.append("-------------\n");
+    summary.append("[Party],[Votes],[Seats]\n");
+    for (Map.Entry<String, long[]> partyTotal : partyTotals.entrySet()) {
+      summary.append(partyTotal.getKey().concat(",")
+             .concat(String.valueOf(partyTotal.getValue()[0])).concat(",")
+             .concat(String.valueOf(partyTotal.getValue()[1])).concat("\n"));
+    }
+    summary.append("\n");
+    return summary.toString();
+  }
+
+  /**
+   * Creates the summary file and outputs the summary to the new file.
+   *
+   * @param summary the summary of the districts.
+   * @throws FileNotFoundException if the file was not created successfully.
+   */
+  private void generateSummaryFile(String summary) throws FileNotFoundException {
+    DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern("yyyy_MM_dd_HH_mm_ss");
+    LocalDateTime currentTime = LocalDateTime.now();
+    String filename = "OPLDistrictSummary_".concat(dateFormat.format(currentTime)).concat(".txt");
+
+    PrintWriter out = new PrintWriter(new File(filename));
+    out.print(summary);
+    out.close();
+  }
+}
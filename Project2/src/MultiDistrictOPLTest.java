@@ -0,0 +1,162 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MultiDistrictOPL Class Unit Tests
+ */
+public class MultiDistrictOPLTest {
+  private final ByteArrayOutputStream systemOut = new ByteArrayOutputStream();
+  private final PrintStream originalOut = System.out;
+
+  final private String testingPath = "./testing/testFiles/";
+
+  /**
+   * A directory for the manifests that is deleted after each test.
+   */
+  @TempDir
+  Path tempDir;
+
+  /**
+   * Sets the standard output to a different stream so no output to the terminal happens during
+   * unit tests.
+   */
+  @BeforeEach
+  public void setUp() {
+    System.setOut(new PrintStream(systemOut));
+  }
+
+  /**
+   * Resets the standard output to stdout and deletes the audit, media, and summary files.
+   */
+  @AfterEach
+  public void tearDown() {
+    System.setOut(originalOut);
+    OPLTestHelpers.deleteElectionOutputFiles();
+  }
+
+  /**
+   * Gets the names of the output files of a type in the current working directory.
+   *
+   * @param prefix the start of the file names, such as OPLAuditFile.
+   * @return the names of the files.
+   */
+  private static List<String> findOutputFiles(String prefix) {
+    ArrayList<String> fileNames = new ArrayList<>();
+    for (File file : new File(System.getProperty("user.dir")).listFiles()) {
+      if (file.getName().startsWith(prefix.concat("_"))) {
+        fileNames.add(file.getName());
+      }
+    }
+    return fileNames;
+  }
+
+  /**
+   * Tests that the districts are read in order, skipping blank lines, and that manifests with
+   * missing files, bad names, or repeated districts are rejected.
+   */
+  @Test
+  public void testReadManifest() throws IOException {
+    Path manifest = tempDir.resolve("districts.txt");
+    Files.writeString(manifest, "North,north.csv\n\nSouth, south1.csv, south2.csv\n");
+    MultiDistrictOPL districts = MultiDistrictOPL.readManifest(manifest.toString());
+    assertEquals(List.of("North", "South"), districts.getDistrictNames());
+    assertTrue(districts.getElections().isEmpty());
+
+    Files.writeString(manifest, "North\n");
+    assertThrows(IllegalArgumentException.class,
+        () -> MultiDistrictOPL.readManifest(manifest.toString()));
+    Files.writeString(manifest, "North,a.csv\nNorth,b.csv\n");
+    assertThrows(IllegalArgumentException.class,
+        () -> MultiDistrictOPL.readManifest(manifest.toString()));
+    Files.writeString(manifest, "North West,a.csv\n");
+    assertThrows(IllegalArgumentException.class,
+        () -> MultiDistrictOPL.readManifest(manifest.toString()));
+    Files.writeString(manifest, "\n");
+    assertThrows(IllegalArgumentException.class,
+        () -> MultiDistrictOPL.readManifest(manifest.toString()));
+    assertThrows(IOException.class,
+        () -> MultiDistrictOPL.readManifest(tempDir.resolve("missing.txt").toString()));
+    assertThrows(IllegalArgumentException.class,
+        () -> new MultiDistrictOPL(new LinkedHashMap<>()));
+  }
+
+  /**
+   * Tests that each district is counted from its own files with its own candidates, writes audit
+   * and media files named after the district, and is put together with the others in the summary.
+   */
+  @Test
+  public void testRunDistricts() {
+    LinkedHashMap<String, String[]> districtFiles = new LinkedHashMap<>();
+    districtFiles.put("North", new String[] {testingPath + "givenOPL.csv"});
+    districtFiles.put("South", new String[] {testingPath + "bigOPL.csv",
+        testingPath + "bigOPL2.csv"});
+    districtFiles.put("East", new String[] {testingPath + "givenOPL.csv"});
+    MultiDistrictOPL districts = new MultiDistrictOPL(districtFiles);
+    assertTrue(districts.runDistricts());
+
+    ArrayList<OPL> elections = districts.getElections();
+    assertEquals(3, elections.size());
+    assertEquals("South", elections.get(1).getDistrictName());
+    assertEquals(9, elections.get(0).getTotalNumBallots());
+    assertEquals(200000, elections.get(1).getTotalNumBallots());
+    for (OPL election : elections) {
+      assertEquals(3, election.getWinningCandidates().size());
+    }
+
+    // districts with the same candidate list share the parse, but not the candidates
+    Candidate northPike = elections.get(0).getParties().get(0).getCandidates().get(0);
+    Candidate eastPike = elections.get(2).getParties().get(0).getCandidates().get(0);
+    assertEquals("Pike", eastPike.getName());
+    assertNotSame(northPike, eastPike);
+    assertEquals(northPike.getCurNumVotes(), eastPike.getCurNumVotes());
+
+    assertEquals(3, findOutputFiles("OPLAuditFile").size());
+    assertEquals(3, findOutputFiles("OPLMediaReport").size());
+    assertEquals(1, findOutputFiles("OPLDistrictSummary").size());
+    assertTrue(findOutputFiles("OPLAuditFile").stream()
+        .anyMatch(name -> name.startsWith("OPLAuditFile_South_")));
+    assertThrows(IllegalArgumentException.class, () -> elections.get(0).setDistrictName("N/A"));
+
+    String summary = districts.getSummary();
+    assertTrue(summary.contains("Number of districts: 3\n"));
+    assertTrue(summary.contains("Total Number of votes cast: 200018\n"));
+    assertTrue(summary.contains("Number of seats up for election: 9\n"));
+    assertTrue(summary.contains("South,200000,3,"));
+    assertTrue(summary.contains("I,100002,"));
+  }
+
+  /**
+   * Tests that the other districts are still run when one of them can't be created, and that the
+   * district is noted in the summary.
+   */
+  @Test
+  public void testDistrictNotCreated() {
+    LinkedHashMap<String, String[]> districtFiles = new LinkedHashMap<>();
+    districtFiles.put("North", new String[] {testingPath + "givenOPL.csv"});
+    districtFiles.put("West", new String[] {testingPath + "OPLNoBallots.csv"});
+    districtFiles.put("IR", new String[] {testingPath + "givenIR.csv"});
+    MultiDistrictOPL districts = new MultiDistrictOPL(districtFiles);
+    assertFalse(districts.runDistricts());
+
+    assertNotNull(districts.getElections().get(0));
+    assertNull(districts.getElections().get(1));
+    assertNull(districts.getElections().get(2));
+    assertTrue(districts.getSummary().contains("West,Not Counted\n"));
+    assertTrue(systemOut.toString().contains("Error: Only OPL elections can be run by district"));
+    assertEquals(1, findOutputFiles("OPLAuditFile").size());
+  }
+}
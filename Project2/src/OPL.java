@@ -3,8 +3,9 @@ import java.io.FileNotFoundException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.TreeMap;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.time.format.DateTimeFormatter;
 import java.time.LocalDateTime;
 
@@ -15,6 +16,87 @@ import java.time.LocalDateTime;
  * @author Michael Markiewicz, Noah Park
  */
 public class OPL extends Election {
+
+  /**
+   * The ways the seats of an OPL election can be allocated to the parties.
+   */
+  public enum AllocationMethod {
+    /**
+     * Each party gets a seat for each quota of votes, and the remaining seats go to the parties
+     * with the most remaining votes.
+     */
+    LARGEST_REMAINDER("largest-remainder", "Largest Remainder"),
+
+    /**
+     * Each seat goes to the party with the highest quotient of votes / (seats + 1).
+     */
+    DHONDT("dhondt", "D'Hondt"),
+
+    /**
+     * Each seat goes to the party with the highest quotient of votes / (2 * seats + 1).
+     */
+    SAINTE_LAGUE("sainte-lague", "Sainte-Lague");
+
+    /**
+     * The name the method is chosen by on the command line.
+     */
+    private final String optionName;
+
+    /**
+     * The name the method is written as in the audit file and media report.
+     */
+    private final String displayName;
+
+    /**
+     * Constructor for an allocation method.
+     *
+     * @param optionName the name the method is chosen by on the command line.
+     * @param displayName the name the method is written as.
+     */
+    AllocationMethod(String optionName, String displayName) {
+      this.optionName = optionName;
+      this.displayName = displayName;
+    }
+
+    /**
+     * Gets the name the method is written as in the audit file and media report.
+     *
+     * @return the display name.
+     */
+    public String getDisplayName() {
+      return displayName;
+    }
+
+    /**
+     * Gets the divisor of a party's votes for its next seat with a highest averages method.
+     *
+     * @param seats the seats the party already has.
+     * @return the divisor.
+     */
+    long getDivisor(int seats) {
+      return this == SAINTE_LAGUE ? 2L * seats + 1 : seats + 1L;
+    }
+
+    /**
+     * Finds the allocation method chosen on the command line.
+     *
+     * @param optionName the name of the method, or null for largest remainder.
+     * @return the allocation method.
+     * @throws IllegalArgumentException if there is no method with the name.
+     */
+    public static AllocationMethod fromOptionName(String optionName) throws IllegalArgumentException {
+      if (optionName == null) {
+        return LARGEST_REMAINDER;
+      }
+      for (AllocationMethod method : values()) {
+        if (method.optionName.equals(optionName)) {
+          return method;
+        }
+      }
+      throw new IllegalArgumentException("Unknown OPL allocation method " + optionName + ".");
+    }
+  }
+
   /**
    * The number of seats available in the election
    */
@@ -23,13 +105,23 @@ public class OPL extends Election {
   /**
    * The quota for the first round of allocation
   */
-  private int quota;
+  private long quota;
+
+  /**
+   * How the seats are allocated to the parties
+   */
+  private AllocationMethod allocationMethod;
 
   /**
    * All the parties that are taking part in the election
    */
   private ArrayList<Party> parties;
 
+  /**
+   * The votes and seats of the parties and their candidates, indexed by the order of the parties
+   */
+  private VoteTally tally;
+
   /**
    * The number of seats that need to be distributed still
    */
@@ -50,6 +142,12 @@ public class OPL extends Election {
    */
   private HashMap<Party, Integer> firstAllocation;
 
+  /**
+   * The name of the district this election is held in when it is one district of a multi-district
+   * election. Null for a single election.
+   */
+  private String districtName;
+
   /**
    * The constructor for OPL initializes the OPL class so it is ready to run the OPL algorithm.
    * It is assumed that the parties have been initialized with the candidates for the election,
@@ -61,12 +159,31 @@ public class OPL extends Election {
    * @throws IllegalArgumentException if the totalNumBallots or numSeatsAvailable is nonpositive,
    *         or the parties is null or empty.
    */
-  public OPL(int totalNumBallots, int numSeatsAvailable, ArrayList<Party> parties)
+  public OPL(long totalNumBallots, int numSeatsAvailable, ArrayList<Party> parties)
           throws IllegalArgumentException {
+    this(totalNumBallots, numSeatsAvailable, parties,
+            AllocationMethod.fromOptionName(System.getProperty("election.oplAllocation")));
+  }
+
+  /**
+   * The constructor for OPL initializes the OPL class so it is ready to run the OPL algorithm
+   * with the given allocation method. The one without a method uses the method chosen with
+   * -Delection.oplAllocation=largest-remainder|dhondt|sainte-lague, or largest remainder.
+   *
+   * @param totalNumBallots the total number of ballots cast for this election.
+   * @param numSeatsAvailable the number of seats that are up for election.
+   * @param parties a list of parties that have candidates in the election.
+   * @param allocationMethod how the seats are allocated to the parties.
+   * @throws IllegalArgumentException if the totalNumBallots or numSeatsAvailable is nonpositive,
+   *         the parties is null or empty, or the allocationMethod is null.
+   */
+  public OPL(long totalNumBallots, int numSeatsAvailable, ArrayList<Party> parties,
+             AllocationMethod allocationMethod) throws IllegalArgumentException {
     if (totalNumBallots <= 0 || numSeatsAvailable <= 0 || parties == null || parties.size() == 0) {
       throw new IllegalArgumentException("totalNumBallots must be positive, numSeatsAvailable must"
               + " be positive, and parties must not be null and contain at least one party");
     }
+    if (allocationMethod == null) throw new IllegalArgumentException("allocationMethod must not be null");
 
     int numCandidates = 0;
     for (Party party: parties) {
@@ -77,7 +194,9 @@ public class OPL extends Election {
     this.totalNumBallots = totalNumBallots;
     this.numSeatsAvailable = numSeatsAvailable;
     this.parties = parties;
+    tally = VoteTally.of(parties);
     quota = totalNumBallots / numSeatsAvailable; // rounds down to nearest integer
+    this.allocationMethod = allocationMethod;
     numSeatsLeft = numSeatsAvailable;
     winningCandidates = new ArrayList<>();
     additionalNotes = new StringBuilder();
@@ -98,28 +217,89 @@ public class OPL extends Election {
                .concat("\n"));
     auditString.append("Total number of Votes: ".concat(String.valueOf(totalNumBallots))
                .concat("\n"));
-    auditString.append("Calculated Quota: ".concat(String.valueOf(quota)).concat("\n"));
+    if (allocationMethod == AllocationMethod.LARGEST_REMAINDER) {
+      auditString.append("Calculated Quota: ".concat(String.valueOf(quota)).concat("\n"));
+    } else {
+      auditString.append("Allocation Method: ".concat(allocationMethod.getDisplayName())
+                 .concat("\n"));
+    }
     firstAllocation = new HashMap<>();
   }
 
+  /**
+   * Constructor for rerunning only the seat allocation of an election on a copy of its votes,
+   * for sweepSeats. The allocation isn't reported, so the audit, the notes, and the winning
+   * candidates are never built.
+   *
+   * @param tally the copy of the votes, which the seats are allocated in.
+   * @param totalNumBallots the total number of ballots cast for this election.
+   * @param numSeatsAvailable the number of seats that are up for election.
+   * @param allocationMethod how the seats are allocated to the parties.
+   */
+  private OPL(VoteTally tally, long totalNumBallots, int numSeatsAvailable,
+              AllocationMethod allocationMethod) {
+    this.totalNumBallots = totalNumBallots;
+    this.numSeatsAvailable = numSeatsAvailable;
+    this.tally = tally;
+    parties = tally.getParties();
+    quota = totalNumBallots / numSeatsAvailable; // rounds down to nearest integer
+    this.allocationMethod = allocationMethod;
+    numSeatsLeft = numSeatsAvailable;
+  }
+
   /**
    * Main function to run voting algorithm for OPL. This will conduct the first allocation,
    * second allocation, determine the winners, output the audit file, output the media report,
    * and output the election results to the screen.
    */
   public void runVotingAlgorithm() {
+    conductElection();
+
+    // output results to screen
+    outputResults();
+
+    // output the results to the audit file and media report
+    generateReports();
+  }
+
+  /**
+   * Runs the voting algorithm for one district of a multi-district election. This is the same as
+   * runVotingAlgorithm, except the results are not output to the screen so the districts can be
+   * run at the same time. The results are summarized once every district is done.
+   */
+  void runDistrictVotingAlgorithm() {
+    conductElection();
+    generateReports();
+  }
+
+  /**
+   * Allocates the seats to the parties, determines the winners, and finalizes the additional notes.
+   */
+  private void conductElection() {
     // conduct the OPL voting algorithm
-    conductFirstAllocation();
-    conductSecondAllocation();
+    allocateSeats();
     determineWinners();
 
     // finalizes the additionalNotes stringBuilder
     finishUpAdditionalNotes();
+  }
 
-    // output results to screen
-    outputResults();
+  /**
+   * Allocates the seats to the parties with the election's allocation method.
+   */
+  private void allocateSeats() {
+    if (allocationMethod == AllocationMethod.LARGEST_REMAINDER) {
+      conductFirstAllocation();
+      conductSecondAllocation();
+    } else {
+      conductHighestAveragesAllocation();
+    }
+  }
 
-    // output the results to the audit file and media report
+  /**
+   * Outputs the results to the audit file and media report.
+   */
+  private void generateReports() {
     try {
       generateAuditFile();
     } catch (FileNotFoundException f) {
@@ -132,47 +312,285 @@ public class OPL extends Election {
     }
   }
 
+  /**
+   * Reruns the seat allocation for every number of seats from minSeats to maxSeats, without
+   * reading the ballots again. Each number of seats gets its own copy of the votes in this
+   * election's tally, and is allocated with the same allocation method on a work-stealing pool:
+   * the quota and the first and second allocations (or the highest averages allocation) are
+   * worked out again. Nothing is reported, output to the screen, or written to files. This
+   * election itself is not changed, but it must not be run while the sweep is running.
+   *
+   * @param minSeats the fewest seats to run the election with.
+   * @param maxSeats the most seats to run the election with.
+   * @param parallelism the number of threads the numbers of seats are allocated on.
+   * @return the seats won by each party, indexed by the number of seats minus minSeats and then by
+   *         the party's place in getParties(). With the largest remainder method, the quota is
+   *         rounded down, so the seats won can add up to more than the number of seats.
+   * @throws IllegalArgumentException if minSeats is nonpositive or greater than maxSeats, maxSeats
+   *         is greater than the number of ballots, or parallelism is nonpositive.
+   */
+  public int[][] sweepSeats(int minSeats, int maxSeats, int parallelism)
+          throws IllegalArgumentException {
+    if (minSeats <= 0 || minSeats > maxSeats) throw new IllegalArgumentException("minSeats must be positive and at most maxSeats");
+    if (maxSeats > totalNumBallots) throw new IllegalArgumentException("maxSeats must be at most the number of ballots");
+    if (parallelism <= 0) throw new IllegalArgumentException("parallelism must be positive");
+
+    ArrayList<ForkJoinTask<int[]>> sweepTasks = new ArrayList<>();
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      for (int seats = minSeats; seats <= maxSeats; seats++) {
+        int numSeats = seats;
+        ForkJoinTask<int[]> sweepTask = ForkJoinTask.adapt(() -> countSeats(numSeats));
+        sweepTasks.add(sweepTask);
+        pool.execute(sweepTask);
+      }
+
+      int[][] sweptSeats = new int[sweepTasks.size()][];
+      for (int i = 0; i < sweptSeats.length; i++) {
+        sweptSeats[i] = sweepTasks.get(i).join();
+      }
+      return sweptSeats;
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Allocates the seats for a number of seats on a copy of the votes in this election's tally.
+   *
+   * @param numSeats the number of seats to run the election with.
+   * @return the seats won by each party, indexed by the party's place in getParties().
+   */
+  private int[] countSeats(int numSeats) {
+    VoteTally sweepTally = tally.copyVotes();
+    new OPL(sweepTally, totalNumBallots, numSeats, allocationMethod).allocateSeats();
+
+    int[] seats = new int[parties.size()];
+    for (int p = 0; p < seats.length; p++) {
+      seats[p] = sweepTally.getSeats(p);
+    }
+    return seats;
+  }
+
+  /**
+   * Reruns the election for every number of seats from minSeats to maxSeats with sweepSeats, and
+   * outputs a table of the seats won by each party to the screen and to the seat sweep file. The
+   * table has a row for each number of seats, and a column for each party. A row where the
+   * rounded down quota gave out more seats than there are is marked with a '*', and explained in a
+   * note after the table:
+   * <pre>
+   * [Seats],D,R,I
+   * 5,3,1,1
+   * 6,4,2,1 *
+   *
+   * * 6 seats: the quota of 1 (rounded down) gave out 7 seats.
+   * </pre>
+   *
+   * @param minSeats the fewest seats to run the election with.
+   * @param maxSeats the most seats to run the election with.
+   * @param parallelism the number of threads the numbers of seats are allocated on.
+   * @return the table of seats.
+   * @throws IllegalArgumentException if minSeats is nonpositive or greater than maxSeats, maxSeats
+   *         is greater than the number of ballots, or parallelism is nonpositive.
+   */
+  public String runSeatSweep(int minSeats, int maxSeats, int parallelism)
+          throws IllegalArgumentException {
+    int[][] sweptSeats = sweepSeats(minSeats, maxSeats, parallelism);
+
+    StringBuilder seatTable = new StringBuilder();
+    seatTable.append("[Seats]");
+    for (Party party: parties) {
+      seatTable.append(",".concat(party.getName()));
+    }
+    seatTable.append("\n");
+    StringBuilder overAllocated = new StringBuilder();
+    for (int i = 0; i < sweptSeats.length; i++) {
+      int numSeats = minSeats + i;
+      seatTable.append(String.valueOf(numSeats));
+      int seatsWon = 0;
+      for (int seats: sweptSeats[i]) {
+        seatTable.append(",".concat(String.valueOf(seats)));
+        seatsWon += seats;
+      }
+      if (seatsWon > numSeats) {
+        seatTable.append(" *");
+        overAllocated.append("* ".concat(String.valueOf(numSeats)).concat(" seats: the quota of ")
+            .concat(String.valueOf(totalNumBallots / numSeats))
+            .concat(" (rounded down) gave out ").concat(String.valueOf(seatsWon))
+            .concat(" seats.\n"));
+      }
+      seatTable.append("\n");
+    }
+    if (overAllocated.length() > 0) {
+      seatTable.append("\n").append(overAllocated);
+    }
+
+    System.out.print(seatTable);
+    try {
+      DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern("yyyy_MM_dd_HH_mm_ss");
+      LocalDateTime currentTime = LocalDateTime.now();
+      String filename = "OPLSeatSweep_".concat(dateFormat.format(currentTime)).concat(".txt");
+      PrintWriter out = new PrintWriter(new File(filename));
+      out.print(seatTable);
+      out.close();
+    } catch (FileNotFoundException f) {
+      System.out.println(f.getMessage());
+    }
+    return seatTable.toString();
+  }
+
   /**
    * Conducts the first allocation of votes for the OPL election.
    */
   private void conductFirstAllocation() {
-    StringBuilder info = new StringBuilder();
-
-    for (Party party : parties) {
-      int totalPartyVotes = party.getTotalVotes();
-      // <party name>: <total votes for party>
-      auditString.append(party.getName().concat(",").concat(String.valueOf(totalPartyVotes)
-                 .concat("\n")));
-
-      for (Candidate candidate : party.getCandidates()) {
-        // [<candidate name>, <total votes for candidate>]
-        auditString.append("[".concat(candidate.getName()).concat(",")
-                   .concat(String.valueOf(candidate.getCurNumVotes())).concat("],"));
-      }
-      auditString.setLength(auditString.length() - 1); // remove last comma
-      auditString.append("\n");
+    // the steps are only reported when the election has an audit
+    StringBuilder info = auditString != null ? new StringBuilder() : null;
+
+    for (int p = 0; p < parties.size(); p++) {
+      Party party = parties.get(p);
+      long totalPartyVotes = tally.getPartyVotes(p);
+      reportPartyVotes(party, totalPartyVotes);
 
       // make sure the parties do not get more seats than they have candidates for
-      int obtainedSeats = Math.min(totalPartyVotes / quota, party.getNumCandidates());
-      party.setNumberOfSeats(obtainedSeats);
+      int obtainedSeats = (int) Math.min(totalPartyVotes / quota, party.getNumCandidates());
+      tally.setSeats(p, obtainedSeats);
 
       numSeatsLeft -= obtainedSeats;
-      party.setRemainingVotes(totalPartyVotes - quota * obtainedSeats);
+      tally.setRemainingVotes(p, totalPartyVotes - quota * obtainedSeats);
 
-      // <Party name> has <obtained seats> quotas
-      info.append(party.getName().concat(" has ").concat(String.valueOf(obtainedSeats))
-          .concat(" quota(s)\n"));
+      if (info != null) {
+        // <Party name> has <obtained seats> quotas
+        info.append(party.getName().concat(" has ").concat(String.valueOf(obtainedSeats))
+            .concat(" quota(s)\n"));
 
-      // add this party's first allocation to a hash map for later use
-      firstAllocation.put(party, obtainedSeats);
+        // add this party's first allocation to a hash map for later use
+        firstAllocation.put(party, obtainedSeats);
+      }
     }
 
-    info.append(String.valueOf(numSeatsLeft).concat(" seat(s) remaining\n"));
-    auditString.append(info);
+    if (info != null) {
+      info.append(String.valueOf(numSeatsLeft).concat(" seat(s) remaining\n"));
+      auditString.append(info);
+    }
   }
 
   /**
-   * Conducts the second allocation of votes for the OPL election.
+   * Helper function for the allocations. Adds the votes of a party and its candidates to the
+   * audit string.
+   *
+   * @param party the party.
+   * @param totalPartyVotes the total votes for the party.
+   */
+  private void reportPartyVotes(Party party, long totalPartyVotes) {
+    if (auditString == null) {
+      return;
+    }
+    // <party name>: <total votes for party>
+    auditString.append(party.getName().concat(",").concat(String.valueOf(totalPartyVotes)
+               .concat("\n")));
+
+    for (Candidate candidate : party.getCandidates()) {
+      // [<candidate name>, <total votes for candidate>]
+      auditString.append("[".concat(candidate.getName()).concat(",")
+                 .concat(String.valueOf(candidate.getCurNumVotes())).concat("],"));
+    }
+    auditString.setLength(auditString.length() - 1); // remove last comma
+    auditString.append("\n");
+  }
+
+  /**
+   * Allocates every seat of the OPL election with a highest averages method. Each seat goes to
+   * the party with the highest quotient of its votes divided by the divisor for the seats it
+   * already has. The quotients are kept in a max heap, so only the party that got the last seat
+   * has its quotient updated before the next seat.
+   */
+  private void conductHighestAveragesAllocation() {
+    for (int p = 0; p < parties.size(); p++) {
+      reportPartyVotes(parties.get(p), tally.getPartyVotes(p));
+      tally.setSeats(p, 0);
+      tally.setRemainingVotes(p, tally.getPartyVotes(p));
+      if (firstAllocation != null) {
+        firstAllocation.put(parties.get(p), 0);
+      }
+    }
+
+    // parties are ordered by their quotient from highest to lowest, then by their order in the
+    // election
+    PriorityQueue<Integer> quotients = new PriorityQueue<>((a, b) -> {
+      int compare = compareQuotients(b, a);
+      return compare != 0 ? compare : Integer.compare(a, b);
+    });
+    for (int p = 0; p < parties.size(); p++) {
+      if (parties.get(p).getNumCandidates() > 0) {
+        quotients.add(p);
+      }
+    }
+
+    while (numSeatsLeft > 0 && !quotients.isEmpty()) {
+      // take the parties tied with the party on top, in the order they are in the election
+      int top = quotients.poll();
+      ArrayList<Integer> currentParties = new ArrayList<>();
+      currentParties.add(top);
+      while (!quotients.isEmpty() && compareQuotients(quotients.peek(), top) == 0) {
+        currentParties.add(quotients.poll());
+      }
+
+      if (currentParties.size() <= numSeatsLeft) {
+        for (int p : currentParties) {
+          addSeat(parties.get(p));
+          // the party's quotient goes down for its next seat, unless it has run out of candidates
+          if (tally.getSeats(p) < parties.get(p).getNumCandidates()) {
+            quotients.add(p);
+          }
+        }
+      } else {
+        // need to determine ties
+        ArrayList<Party> tiedParties = new ArrayList<>();
+        for (int p : currentParties) {
+          tiedParties.add(parties.get(p));
+        }
+
+        while (numSeatsLeft > 0) {
+          int winningPartyIndex = Election.handleTie(tiedParties.size());
+          addSeat(tiedParties.get(winningPartyIndex));
+          reportPartyTie(winningPartyIndex, tiedParties);
+          tiedParties.remove(winningPartyIndex);
+        }
+      }
+    }
+
+    reportSeatTotals();
+  }
+
+  /**
+   * Helper function for conductHighestAveragesAllocation. Compares the quotients of two parties
+   * for their next seats exactly, without dividing or overflowing.
+   *
+   * @param partyA the index of the first party.
+   * @param partyB the index of the second party.
+   * @return a negative number, zero, or a positive number if the first quotient is lower, the
+   *         same, or higher than the second.
+   */
+  private int compareQuotients(int partyA, int partyB) {
+    long votesA = tally.getPartyVotes(partyA);
+    long votesB = tally.getPartyVotes(partyB);
+    long divisorA = allocationMethod.getDivisor(tally.getSeats(partyA));
+    long divisorB = allocationMethod.getDivisor(tally.getSeats(partyB));
+
+    // votesA / divisorA compared to votesB / divisorB is votesA * divisorB compared to
+    // votesB * divisorA, which is compared as a 128 bit product
+    long highA = Math.multiplyHigh(votesA, divisorB);
+    long highB = Math.multiplyHigh(votesB, divisorA);
+    if (highA != highB) {
+      return Long.compare(highA, highB);
+    }
+    return Long.compareUnsigned(votesA * divisorB, votesB * divisorA);
+  }
+
+  /**
+   * Conducts the second allocation of votes for the OPL election. The remaining seats go to the
+   * parties with the most remaining votes, which are kept in a priority queue so a party that runs
+   * out of candidates is dropped without going through the other parties again.
    */
   private void conductSecondAllocation() {
     // don't need to do anything if there are no more seats to allocate
@@ -180,91 +598,85 @@ public class OPL extends Election {
       return;
     }
 
-    // maps remaining votes to a list of Parties
-    // the values are a list of Parties to handle ties between remaining votes
-    TreeMap<Integer, ArrayList<Party>> ordering = new TreeMap<>();
+    // parties are ordered by how many times they have been passed over for a remaining seat, then
+    // by their remaining votes from most to fewest, then by their order in the election. Each pass
+    // gives every party that still has candidates at most one seat, in order of remaining votes.
+    int[] passes = new int[parties.size()];
+    PriorityQueue<Integer> ordering = new PriorityQueue<>((a, b) -> {
+      if (passes[a] != passes[b]) {
+        return Integer.compare(passes[a], passes[b]);
+      }
+      if (tally.getRemainingVotes(a) != tally.getRemainingVotes(b)) {
+        return Long.compare(tally.getRemainingVotes(b), tally.getRemainingVotes(a));
+      }
+      return Integer.compare(a, b);
+    });
 
-    for (Party party : parties) {
-      Integer remainingVotes = party.getRemainingVotes();
+    for (int p = 0; p < parties.size(); p++) {
+      long remainingVotes = tally.getRemainingVotes(p);
 
       // <party name>: <remaining votes>
-      auditString.append(party.getName().concat(",").concat(String.valueOf(remainingVotes))
-                 .concat("\n"));
+      if (auditString != null) {
+        auditString.append(parties.get(p).getName().concat(",")
+                   .concat(String.valueOf(remainingVotes)).concat("\n"));
+      }
 
-      if (ordering.containsKey(remainingVotes)) {
-        // if the key already exists in the map, then add the party to the end of the list
-        ordering.get(remainingVotes).add(party);
-      } else {
-        ArrayList<Party> newList = new ArrayList<>();
-        newList.add(party);
-        ordering.put(remainingVotes, newList);
+      // parties that already have a seat for each of their candidates can't earn any more
+      if (tally.getSeats(p) < parties.get(p).getNumCandidates()) {
+        ordering.add(p);
       }
     }
 
-    // array of keys will help go through each party in a circular manner (if needed)
-    Integer[] votes = ordering.descendingMap().keySet().toArray(new Integer[0]);
-    int i = 0; // keeps track of which party we will be assigning votes to
-    // Will keep track of all the parties that can earn no more seats.
-    // Resets at the beginning of every loop to recount the parties.
-    // If this becomes equal to the number of parties total, then there are more seats left
-    // than parties have candidates for. We should stop even though there are seats left to
-    // distribute since we would be stuck in an infinite loop. This may be a little inefficient,
-    // but it should not happen often (if at all).
-    int partiesWithNoMoreCandidates = 0;
-    int totalParties = parties.size();
-    while (numSeatsLeft > 0 && partiesWithNoMoreCandidates < totalParties) {
-      // go until there are no more seats to distribute or no more candidates to give seats to
-      // get the parties we will look at giving seats to
-      ArrayList<Party> currentParties = ordering.get(votes[i]);
-
-      int size = currentParties.size();
-      // go through the parties with the same number of votes and remove any that don't have
-      // any candidates left
-      ArrayList<Integer> partiesToRemove = new ArrayList<>();
-      for (int j = 0; j < size; j++) {
-        if (currentParties.get(j).getNumberOfSeats() >= currentParties.get(j).getNumCandidates()) {
-          // remove this party from consideration
-          partiesToRemove.add(j);
-          partiesWithNoMoreCandidates += 1;
-        }
+    while (numSeatsLeft > 0 && !ordering.isEmpty()) {
+      // take the parties tied with the party on top, in the order they are in the election
+      int top = ordering.peek();
+      ArrayList<Integer> currentParties = new ArrayList<>();
+      while (!ordering.isEmpty() && passes[ordering.peek()] == passes[top]
+              && tally.getRemainingVotes(ordering.peek()) == tally.getRemainingVotes(top)) {
+        currentParties.add(ordering.poll());
       }
-      for (int j = 0; j < partiesToRemove.size(); j++) {
-        currentParties.remove(j);
-      }
-
-      size = currentParties.size(); // update the number of parties in the list if necessary
 
-      if (size > 1) {
-        // if there is more than one party with the same number of votes, we may need to
-        // determine a tie
-        if (size <= numSeatsLeft) {
-          // everyone gets a seat. No need to determine tie
-          for (int j = 0; j < size; j++) {
-            addSeat(currentParties.get(j));
-          }
-        } else {
-          // need to determine ties
-          // create tiedParties array so we can keep track of all the parties left in the tie
-          ArrayList<Party> tiedParties = (ArrayList<Party>) currentParties.clone();
-
-          while (numSeatsLeft > 0) {
-            // stop when there are no more seats left to distribute
-            int winningPartyIndex = Election.handleTie(tiedParties.size());
-            addSeat(tiedParties.get(winningPartyIndex));
-            // party successfully got a new seat. Need to report this tie to additional notes
-            reportPartyTie(winningPartyIndex, tiedParties);
-            // remove the party that won the tie from the list
-            tiedParties.remove(winningPartyIndex);
+      if (currentParties.size() <= numSeatsLeft) {
+        // everyone gets a seat. No need to determine tie
+        for (int p : currentParties) {
+          addSeat(parties.get(p));
+          // the party waits for the next pass, unless it has run out of candidates
+          if (tally.getSeats(p) < parties.get(p).getNumCandidates()) {
+            passes[p]++;
+            ordering.add(p);
           }
         }
-      } else if (size == 1){
-        // no tie, so we can add the seat if the party has enough candidates
-        addSeat(currentParties.get(0));
-      }
+      } else {
+        // need to determine ties
+        // create tiedParties array so we can keep track of all the parties left in the tie
+        ArrayList<Party> tiedParties = new ArrayList<>();
+        for (int p : currentParties) {
+          tiedParties.add(parties.get(p));
+        }
 
-      i = (i+1) % votes.length; // increment i and loop around to beginning if needed
+        while (numSeatsLeft > 0) {
+          // stop when there are no more seats left to distribute
+          int winningPartyIndex = Election.handleTie(tiedParties.size());
+          addSeat(tiedParties.get(winningPartyIndex));
+          // party successfully got a new seat. Need to report this tie to additional notes
+          reportPartyTie(winningPartyIndex, tiedParties);
+          // remove the party that won the tie from the list
+          tiedParties.remove(winningPartyIndex);
+        }
+      }
     }
 
+    reportSeatTotals();
+  }
+
+  /**
+   * Helper function for the allocations. Adds whether all the seats were filled and the seats
+   * each party earned to the audit string.
+   */
+  private void reportSeatTotals() {
+    if (auditString == null) {
+      return;
+    }
     // add any last info to audit file
     if (numSeatsLeft > 0) {
       // need to account for case that there are less candidates in election that seats available
@@ -295,7 +707,9 @@ public class OPL extends Election {
     }
     party.setNumberOfSeats(numSeats + 1);
     numSeatsLeft -= 1;
-    auditString.append(party.getName().concat(" receives another seat.\n"));
+    if (auditString != null) {
+      auditString.append(party.getName().concat(" receives another seat.\n"));
+    }
     return true;
   }
 
@@ -307,6 +721,9 @@ public class OPL extends Election {
    * @param tiedParties the list of parties that were a part of the tie.
    */
   private void reportPartyTie(int winningPartyIndex, ArrayList<Party> tiedParties) {
+    if (additionalNotes == null) {
+      return;
+    }
     // list each party in the tie, and declare which party won the tie.
     for (int j = 0; j < tiedParties.size(); j++) {
       additionalNotes.append(tiedParties.get(j).getName());
@@ -322,69 +739,64 @@ public class OPL extends Election {
   /**
    * Function to determine candidates that won in each party. Adds each winner to the
    * winningCandidates attribute for later use. This assumes that the number of seats each party
-   * won is less than or equal to the number of candidates they have.
+   * won is less than or equal to the number of candidates they have. Only the votes of the
+   * candidate in each party's last seat are found, so the rest of the party's candidates don't
+   * need to be sorted.
    */
   private void determineWinners() {
     // go through each party and determine the winning candidates
-    int numSeatsWon;
-    ArrayList<Candidate> candidates;
-    TreeMap<Integer, ArrayList<Candidate>> orderedCandidates;
-    for(Party party: parties) {
-      orderedCandidates = new TreeMap<>(); // reset for each party
-      numSeatsWon = party.getNumberOfSeats();
-      candidates = party.getCandidates();
-
-      for (Candidate candidate: candidates) {
-        // put all candidates into TreeMap which will naturally order them by key
-        // having the value be the a list of candidates helps determine ties if needed
-        Integer numVotes = candidate.getCurNumVotes();
-        if (orderedCandidates.containsKey(numVotes)) {
-          // if the key already exists in the map, then add the party to the end of the list
-          orderedCandidates.get(numVotes).add(candidate);
-        } else {
-          ArrayList<Candidate> newList = new ArrayList<>();
-          newList.add(candidate);
-          orderedCandidates.put(numVotes, newList);
+    for (Party party: parties) {
+      int numSeatsWon = party.getNumberOfSeats();
+      if (numSeatsWon == 0) {
+        continue;
+      }
+      ArrayList<Candidate> candidates = party.getCandidates();
+      long[] votes = new long[candidates.size()];
+      for (int i = 0; i < votes.length; i++) {
+        votes[i] = candidates.get(i).getCurNumVotes();
+      }
+
+      // every candidate with more votes than the candidate in the last seat wins a seat, and the
+      // candidates with the same votes as the last seat may need to determine a tie
+      long lastSeatVotes = selectMostVotes(votes.clone(), numSeatsWon);
+      ArrayList<Integer> ahead = new ArrayList<>();
+      ArrayList<Candidate> currentCandidates = new ArrayList<>();
+      for (int i = 0; i < votes.length; i++) {
+        if (votes[i] > lastSeatVotes) {
+          ahead.add(i);
+        } else if (votes[i] == lastSeatVotes) {
+          currentCandidates.add(candidates.get(i));
         }
       }
 
-      Iterator<Integer> votesOrdered = orderedCandidates.descendingKeySet().iterator();
-      ArrayList<Candidate> currentCandidates;
-      for (int numSeatsDistributed = 0; numSeatsDistributed < numSeatsWon; numSeatsDistributed++) {
-        // go until there are no seats left
-        currentCandidates = orderedCandidates.get(votesOrdered.next());
-        if (currentCandidates.size() > 1) {
-          // may need to determine tie
-          if (numSeatsWon - numSeatsDistributed >= currentCandidates.size()) {
-            // no need to determine ties. Each candidate has won a seat
-            for (Candidate candidate: currentCandidates) {
-              winningCandidates.add(candidate);
-              numSeatsDistributed += 1;
-            }
-          } else {
-            // need to determine tie
-            // create tiedCandidates array so we can keep track of all the
-            // candidates left in the tie
-            ArrayList<Candidate> tiedCandidates = (ArrayList<Candidate>) currentCandidates.clone();
-
-            while (tiedCandidates.size() != 0 && numSeatsWon - numSeatsDistributed > 0) {
-              // go until there are no more candidates in the list (this shouldn't happen)
-              // otherwise, stop when there are no more seats left to distribute
-              // to winning candidates
-              int winningCandidateIndex = Election.handleTie(tiedCandidates.size());
-              // candidate successfully got a new seat. Need to report this tie to additional notes
-              winningCandidates.add(tiedCandidates.get(winningCandidateIndex));
-              reportCandidateTie(winningCandidateIndex, tiedCandidates);
-              // remove the party that won the tie from the list
-              tiedCandidates.remove(winningCandidateIndex);
-              numSeatsDistributed += 1;
-            }
-          }
-          // have to decrease by 1 to account that the 'for'-loop is going to increase it again
-          numSeatsDistributed -= 1;
-        } else {
-          // no tie, candidate has won a seat
-          winningCandidates.add(currentCandidates.get(0));
+      // the candidates ahead win from most to fewest votes, in the order of the party if tied
+      ahead.sort((a, b) -> votes[a] != votes[b] ? Long.compare(votes[b], votes[a])
+              : Integer.compare(a, b));
+      for (int i : ahead) {
+        winningCandidates.add(candidates.get(i));
+      }
+
+      int numSeatsLeft = numSeatsWon - ahead.size();
+      if (currentCandidates.size() <= numSeatsLeft) {
+        // no need to determine ties. Each candidate has won a seat
+        winningCandidates.addAll(currentCandidates);
+      } else {
+        // need to determine tie
+        // create tiedCandidates array so we can keep track of all the
+        // candidates left in the tie
+        ArrayList<Candidate> tiedCandidates = new ArrayList<>(currentCandidates);
+
+        while (tiedCandidates.size() != 0 && numSeatsLeft > 0) {
+          // go until there are no more candidates in the list (this shouldn't happen)
+          // otherwise, stop when there are no more seats left to distribute
+          // to winning candidates
+          int winningCandidateIndex = Election.handleTie(tiedCandidates.size());
+          // candidate successfully got a new seat. Need to report this tie to additional notes
+          winningCandidates.add(tiedCandidates.get(winningCandidateIndex));
+          reportCandidateTie(winningCandidateIndex, tiedCandidates);
+          // remove the party that won the tie from the list
+          tiedCandidates.remove(winningCandidateIndex);
+          numSeatsLeft -= 1;
         }
       }
     }
@@ -392,6 +804,47 @@ public class OPL extends Election {
     reportWinningCandidates();
   }
 
+  /**
+   * Helper function for determineWinners. Finds the kth most votes with quickselect, which takes
+   * linear time on average.
+   *
+   * @param votes the votes to select from, which are reordered.
+   * @param k the rank of the votes to find, where 1 is the most votes.
+   * @return the kth most votes.
+   */
+  private static long selectMostVotes(long[] votes, int k) {
+    int target = k - 1; // the index the votes would have if sorted from most to fewest
+    int left = 0;
+    int right = votes.length - 1;
+    while (left < right) {
+      long pivot = votes[(left + right) >>> 1];
+      int i = left;
+      int j = right;
+      while (i <= j) {
+        while (votes[i] > pivot) {
+          i++;
+        }
+        while (votes[j] < pivot) {
+          j--;
+        }
+        if (i <= j) {
+          long swap = votes[i];
+          votes[i++] = votes[j];
+          votes[j--] = swap;
+        }
+      }
+      // the votes before i are at least the pivot, and the votes after j are at most the pivot
+      if (target <= j) {
+        right = j;
+      } else if (target >= i) {
+        left = i;
+      } else {
+        return votes[target];
+      }
+    }
+    return votes[target];
+  }
+
   /**
    * Helper function for determineWinners. This function reports a tie to the
    * additionalNotes stringBuilder.
@@ -432,10 +885,19 @@ public class OPL extends Election {
    *
    * @return the election's quota.
    */
-  public int getQuota() {
+  public long getQuota() {
     return quota;
   }
 
+  /**
+   * Gets how the seats are allocated to the parties.
+   *
+   * @return the election's allocation method.
+   */
+  public AllocationMethod getAllocationMethod() {
+    return allocationMethod;
+  }
+
   /**
    * Gets the number of seats that are in the election.
    *
@@ -450,7 +912,7 @@ public class OPL extends Election {
    *
    * @return the number of votes cast.
    */
-  public int getTotalNumBallots() {
+  public long getTotalNumBallots() {
     return totalNumBallots;
   }
 
@@ -463,6 +925,37 @@ public class OPL extends Election {
     return winningCandidates;
   }
 
+  /**
+   * Gets the parties that have candidates in the election.
+   *
+   * @return the parties in the election.
+   */
+  public ArrayList<Party> getParties() {
+    return parties;
+  }
+
+  /**
+   * Gets the name of the district this election is held in.
+   *
+   * @return the district's name, or null if the election is not part of a multi-district election.
+   */
+  public String getDistrictName() {
+    return districtName;
+  }
+
+  /**
+   * Sets the name of the district this election is held in. The name is added to the names of the
+   * audit and media files so the files of each district are kept apart, and to the top of both
+   * files.
+   *
+   * @param districtName the district's name. Only letters, digits, '_' and '-' are allowed.
+   * @throws IllegalArgumentException if the districtName is null or has other characters.
+   */
+  public void setDistrictName(String districtName) throws IllegalArgumentException {
+    if (districtName == null || !districtName.matches("[\\w-]+")) throw new IllegalArgumentException("districtName must be letters, digits, '_' or '-'");
+    this.districtName = districtName;
+  }
+
   /**
    * Gets the mapping of the parties to their first allocation of seats.
    *
@@ -516,6 +1009,19 @@ public class OPL extends Election {
     StringBuilder allocationStatistics = new StringBuilder();
     allocationStatistics.append("Seat Allocation Statistics:\n");
     allocationStatistics.append("---------------------------\n");
+    if (allocationMethod != AllocationMethod.LARGEST_REMAINDER) {
+      // every seat is allocated in one pass, so there is no quota or remainder
+      allocationStatistics.append("***Seats Allocated by ".concat(allocationMethod.getDisplayName())
+                          .concat("***\n"));
+      allocationStatistics.append("[Party],[Votes],[Final Seat Total]\n");
+      for (Party party: parties) {
+        allocationStatistics.append(party.getName().concat(",")
+                            .concat(String.valueOf(party.getTotalVotes())).concat(",")
+                            .concat(String.valueOf(party.getNumberOfSeats())).concat("\n"));
+      }
+      allocationStatistics.append("\n");
+      return allocationStatistics.toString();
+    }
     allocationStatistics.append("***Quota for First Allocation: ".concat(String.valueOf(quota))
                         .concat(" Votes***\n"));
     allocationStatistics.append("[Party],[Votes],[First Allocation of Seats],[Remaining Votes],"
@@ -566,10 +1072,12 @@ public class OPL extends Election {
   protected void generateAuditFile() throws FileNotFoundException {
     DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern("yyyy_MM_dd_HH_mm_ss");
     LocalDateTime currentTime = LocalDateTime.now();
-    String filename = "OPLAuditFile_".concat(dateFormat.format(currentTime)).concat(".txt");
+    String filename = "OPLAuditFile_".concat(getDistrictFilePrefix())
+            .concat(dateFormat.format(currentTime)).concat(".txt");
     auditString.append(additionalNotes.toString());
 
     PrintWriter out = new PrintWriter(new File(filename));
+    out.print(getDistrictHeading());
     out.print(auditString.toString());
     out.close();
   }
@@ -581,9 +1089,11 @@ public class OPL extends Election {
   protected void generateMediaFile() throws FileNotFoundException {
     DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern("yyyy_MM_dd_HH_mm_ss");
     LocalDateTime currentTime = LocalDateTime.now();
-    String filename = "OPLMediaReport_".concat(dateFormat.format(currentTime)).concat(".txt");
+    String filename = "OPLMediaReport_".concat(getDistrictFilePrefix())
+            .concat(dateFormat.format(currentTime)).concat(".txt");
 
     PrintWriter out = new PrintWriter(new File(filename));
+    out.print(getDistrictHeading());
     out.print(getElectionResults());
     out.print(getSeatAllocationStatistics());
     out.print(getVotesForEachCandidate());
@@ -591,6 +1101,24 @@ public class OPL extends Election {
     out.close();
   }
 
+  /**
+   * Gets the part of the audit and media file names that tells the districts apart.
+   *
+   * @return the district's name followed by '_', or an empty string for a single election.
+   */
+  private String getDistrictFilePrefix() {
+    return districtName == null ? "" : districtName.concat("_");
+  }
+
+  /**
+   * Gets the line at the top of the audit and media files that names the district.
+   *
+   * @return the district line, or an empty string for a single election.
+   */
+  private String getDistrictHeading() {
+    return districtName == null ? "" : "District: ".concat(districtName).concat("\n");
+  }
+
   /**
    * Outputs the election results, allocation statistics, votes for each candidate,
    * and additionalNotes to the display screen.
@@ -289,6 +289,133 @@ public class OPLTest {
     assertEquals(0, parties.get(3).getNumberOfSeats());
   }
 
+  /**
+   * Ensures that a party that has a seat for each of its candidates does not stop a party with the
+   * same remaining votes from getting a remaining seat. This test does not induce ties.
+   */
+  @Test
+  public void testOPLSecondAllocationSkipsFullParties() {
+    int numParties = 3;
+    int[] numCandidatesPerParty = {3, 1, 2};
+    ArrayList<Party> parties = OPLTestHelpers.createBasicPartyInstance(numParties,
+                                                                       numCandidatesPerParty);
+
+    // quota is 1000, so p0 and p1 both have 500 remaining votes, but p1 has no candidates left
+    int[] partyVotes = {500, 1500, 1000};
+    int[][] candidateVotes = {{300, 150, 50}, {1500}, {600, 400}};
+    OPLTestHelpers.setPartyAndCandidateVotes(parties, partyVotes, candidateVotes);
+
+    OPL opl = new OPL(3000, 3, parties);
+    opl.runVotingAlgorithm();
+
+    assertEquals(1, parties.get(0).getNumberOfSeats());
+    assertEquals(1, parties.get(1).getNumberOfSeats());
+    assertEquals(1, parties.get(2).getNumberOfSeats());
+  }
+
+  /**
+   * Creates the parties of an election where D'Hondt and Sainte-Lague allocate the seats
+   * differently.
+   *
+   * @return the parties.
+   */
+  private ArrayList<Party> createHighestAveragesParties() {
+    ArrayList<Party> parties = OPLTestHelpers.createBasicPartyInstance(4, new int[] {5, 4, 2, 2});
+    int[] partyVotes = {100000, 80000, 30000, 20000};
+    int[][] candidateVotes = {{30000, 25000, 20000, 15000, 10000}, {35000, 25000, 15000, 5000},
+        {20000, 10000}, {12000, 8000}};
+    OPLTestHelpers.setPartyAndCandidateVotes(parties, partyVotes, candidateVotes);
+    return parties;
+  }
+
+  /**
+   * Ensures that D'Hondt and Sainte-Lague give each party the seats of its highest quotients,
+   * including a tie between quotients that all win a seat.
+   */
+  @Test
+  public void testOPLHighestAveragesAllocation() {
+    ArrayList<Party> parties = createHighestAveragesParties();
+    OPL opl = new OPL(230000, 8, parties, OPL.AllocationMethod.DHONDT);
+    opl.runVotingAlgorithm();
+    assertEquals(4, parties.get(0).getNumberOfSeats());
+    assertEquals(3, parties.get(1).getNumberOfSeats());
+    assertEquals(1, parties.get(2).getNumberOfSeats());
+    assertEquals(0, parties.get(3).getNumberOfSeats());
+    assertEquals(8, opl.getWinningCandidates().size());
+
+    // A's third quotient and D's first quotient are both 20000, and both win a seat
+    parties = createHighestAveragesParties();
+    opl = new OPL(230000, 8, parties, OPL.AllocationMethod.SAINTE_LAGUE);
+    opl.runVotingAlgorithm();
+    assertEquals(3, parties.get(0).getNumberOfSeats());
+    assertEquals(3, parties.get(1).getNumberOfSeats());
+    assertEquals(1, parties.get(2).getNumberOfSeats());
+    assertEquals(1, parties.get(3).getNumberOfSeats());
+    assertEquals(parties.get(3).getCandidates().get(0), opl.getWinningCandidates().get(7));
+    assertTrue(systemOut.toString().contains("No ties occurred in this election."));
+  }
+
+  /**
+   * Ensures that allocation methods are found by their command line names.
+   */
+  @Test
+  public void testOPLAllocationMethodFromOptionName() {
+    assertEquals(OPL.AllocationMethod.LARGEST_REMAINDER, OPL.AllocationMethod.fromOptionName(null));
+    assertEquals(OPL.AllocationMethod.DHONDT, OPL.AllocationMethod.fromOptionName("dhondt"));
+    assertEquals(OPL.AllocationMethod.SAINTE_LAGUE,
+            OPL.AllocationMethod.fromOptionName("sainte-lague"));
+    assertThrows(IllegalArgumentException.class,
+            () -> OPL.AllocationMethod.fromOptionName("hare"));
+    assertThrows(IllegalArgumentException.class,
+            () -> new OPL(10, 1, OPLTestHelpers.createBasicPartyInstance(1, new int[] {1}), null));
+  }
+
+  /**
+   * Ensures that a seat sweep reruns the election for each number of seats on the same votes,
+   * without changing the election it was run from.
+   */
+  @Test
+  public void testOPLSeatSweep() {
+    ArrayList<Party> parties = createHighestAveragesParties();
+    OPL opl = new OPL(230000, 8, parties, OPL.AllocationMethod.DHONDT);
+    int[][] sweptSeats = opl.sweepSeats(1, 8, 2);
+    int[][] expectedSeats = {{1, 0, 0, 0}, {1, 1, 0, 0}, {2, 1, 0, 0}, {2, 2, 0, 0}, {3, 2, 0, 0},
+        {3, 2, 1, 0}, {3, 3, 1, 0}, {4, 3, 1, 0}};
+    assertArrayEquals(expectedSeats, sweptSeats);
+    assertEquals(0, parties.get(0).getNumberOfSeats());
+    assertEquals(100000, parties.get(0).getTotalVotes());
+
+    String seatTable = opl.runSeatSweep(6, 7, 2);
+    assertEquals("[Seats],p0,p1,p2,p3\n6,3,2,1,0\n7,3,3,1,0\n", seatTable);
+    assertTrue(systemOut.toString().contains(seatTable));
+
+    opl.runVotingAlgorithm();
+    assertEquals(4, parties.get(0).getNumberOfSeats());
+    assertArrayEquals(expectedSeats, opl.sweepSeats(1, 8, 2));
+    assertThrows(IllegalArgumentException.class, () -> opl.sweepSeats(0, 8, 2));
+    assertThrows(IllegalArgumentException.class, () -> opl.sweepSeats(9, 8, 2));
+    assertThrows(IllegalArgumentException.class, () -> opl.sweepSeats(1, 8, 0));
+  }
+
+  /**
+   * Ensures that a seat sweep can't have more seats than ballots, and that the rows where the
+   * rounded down quota gives out more seats than there are are marked.
+   */
+  @Test
+  public void testOPLSeatSweepQuota() {
+    ArrayList<Party> parties = OPLTestHelpers.createBasicPartyInstance(2, new int[] {4, 4});
+    OPLTestHelpers.setPartyAndCandidateVotes(parties, new int[] {5, 6},
+            new int[][] {{2, 1, 1, 1}, {3, 1, 1, 1}});
+    OPL opl = new OPL(11, 3, parties, OPL.AllocationMethod.LARGEST_REMAINDER);
+    assertThrows(IllegalArgumentException.class, () -> opl.sweepSeats(1, 12, 2));
+
+    // with 4 seats the quota of 11 / 4 is rounded down to 2, which gives out 2 + 3 seats
+    assertArrayEquals(new int[][] {{1, 2}, {2, 3}, {2, 3}}, opl.sweepSeats(3, 5, 2));
+    String seatTable = opl.runSeatSweep(3, 5, 2);
+    assertEquals("[Seats],p0,p1\n3,1,2\n4,2,3 *\n5,2,3\n\n"
+            + "* 4 seats: the quota of 2 (rounded down) gave out 5 seats.\n", seatTable);
+  }
+
   /**
    * Ensures that the most popular candidate(s) of each party was elected depending on the number
    * of seats won. Does not induce any ties.
@@ -349,6 +476,28 @@ public class OPLTest {
     }
   }
 
+  /**
+   * Ensures that the winners of a party with more candidates than seats are its most popular
+   * candidates from most to fewest votes, with candidates that have the same votes in the order of
+   * the party. Does not induce any ties.
+   */
+  @Test
+  public void testOPLWinnersOrderedByVotes() {
+    ArrayList<Party> parties = OPLTestHelpers.createBasicPartyInstance(1, new int[] {6});
+    OPLTestHelpers.setPartyAndCandidateVotes(parties, new int[] {33},
+            new int[][] {{5, 9, 2, 9, 7, 1}});
+
+    OPL opl = new OPL(33, 3, parties);
+    opl.runVotingAlgorithm();
+
+    ArrayList<Candidate> candidates = parties.get(0).getCandidates();
+    ArrayList<Candidate> expectedWinners = new ArrayList<>();
+    expectedWinners.add(candidates.get(1));
+    expectedWinners.add(candidates.get(3));
+    expectedWinners.add(candidates.get(4));
+    assertEquals(expectedWinners, opl.getWinningCandidates());
+  }
+
   /**
    * Ensures that the output to the console, audit file, and media report are expected outputs.
    * This works by running the algorithm, and comparing the outputs to example output files
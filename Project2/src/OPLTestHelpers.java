@@ -12,8 +12,8 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
  */
 public class OPLTestHelpers {
   /**
-   * A helper function for the unit tests that will delete any instance of a Media Report or an OPL
-   * Audit File from the current working directory
+   * A helper function for the unit tests that will delete any instance of a Media Report, an OPL
+   * Audit File, a District Summary, or a Seat Sweep from the current working directory
    */
   public static void deleteElectionOutputFiles() {
     File currentDirectory = new File(System.getProperty("user.dir")); // current working directory
@@ -23,7 +23,9 @@ public class OPLTestHelpers {
     for (File file: listOfFiles) {
       currentFileName = file.getName();
       currentSplit = currentFileName.split("_");
-      if ("OPLMediaReport".equals(currentSplit[0]) || "OPLAuditFile".equals(currentSplit[0])) {
+      if ("OPLMediaReport".equals(currentSplit[0]) || "OPLAuditFile".equals(currentSplit[0])
+              || "OPLDistrictSummary".equals(currentSplit[0])
+              || "OPLSeatSweep".equals(currentSplit[0])) {
         // delete the files
         file.delete();
       }
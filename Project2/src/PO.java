@@ -6,7 +6,7 @@ import java.util.ArrayList;
  */
 public class PO extends Election {
 
-  int totalNumBallots;
+  long totalNumBallots;
   ArrayList<Party> parties;
 
   /**
@@ -15,7 +15,7 @@ public class PO extends Election {
    * @param totalNumBallots total ballots for the PO election.
    * @param parties parties participating in the PO election.
    */
-  public PO(int totalNumBallots, ArrayList<Party> parties) {
+  public PO(long totalNumBallots, ArrayList<Party> parties) {
     this.totalNumBallots = totalNumBallots;
     this.parties = parties;
   }
@@ -25,7 +25,7 @@ public class PO extends Election {
    *
    * @return total number of ballots.
    */
-  public int getTotalNumBallots() {
+  public long getTotalNumBallots() {
     return totalNumBallots;
   }
 
@@ -1,7 +1,8 @@
 import java.util.ArrayList;
 
 /**
- * Party class represents the parties participating in the election.
+ * Party class represents the parties participating in the election. A party's votes and seats are
+ * kept in the VoteTally of the election the party is in.
  *
  * @author Noah Park
  */
@@ -17,19 +18,14 @@ public class Party {
   private ArrayList<Candidate> candidates;
 
   /**
-   * The total votes that the party has earned in an election
+   * The tally holding the votes and seats the party has earned in an election
    */
-  private int totalVotes;
+  private VoteTally tally;
 
   /**
-   * The number of votes remaining for this party if running the OPL algorithm.
+   * The index of the party in its tally
    */
-  private int remainingVotes;
-
-  /**
-   * The number of seats the party has earned in an OPL election.
-   */
-  private int numberOfSeats;
+  private int tallyIndex;
 
   /**
    * Party constructor initializes party object.
@@ -42,9 +38,37 @@ public class Party {
 
     this.name = name;
     candidates = new ArrayList<>();
-    totalVotes = 0;
-    remainingVotes = 0;
-    numberOfSeats = 0;
+    tally = new VoteTally(0, 1);
+    tallyIndex = 0;
+  }
+
+  /**
+   * Moves the party into a tally. The tally is expected to already hold the party's votes and seats.
+   *
+   * @param tally the tally the party's votes and seats are kept in.
+   * @param tallyIndex the index of the party in the tally.
+   */
+  void bind(VoteTally tally, int tallyIndex) {
+    this.tally = tally;
+    this.tallyIndex = tallyIndex;
+  }
+
+  /**
+   * Gets the tally the party's votes and seats are kept in.
+   *
+   * @return the party's tally.
+   */
+  VoteTally getTally() {
+    return tally;
+  }
+
+  /**
+   * Gets the index of the party in its tally.
+   *
+   * @return the party's index in its tally.
+   */
+  int getTallyIndex() {
+    return tallyIndex;
   }
 
   /**
@@ -82,8 +106,8 @@ public class Party {
    *
    * @return total votes for the party.
    */
-  public int getTotalVotes() {
-    return totalVotes;
+  public long getTotalVotes() {
+    return tally.getPartyVotes(tallyIndex);
   }
 
   /**
@@ -91,8 +115,8 @@ public class Party {
    *
    * @return remaining votes for the party.
    */
-  public int getRemainingVotes() {
-    return remainingVotes;
+  public long getRemainingVotes() {
+    return tally.getRemainingVotes(tallyIndex);
   }
 
   /**
@@ -114,10 +138,10 @@ public class Party {
    * @param votes the total votes for the party.
    * @throws IllegalArgumentException if votes is negative.
    */
-  public void setTotalVotes(int votes) throws IllegalArgumentException {
+  public void setTotalVotes(long votes) throws IllegalArgumentException {
     if (votes < 0) throw new IllegalArgumentException("Votes cannot be negative.");
 
-    totalVotes = votes;
+    tally.setPartyVotes(tallyIndex, votes);
   }
 
   /**
@@ -126,10 +150,10 @@ public class Party {
    * @param votes the remaining votes for the party.
    * @throws IllegalArgumentException if votes is negative.
    */
-  public void setRemainingVotes(int votes) throws IllegalArgumentException {
+  public void setRemainingVotes(long votes) throws IllegalArgumentException {
     if (votes < 0) throw new IllegalArgumentException("Votes cannot be negative.");
 
-    remainingVotes = votes;
+    tally.setRemainingVotes(tallyIndex, votes);
   }
 
   /**
@@ -138,7 +162,7 @@ public class Party {
    * @return number of seats for the party.
    */
   public int getNumberOfSeats() {
-    return numberOfSeats;
+    return tally.getSeats(tallyIndex);
   }
 
   /**
@@ -150,7 +174,7 @@ public class Party {
   public void setNumberOfSeats(int seats) throws IllegalArgumentException {
     if (seats < 0) throw new IllegalArgumentException("Seats cannot be negative.");
 
-    numberOfSeats = seats;
+    tally.setSeats(tallyIndex, seats);
   }
 
   /**
@@ -0,0 +1,707 @@
+import java.util.Arrays;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * RankingTrie stores the rankings of a ranked election as a prefix trie of candidate IDs, so
+ * rankings that start the same way share the nodes of their common prefix. Each node is a
+ * candidate ID on a path from the root, and counts the ballots whose ranking ends at that node. The
+ * children of the root are the first choices of the ballots.
+ *
+ * Eliminating a candidate splices each node of that candidate out of the trie: the ballots ending
+ * at the node end at its parent instead, and its children are merged into its parent's children.
+ * Only the subtrees under the candidate's nodes are visited. The rankings left in the trie never
+ * have an eliminated candidate in them, so the first candidate of a ranking is always the
+ * candidate its ballots currently count towards.
+ *
+ * Nodes are kept in arrays indexed by node number, and the root is node 0. The ballots ending at a
+ * node are a group, which is numbered in the order the groups were added. When two nodes are merged,
+ * the merged node keeps one of their groups and the other group is removed, since its ballots are
+ * now counted by the group that was kept.
+ */
+public class RankingTrie {
+
+  /**
+   * The node number of the root, which stands for an empty ranking.
+   */
+  public static final int ROOT = 0;
+
+  /**
+   * The candidate ID of each node, or -1 for the root and for removed nodes.
+   */
+  private short[] candidates;
+
+  /**
+   * The parent of each node, or -1 for the root.
+   */
+  private int[] parents;
+
+  /**
+   * The first child of each node, or -1 if it has no children.
+   */
+  private int[] firstChildren;
+
+  /**
+   * The next child of the same parent as each node, or -1 if it is the last child.
+   */
+  private int[] nextSiblings;
+
+  /**
+   * The number of ballots whose ranking ends at each node.
+   */
+  private long[] counts;
+
+  /**
+   * The number of nodes, including removed nodes.
+   */
+  private int size;
+
+  /**
+   * The group of the ballots ending at each node, or -1 if the node has no group.
+   */
+  private int[] nodeGroups;
+
+  /**
+   * The node each group's ballots end at, or -1 if the group has been removed.
+   */
+  private int[] groupNodes;
+
+  /**
+   * The number of groups, including removed groups.
+   */
+  private int numGroups;
+
+  /**
+   * The nodes of each candidate ID, including nodes that have since been removed. Only the first
+   * numNodesByCandidate nodes of each array are used.
+   */
+  private int[][] nodesByCandidate;
+
+  /**
+   * The number of nodes of each candidate ID.
+   */
+  private int[] numNodesByCandidate;
+
+  /**
+   * Constructor initializes a trie with only the root.
+   *
+   * @param numCandidates the number of candidate IDs.
+   * @throws IllegalArgumentException if numCandidates is negative.
+   */
+  public RankingTrie(int numCandidates) throws IllegalArgumentException {
+    if (numCandidates < 0) throw new IllegalArgumentException("The number of candidates must be nonnegative.");
+
+    candidates = new short[16];
+    parents = new int[16];
+    firstChildren = new int[16];
+    nextSiblings = new int[16];
+    counts = new long[16];
+    nodeGroups = new int[16];
+    groupNodes = new int[16];
+    nodesByCandidate = new int[numCandidates][];
+    numNodesByCandidate = new int[numCandidates];
+    newNode((short) -1, -1);
+  }
+
+  /**
+   * Adds ballots that cast a ranking.
+   *
+   * @param ranking the candidate IDs in order of preference.
+   * @param count the number of ballots.
+   * @return the group of the ballots ending where the ranking ends.
+   * @throws IllegalArgumentException if the ranking is empty or has an ID that isn't a candidate.
+   */
+  public int add(short[] ranking, long count) throws IllegalArgumentException {
+    if (ranking == null || ranking.length == 0) throw new IllegalArgumentException("A ranking must have at least one candidate.");
+
+    int node = ROOT;
+    for (short candidateID : ranking) {
+      if (candidateID < 0 || candidateID >= nodesByCandidate.length) {
+        throw new IllegalArgumentException("Candidate ID " + candidateID + " is not in the election.");
+      }
+      int child = findChild(node, candidateID);
+      if (child < 0) {
+        child = newNode(candidateID, node);
+        nextSiblings[child] = firstChildren[node];
+        firstChildren[node] = child;
+      }
+      node = child;
+    }
+    counts[node] += count;
+    if (nodeGroups[node] < 0) {
+      if (numGroups == groupNodes.length) {
+        groupNodes = Arrays.copyOf(groupNodes, numGroups * 2);
+      }
+      groupNodes[numGroups] = node;
+      nodeGroups[node] = numGroups++;
+    }
+    return nodeGroups[node];
+  }
+
+  /**
+   * Gets the number of ballots in a group.
+   *
+   * @param group the group.
+   * @return the number of ballots, or 0 if the group has been removed.
+   */
+  public long getCount(int group) {
+    return groupNodes[group] < 0 ? 0 : counts[groupNodes[group]];
+  }
+
+  /**
+   * Checks if a group has been removed, either by merging it into another group or because its
+   * ballots have no more candidates.
+   *
+   * @param group the group.
+   * @return true if the group has been removed.
+   */
+  public boolean isRemoved(int group) {
+    return groupNodes[group] < 0;
+  }
+
+  /**
+   * Gets the ranking of a group.
+   *
+   * @param group the group, which must not have been removed.
+   * @param ranking an array long enough for the ranking, which it is written to.
+   * @return the length of the ranking.
+   */
+  public int getRanking(int group, short[] ranking) {
+    int node = groupNodes[group];
+    int length = 0;
+    for (int ancestor = node; ancestor != ROOT; ancestor = parents[ancestor]) {
+      length++;
+    }
+    int index = length;
+    for (int ancestor = node; ancestor != ROOT; ancestor = parents[ancestor]) {
+      ranking[--index] = candidates[ancestor];
+    }
+    return length;
+  }
+
+  /**
+   * Gets the number of groups, including removed groups. Every group number is less than this.
+   * @return the number of groups
+   */
+  public int getNumGroups() {
+    return numGroups;
+  }
+
+  /**
+   * Counts the first choice votes of each candidate, which are the ballots ending under each child
+   * of the root.
+   *
+   * @return the votes of each candidate, indexed by candidate ID.
+   */
+  public long[] countFirstChoices() {
+    long[] votes = new long[nodesByCandidate.length];
+    for (int child = firstChildren[ROOT]; child >= 0; child = nextSiblings[child]) {
+      votes[candidates[child]] += countBallots(child);
+    }
+    return votes;
+  }
+
+  /**
+   * Splices every node of a candidate out of the trie, so that the candidate's ballots count
+   * towards their next preference. The nodes are spliced from the deepest to the shallowest, since
+   * splicing a node merges its children into the subtree of its parent, which can hold deeper nodes
+   * of the candidate. Nodes at the same depth have different parents and are never in each other's
+   * subtrees, so they are spliced in shards that run in parallel once there are more nodes at that
+   * depth than fit in one shard.
+   *
+   * @param candidateID the candidate ID of the eliminated candidate.
+   * @param shardSize the most nodes a shard splices without being split.
+   * @return the votes that moved to other candidates and the votes that left the election.
+   * @throws IllegalArgumentException if the candidate ID isn't a candidate.
+   */
+  public Transfer eliminate(short candidateID, int shardSize) throws IllegalArgumentException {
+    if (candidateID < 0 || candidateID >= nodesByCandidate.length) {
+      throw new IllegalArgumentException("Candidate ID " + candidateID + " is not in the election.");
+    }
+
+    int[] nodes = nodesByCandidate[candidateID];
+    int numNodes = numNodesByCandidate[candidateID];
+    nodesByCandidate[candidateID] = null;
+    numNodesByCandidate[candidateID] = 0;
+    Transfer transfer = new Transfer(nodesByCandidate.length);
+    if (nodes == null) {
+      return transfer;
+    }
+
+    // sort the nodes that haven't been removed by depth, deepest first
+    int[] depths = new int[numNodes];
+    int maxDepth = 0;
+    for (int i = 0; i < numNodes; i++) {
+      if (candidates[nodes[i]] == candidateID) {
+        for (int ancestor = nodes[i]; ancestor != ROOT; ancestor = parents[ancestor]) {
+          depths[i]++;
+        }
+        maxDepth = Math.max(maxDepth, depths[i]);
+      }
+    }
+    int[] depthStarts = new int[maxDepth + 2];
+    for (int i = 0; i < numNodes; i++) {
+      depthStarts[maxDepth + 1 - depths[i]]++;
+    }
+    for (int depth = 1; depth < depthStarts.length; depth++) {
+      depthStarts[depth] += depthStarts[depth - 1];
+    }
+    int[] byDepth = new int[numNodes];
+    for (int i = numNodes - 1; i >= 0; i--) {
+      byDepth[--depthStarts[maxDepth + 1 - depths[i]]] = nodes[i];
+    }
+
+    for (int level = 1; level <= maxDepth; level++) {
+      Transfer levelTransfer = new SpliceTask(byDepth, depthStarts[level], depthStarts[level + 1],
+              Math.max(1, shardSize)).invoke();
+      transfer.add(levelTransfer);
+    }
+    return transfer;
+  }
+
+  /**
+   * Counts the first choice votes of a candidate that can only ever move to one other candidate:
+   * the ballots whose ranking ends at the first choice, and the ballots that rank the other
+   * candidate next. While the other candidate is in the election, none of these ballots can count
+   * towards a third candidate.
+   *
+   * @param firstChoice the candidate ID of the first choice.
+   * @param nextChoice the candidate ID of the other candidate.
+   * @return the number of ballots.
+   * @throws IllegalArgumentException if a candidate ID isn't a candidate.
+   */
+  public long countHeldBallots(short firstChoice, short nextChoice) throws IllegalArgumentException {
+    if (firstChoice < 0 || firstChoice >= nodesByCandidate.length || nextChoice < 0
+            || nextChoice >= nodesByCandidate.length) {
+      throw new IllegalArgumentException("Candidate IDs " + firstChoice + " and " + nextChoice
+              + " are not both in the election.");
+    }
+
+    int node = findChild(ROOT, firstChoice);
+    if (node < 0) {
+      return 0;
+    }
+    int next = findChild(node, nextChoice);
+    return counts[node] + (next < 0 ? 0 : countBallots(next));
+  }
+
+  /**
+   * Finds the groups whose rankings have a candidate, which are the groups ending at one of the
+   * candidate's nodes or under it. Only the subtrees under the candidate's nodes are visited.
+   *
+   * @param candidateID the candidate ID.
+   * @return the groups in the order they were added.
+   * @throws IllegalArgumentException if the candidate ID isn't a candidate.
+   */
+  public int[] findGroupsWith(short candidateID) throws IllegalArgumentException {
+    if (candidateID < 0 || candidateID >= nodesByCandidate.length) {
+      throw new IllegalArgumentException("Candidate ID " + candidateID + " is not in the election.");
+    }
+
+    int[] groups = new int[16];
+    int numFound = 0;
+    int[] stack = new int[16];
+    for (int i = 0; i < numNodesByCandidate[candidateID]; i++) {
+      int node = nodesByCandidate[candidateID][i];
+      if (candidates[node] != candidateID) {
+        continue; // the node has been removed
+      }
+      // a ranking has the candidate only once, so the subtrees of its nodes never overlap
+      int stackSize = 0;
+      stack[stackSize++] = node;
+      while (stackSize > 0) {
+        int next = stack[--stackSize];
+        if (nodeGroups[next] >= 0) {
+          if (numFound == groups.length) {
+            groups = Arrays.copyOf(groups, numFound * 2);
+          }
+          groups[numFound++] = nodeGroups[next];
+        }
+        for (int child = firstChildren[next]; child >= 0; child = nextSiblings[child]) {
+          if (stackSize == stack.length) {
+            stack = Arrays.copyOf(stack, stackSize * 2);
+          }
+          stack[stackSize++] = child;
+        }
+      }
+    }
+    groups = Arrays.copyOf(groups, numFound);
+    Arrays.sort(groups);
+    return groups;
+  }
+
+  /**
+   * Counts the ballots whose ranking is written as a sequence of classes, where each candidate ID
+   * is written as its class. Rankings of different candidates in the same class are written the
+   * same way, such as the rankings of candidates from the same party.
+   *
+   * @param classRanking the classes of the ranking in order of preference.
+   * @param classes the class of each candidate ID.
+   * @return the number of ballots, or -1 if no group has a ranking written as classRanking.
+   */
+  public long countRankings(int[] classRanking, int[] classes) {
+    return countRankings(ROOT, classRanking, 0, classes);
+  }
+
+  /**
+   * Counts the ballots ending under a node whose ranking is written as a sequence of classes, where
+   * the ranking up to the node is already written as the start of the sequence.
+   *
+   * @param node the node.
+   * @param classRanking the classes of the ranking in order of preference.
+   * @param depth the depth of the node, which is how much of classRanking is already matched.
+   * @param classes the class of each candidate ID.
+   * @return the number of ballots, or -1 if no group under the node has the ranking.
+   */
+  private long countRankings(int node, int[] classRanking, int depth, int[] classes) {
+    if (depth == classRanking.length) {
+      return nodeGroups[node] < 0 ? -1 : counts[node];
+    }
+    long ballots = -1;
+    for (int child = firstChildren[node]; child >= 0; child = nextSiblings[child]) {
+      if (classes[candidates[child]] == classRanking[depth]) {
+        long childBallots = countRankings(child, classRanking, depth + 1, classes);
+        if (childBallots >= 0) {
+          ballots = Math.max(ballots, 0) + childBallots;
+        }
+      }
+    }
+    return ballots;
+  }
+
+  /**
+   * Gets the number of nodes a candidate's ranking can be spliced out of, including removed nodes.
+   *
+   * @param candidateID the candidate ID.
+   * @return the number of nodes.
+   */
+  public int getNumNodes(short candidateID) {
+    return numNodesByCandidate[candidateID];
+  }
+
+  /**
+   * Splices a node out of the trie.
+   *
+   * @param node the node.
+   * @param transfer the transfer to add the moved votes to.
+   */
+  private void splice(int node, Transfer transfer) {
+    int parent = parents[node];
+    removeChild(parent, node);
+
+    // the ballots ending at the node end at its parent, or leave the election at the root
+    if (parent == ROOT) {
+      transfer.exhaustedVotes += counts[node];
+      if (nodeGroups[node] >= 0) {
+        groupNodes[nodeGroups[node]] = -1;
+        nodeGroups[node] = -1;
+      }
+      counts[node] = 0;
+      for (int child = firstChildren[node]; child >= 0; child = nextSiblings[child]) {
+        transfer.addVotes(candidates[child], countBallots(child));
+      }
+    } else {
+      mergeGroup(node, parent);
+    }
+    candidates[node] = -1;
+
+    mergeChildren(node, parent);
+  }
+
+  /**
+   * Moves the children of a node to another node, merging each with the other node's child of the
+   * same candidate if it has one.
+   *
+   * @param from the node whose children move.
+   * @param to the node the children move to.
+   */
+  private void mergeChildren(int from, int to) {
+    int child = firstChildren[from];
+    firstChildren[from] = -1;
+    while (child >= 0) {
+      int next = nextSiblings[child];
+      int sameCandidate = findChild(to, candidates[child]);
+      if (sameCandidate < 0) {
+        parents[child] = to;
+        nextSiblings[child] = firstChildren[to];
+        firstChildren[to] = child;
+      } else {
+        mergeGroup(child, sameCandidate);
+        mergeChildren(child, sameCandidate);
+        candidates[child] = -1;
+      }
+      child = next;
+    }
+  }
+
+  /**
+   * Moves the ballots ending at a node to another node. If the other node has no group, the
+   * node's group moves with its ballots, otherwise the node's group is removed.
+   *
+   * @param from the node whose ballots move.
+   * @param to the node the ballots move to.
+   */
+  private void mergeGroup(int from, int to) {
+    counts[to] += counts[from];
+    counts[from] = 0;
+    int group = nodeGroups[from];
+    if (group >= 0) {
+      if (nodeGroups[to] < 0) {
+        nodeGroups[to] = group;
+        groupNodes[group] = to;
+      } else {
+        groupNodes[group] = -1;
+      }
+      nodeGroups[from] = -1;
+    }
+  }
+
+  /**
+   * Counts the ballots whose ranking ends at a node or under it.
+   *
+   * @param node the node.
+   * @return the number of ballots.
+   */
+  private long countBallots(int node) {
+    long ballots = counts[node];
+    for (int child = firstChildren[node]; child >= 0; child = nextSiblings[child]) {
+      ballots += countBallots(child);
+    }
+    return ballots;
+  }
+
+  /**
+   * Finds the child of a node for a candidate.
+   *
+   * @param node the node.
+   * @param candidateID the candidate ID of the child.
+   * @return the child, or -1 if the node has no child for the candidate.
+   */
+  private int findChild(int node, short candidateID) {
+    for (int child = firstChildren[node]; child >= 0; child = nextSiblings[child]) {
+      if (candidates[child] == candidateID) {
+        return child;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Takes a child out of the children of a node.
+   *
+   * @param node the node.
+   * @param child the child to take out.
+   */
+  private void removeChild(int node, int child) {
+    if (firstChildren[node] == child) {
+      firstChildren[node] = nextSiblings[child];
+      return;
+    }
+    int previous = firstChildren[node];
+    while (nextSiblings[previous] != child) {
+      previous = nextSiblings[previous];
+    }
+    nextSiblings[previous] = nextSiblings[child];
+  }
+
+  /**
+   * Adds a node with no children and no ballots.
+   *
+   * @param candidateID the candidate ID of the node.
+   * @param parent the parent of the node.
+   * @return the new node.
+   */
+  private int newNode(short candidateID, int parent) {
+    if (size == candidates.length) {
+      candidates = Arrays.copyOf(candidates, size * 2);
+      parents = Arrays.copyOf(parents, size * 2);
+      firstChildren = Arrays.copyOf(firstChildren, size * 2);
+      nextSiblings = Arrays.copyOf(nextSiblings, size * 2);
+      counts = Arrays.copyOf(counts, size * 2);
+      nodeGroups = Arrays.copyOf(nodeGroups, size * 2);
+    }
+    candidates[size] = candidateID;
+    parents[size] = parent;
+    firstChildren[size] = -1;
+    nextSiblings[size] = -1;
+    nodeGroups[size] = -1;
+    if (candidateID >= 0) {
+      int[] nodes = nodesByCandidate[candidateID];
+      if (nodes == null) {
+        nodes = new int[8];
+      } else if (numNodesByCandidate[candidateID] == nodes.length) {
+        nodes = Arrays.copyOf(nodes, nodes.length * 2);
+      }
+      nodes[numNodesByCandidate[candidateID]++] = size;
+      nodesByCandidate[candidateID] = nodes;
+    }
+    return size++;
+  }
+
+  /**
+   * The votes that moved while a candidate was eliminated.
+   */
+  public static class Transfer {
+
+    /**
+     * The votes each candidate received, indexed by candidate ID.
+     */
+    private final long[] votes;
+
+    /**
+     * The candidate IDs of the candidates that received votes, in the order they first received
+     * them. Only the first numReceivers IDs are used.
+     */
+    private int[] receivers;
+
+    /**
+     * The number of candidates that received votes.
+     */
+    private int numReceivers;
+
+    /**
+     * The votes that left the election because their rankings had no more candidates.
+     */
+    private long exhaustedVotes;
+
+    /**
+     * Constructor initializes a transfer where no votes moved.
+     *
+     * @param numCandidates the number of candidate IDs.
+     */
+    private Transfer(int numCandidates) {
+      votes = new long[numCandidates];
+      receivers = new int[4];
+    }
+
+    /**
+     * Adds votes that moved to a candidate.
+     *
+     * @param candidateID the candidate ID of the candidate that received the votes.
+     * @param moved the number of votes.
+     */
+    private void addVotes(int candidateID, long moved) {
+      if (moved <= 0) {
+        return;
+      }
+      if (votes[candidateID] == 0) {
+        if (numReceivers == receivers.length) {
+          receivers = Arrays.copyOf(receivers, numReceivers * 2);
+        }
+        receivers[numReceivers++] = candidateID;
+      }
+      votes[candidateID] += moved;
+    }
+
+    /**
+     * Adds the votes of another transfer to this one. Only the candidates that received votes in the
+     * other transfer are visited.
+     *
+     * @param other the other transfer.
+     */
+    private void add(Transfer other) {
+      for (int i = 0; i < other.numReceivers; i++) {
+        addVotes(other.receivers[i], other.votes[other.receivers[i]]);
+      }
+      exhaustedVotes += other.exhaustedVotes;
+    }
+
+    /**
+     * Gets the votes a candidate received.
+     *
+     * @param candidateID the candidate ID.
+     * @return the number of votes.
+     */
+    public long getVotes(int candidateID) {
+      return votes[candidateID];
+    }
+
+    /**
+     * Gets the candidates that received votes.
+     *
+     * @return the candidate IDs, in the order the candidates first received votes.
+     */
+    public int[] getReceivers() {
+      return Arrays.copyOf(receivers, numReceivers);
+    }
+
+    /**
+     * Gets the votes that left the election because their rankings had no more candidates.
+     * @return the number of votes
+     */
+    public long getExhaustedVotes() {
+      return exhaustedVotes;
+    }
+  }
+
+  /**
+   * Splices a shard of a candidate's nodes out of the trie, splitting the shard in two until it is
+   * small enough.
+   */
+  private class SpliceTask extends RecursiveTask<Transfer> {
+
+    /**
+     * The version of the task's serialized form, which RecursiveTask needs as a Serializable class.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The nodes of the eliminated candidate.
+     */
+    private final int[] nodes;
+
+    /**
+     * The index of the first node of the shard.
+     */
+    private final int from;
+
+    /**
+     * The index after the last node of the shard.
+     */
+    private final int to;
+
+    /**
+     * The most nodes a shard splices without being split.
+     */
+    private final int shardSize;
+
+    /**
+     * Constructor initializes the task for a shard of nodes.
+     *
+     * @param nodes the nodes of the eliminated candidate.
+     * @param from the index of the first node of the shard.
+     * @param to the index after the last node of the shard.
+     * @param shardSize the most nodes a shard splices without being split.
+     */
+    private SpliceTask(int[] nodes, int from, int to, int shardSize) {
+      this.nodes = nodes;
+      this.from = from;
+      this.to = to;
+      this.shardSize = shardSize;
+    }
+
+    /**
+     * Splices the shard's nodes out of the trie.
+     *
+     * @return the votes the shard moved.
+     */
+    @Override
+    protected Transfer compute() {
+      if (to - from > shardSize) {
+        int middle = (from + to) >>> 1;
+        SpliceTask first = new SpliceTask(nodes, from, middle, shardSize);
+        first.fork();
+        Transfer transfer = new SpliceTask(nodes, middle, to, shardSize).compute();
+        transfer.add(first.join());
+        return transfer;
+      }
+
+      Transfer transfer = new Transfer(nodesByCandidate.length);
+      for (int i = from; i < to; i++) {
+        if (candidates[nodes[i]] >= 0) {
+          splice(nodes[i], transfer);
+        }
+      }
+      return transfer;
+    }
+  }
+}
@@ -0,0 +1,191 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RankingTrie Class Unit Tests
+ */
+public class RankingTrieTest {
+
+  /**
+   * Gets the ranking of a group as an array of its exact length.
+   *
+   * @param trie the trie.
+   * @param group the group.
+   * @return the ranking.
+   */
+  private static short[] ranking(RankingTrie trie, int group) {
+    short[] ranking = new short[8];
+    return Arrays.copyOf(ranking, trie.getRanking(group, ranking));
+  }
+
+  /**
+   * Tests that rankings sharing a prefix are stored once per distinct ranking, with groups numbered
+   * in the order they were added, and that first choices are counted.
+   */
+  @Test
+  public void testAdd() {
+    RankingTrie trie = new RankingTrie(4);
+    assertEquals(0, trie.add(new short[] {0, 1, 2}, 3));
+    assertEquals(1, trie.add(new short[] {0, 1}, 2));
+    assertEquals(2, trie.add(new short[] {3}, 4));
+    assertEquals(0, trie.add(new short[] {0, 1, 2}, 1));
+
+    assertEquals(3, trie.getNumGroups());
+    assertEquals(4, trie.getCount(0));
+    assertArrayEquals(new short[] {0, 1, 2}, ranking(trie, 0));
+    assertArrayEquals(new short[] {0, 1}, ranking(trie, 1));
+    assertArrayEquals(new long[] {6, 0, 0, 4}, trie.countFirstChoices());
+    assertEquals(1, trie.getNumNodes((short) 1));
+  }
+
+  /**
+   * Tests that eliminating a first choice moves its ballots to their next preference, and that
+   * ballots with no next preference leave the election.
+   */
+  @Test
+  public void testEliminateFirstChoice() {
+    RankingTrie trie = new RankingTrie(3);
+    int exhausted = trie.add(new short[] {0}, 5);
+    int toOne = trie.add(new short[] {0, 1, 2}, 3);
+    int toTwo = trie.add(new short[] {0, 2}, 2);
+
+    RankingTrie.Transfer transfer = trie.eliminate((short) 0, 1);
+    assertEquals(5, transfer.getExhaustedVotes());
+    assertEquals(0, transfer.getVotes(0));
+    assertEquals(3, transfer.getVotes(1));
+    assertEquals(2, transfer.getVotes(2));
+    int[] receivers = transfer.getReceivers();
+    Arrays.sort(receivers);
+    assertArrayEquals(new int[] {1, 2}, receivers);
+
+    assertTrue(trie.isRemoved(exhausted));
+    assertEquals(0, trie.getCount(exhausted));
+    assertArrayEquals(new short[] {1, 2}, ranking(trie, toOne));
+    assertArrayEquals(new short[] {2}, ranking(trie, toTwo));
+    assertArrayEquals(new long[] {0, 3, 2}, trie.countFirstChoices());
+  }
+
+  /**
+   * Tests that rankings that only differ by an eliminated candidate are merged into one group,
+   * including when the candidate is not the first choice.
+   */
+  @Test
+  public void testEliminateMergesRankings() {
+    RankingTrie trie = new RankingTrie(4);
+    int kept = trie.add(new short[] {3, 1, 2}, 4);
+    int merged = trie.add(new short[] {3, 0, 1, 2}, 6);
+    int shortened = trie.add(new short[] {3, 0}, 1);
+
+    RankingTrie.Transfer transfer = trie.eliminate((short) 0, 1);
+    assertEquals(0, transfer.getExhaustedVotes());
+    assertEquals(0, transfer.getVotes(1));
+
+    assertFalse(trie.isRemoved(kept));
+    assertTrue(trie.isRemoved(merged));
+    assertEquals(10, trie.getCount(kept));
+    assertArrayEquals(new short[] {3, 1, 2}, ranking(trie, kept));
+    assertArrayEquals(new short[] {3}, ranking(trie, shortened));
+    assertEquals(1, trie.getCount(shortened));
+    assertArrayEquals(new long[] {0, 0, 0, 11}, trie.countFirstChoices());
+  }
+
+  /**
+   * Tests eliminating a candidate ranked at several depths, where the deeper nodes are spliced out
+   * before the shallower nodes merge their children, and in shards of one node.
+   */
+  @Test
+  public void testEliminateAtSeveralDepths() {
+    RankingTrie trie = new RankingTrie(4);
+    int first = trie.add(new short[] {1, 2, 3}, 2);
+    int second = trie.add(new short[] {2, 1, 3}, 3);
+    int third = trie.add(new short[] {3, 2, 1}, 4);
+    int fourth = trie.add(new short[] {3, 1, 2}, 5);
+    trie.add(new short[] {1}, 1);
+    assertEquals(4, trie.getNumNodes((short) 1));
+
+    RankingTrie.Transfer transfer = trie.eliminate((short) 1, 1);
+    assertEquals(1, transfer.getExhaustedVotes());
+    assertEquals(2, transfer.getVotes(2));
+    assertTrue(trie.isRemoved(first));
+    assertArrayEquals(new short[] {2, 3}, ranking(trie, second));
+    assertEquals(5, trie.getCount(second));
+    assertTrue(trie.isRemoved(fourth));
+    assertArrayEquals(new short[] {3, 2}, ranking(trie, third));
+    assertEquals(9, trie.getCount(third));
+    assertArrayEquals(new long[] {0, 0, 5, 9}, trie.countFirstChoices());
+
+    transfer = trie.eliminate((short) 3, 1);
+    assertEquals(9, transfer.getVotes(2));
+    assertArrayEquals(new long[] {0, 0, 14, 0}, trie.countFirstChoices());
+  }
+
+  /**
+   * Tests counting the ballots of a first choice that end there or rank a given candidate next.
+   */
+  @Test
+  public void testCountHeldBallots() {
+    RankingTrie trie = new RankingTrie(3);
+    trie.add(new short[] {0}, 2);
+    trie.add(new short[] {0, 1}, 3);
+    trie.add(new short[] {0, 1, 2}, 4);
+    trie.add(new short[] {0, 2, 1}, 5);
+    assertEquals(9, trie.countHeldBallots((short) 0, (short) 1));
+    assertEquals(7, trie.countHeldBallots((short) 0, (short) 2));
+    assertEquals(0, trie.countHeldBallots((short) 1, (short) 0));
+    assertThrows(IllegalArgumentException.class, () -> trie.countHeldBallots((short) 0, (short) 3));
+  }
+
+  /**
+   * Tests that the groups whose rankings have a candidate are found at every depth, and that groups
+   * removed by an elimination are not found.
+   */
+  @Test
+  public void testFindGroupsWith() {
+    RankingTrie trie = new RankingTrie(4);
+    int first = trie.add(new short[] {1, 2}, 1);
+    trie.add(new short[] {0, 3}, 2);
+    int deep = trie.add(new short[] {0, 3, 1}, 3);
+    int shallow = trie.add(new short[] {1}, 4);
+    int under = trie.add(new short[] {3, 1, 0}, 5);
+    assertArrayEquals(new int[] {first, deep, shallow, under}, trie.findGroupsWith((short) 1));
+
+    trie.eliminate((short) 2, 1);
+    trie.eliminate((short) 0, 1);
+    assertTrue(trie.isRemoved(deep));
+    assertArrayEquals(new int[] {shallow, under}, trie.findGroupsWith((short) 1));
+    assertArrayEquals(new int[0], trie.findGroupsWith((short) 0));
+    assertThrows(IllegalArgumentException.class, () -> trie.findGroupsWith((short) 4));
+  }
+
+  /**
+   * Tests counting the ballots of rankings written as classes, where rankings of candidates in the
+   * same class are added together.
+   */
+  @Test
+  public void testCountRankings() {
+    RankingTrie trie = new RankingTrie(3);
+    trie.add(new short[] {0, 1}, 2);
+    trie.add(new short[] {2, 1}, 3);
+    trie.add(new short[] {1}, 0);
+    int[] classes = new int[] {0, 1, 0};
+    assertEquals(5, trie.countRankings(new int[] {0, 1}, classes));
+    assertEquals(0, trie.countRankings(new int[] {1}, classes));
+    assertEquals(-1, trie.countRankings(new int[] {0}, classes));
+    assertEquals(-1, trie.countRankings(new int[] {1, 0}, classes));
+  }
+
+  /**
+   * Tests exceptions thrown on rankings and candidate IDs that aren't in the election.
+   */
+  @Test
+  public void testInvalidArguments() {
+    RankingTrie trie = new RankingTrie(2);
+    assertThrows(IllegalArgumentException.class, () -> new RankingTrie(-1));
+    assertThrows(IllegalArgumentException.class, () -> trie.add(new short[0], 1));
+    assertThrows(IllegalArgumentException.class, () -> trie.add(new short[] {0, 2}, 1));
+    assertThrows(IllegalArgumentException.class, () -> trie.eliminate((short) 2, 1));
+  }
+}
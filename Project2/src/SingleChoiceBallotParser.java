@@ -0,0 +1,107 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Parses the ballots of an OPL or PO election file byte by byte. Each ballot has a single 1 in
+ * the column of the candidate it votes for, and the votes are counted per candidate ID.
+ */
+public class SingleChoiceBallotParser extends BallotParser {
+
+  /**
+   * The number of votes each candidate has received so far, indexed by candidate ID.
+   */
+  private final long[] votes;
+
+  /**
+   * The number of ballots parsed so far.
+   */
+  private long numberOfBallots;
+
+  /**
+   * Constructor initializes a parser for an election with the given number of candidates.
+   *
+   * @param numberOfCandidates the number of candidates in the election.
+   * @throws IllegalArgumentException if numberOfCandidates is negative.
+   */
+  public SingleChoiceBallotParser(int numberOfCandidates) throws IllegalArgumentException {
+    if (numberOfCandidates < 0) throw new IllegalArgumentException("Number of candidates cannot be negative.");
+
+    votes = new long[numberOfCandidates];
+    numberOfBallots = 0;
+  }
+
+  /**
+   * Parses a single ballot and counts a vote for the candidate in the column of the first 1.
+   *
+   * @param buffer the buffer holding the ballot.
+   * @param start the index of the first byte of the ballot.
+   * @param end the index right after the last byte of the ballot (not including the newline).
+   * @throws IOException if the ballot does not vote for one of the candidates.
+   */
+  @Override
+  protected void parseBallot(ByteBuffer buffer, int start, int end) throws IOException {
+    int candidate = 0;
+    for (int i = start; i < end; i++) {
+      byte current = buffer.get(i);
+      if (current == '1') {
+        if (candidate >= votes.length) {
+          break;
+        }
+        votes[candidate]++;
+        numberOfBallots++;
+        return;
+      } else if (current == ',') {
+        candidate++;
+      }
+    }
+    throw new IOException("A ballot does not vote for any of the candidates.");
+  }
+
+  /**
+   * Adds ballots that have already been counted.
+   *
+   * @param candidate the ID of the candidate the ballots vote for.
+   * @param count the number of ballots.
+   * @throws IllegalArgumentException if the candidate is not in the election or the count is
+   *                                  negative.
+   */
+  public void addVotes(int candidate, long count) throws IllegalArgumentException {
+    if (candidate < 0 || candidate >= votes.length || count < 0) throw new IllegalArgumentException("Candidate must be in the election and count cannot be negative.");
+
+    votes[candidate] += count;
+    numberOfBallots += count;
+  }
+
+  /**
+   * Adds the votes parsed by another single choice parser to the votes parsed by this parser.
+   *
+   * @param other a single choice parser that parsed the ballots following this parser's.
+   */
+  @Override
+  protected void merge(BallotParser other) {
+    SingleChoiceBallotParser otherSingleChoice = (SingleChoiceBallotParser) other;
+    for (int candidate = 0; candidate < votes.length; candidate++) {
+      votes[candidate] += otherSingleChoice.votes[candidate];
+    }
+    numberOfBallots += otherSingleChoice.numberOfBallots;
+    linesParsed += otherSingleChoice.linesParsed;
+  }
+
+  /**
+   * Gets the number of votes each candidate has received so far.
+   *
+   * @return the votes indexed by candidate ID.
+   */
+  public long[] getVotes() {
+    return votes;
+  }
+
+  /**
+   * Gets the number of ballots parsed so far.
+   *
+   * @return number of ballots.
+   */
+  public long getNumberOfBallots() {
+    return numberOfBallots;
+  }
+}
@@ -0,0 +1,323 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * VoteTally keeps the vote counts of an election in dense arrays: the votes of each candidate
+ * indexed by the candidate's place in the election, the party each candidate belongs to, and the
+ * votes and seats of each party indexed by the party's place in the election. The elections count
+ * straight into these arrays, and Candidate and Party objects are views over them, so a candidate's
+ * or party's getters and setters read and write the tally the object belongs to.
+ *
+ * <p>A candidate or party that has not been put into an election has a tally of its own.
+ */
+public class VoteTally {
+
+  /**
+   * The current number of votes of each candidate.
+   */
+  private final long[] candidateVotes;
+
+  /**
+   * The index of the party each candidate belongs to, or -1 if the tally has no parties.
+   */
+  private final int[] partyOf;
+
+  /**
+   * The total votes of each party.
+   */
+  private final long[] partyVotes;
+
+  /**
+   * The votes each party has left after the first allocation of an OPL election.
+   */
+  private final long[] remainingVotes;
+
+  /**
+   * The number of seats each party has earned in an OPL election.
+   */
+  private final int[] seats;
+
+  /**
+   * The parties in the tally in order of their index.
+   */
+  private final ArrayList<Party> parties;
+
+  /**
+   * Constructor for the tally of a single candidate or party that is not in an election yet.
+   *
+   * @param numCandidates the number of candidates.
+   * @param numParties the number of parties.
+   */
+  VoteTally(int numCandidates, int numParties) {
+    candidateVotes = new long[numCandidates];
+    partyOf = new int[numCandidates];
+    Arrays.fill(partyOf, -1);
+    partyVotes = new long[numParties];
+    remainingVotes = new long[numParties];
+    seats = new int[numParties];
+    parties = new ArrayList<>();
+  }
+
+  /**
+   * Puts the candidates of an election into a new tally, in the order they are given, and groups
+   * them into parties by their party names in the order the parties first appear. Each candidate
+   * keeps its current number of votes.
+   *
+   * @param candidates the candidates in the election.
+   * @return the tally of the candidates.
+   * @throws IllegalArgumentException if candidates is null.
+   */
+  public static VoteTally ofCandidates(List<Candidate> candidates) throws IllegalArgumentException {
+    if (candidates == null) throw new IllegalArgumentException("Candidates must not be null.");
+
+    HashMap<String, Integer> partyIndexes = new HashMap<>();
+    for (Candidate candidate : candidates) {
+      partyIndexes.putIfAbsent(candidate.getParty(), partyIndexes.size());
+    }
+    VoteTally tally = new VoteTally(candidates.size(), partyIndexes.size());
+    for (int i = 0; i < candidates.size(); i++) {
+      Candidate candidate = candidates.get(i);
+      int party = partyIndexes.get(candidate.getParty());
+      if (party == tally.parties.size()) {
+        Party newParty = new Party(candidate.getParty());
+        newParty.bind(tally, party);
+        tally.parties.add(newParty);
+      }
+      tally.parties.get(party).addCandidate(candidate);
+      tally.partyOf[i] = party;
+      tally.candidateVotes[i] = candidate.getCurNumVotes();
+      candidate.bind(tally, i);
+    }
+    tally.countPartyVotes();
+    return tally;
+  }
+
+  /**
+   * Gets the tally the parties of an election share, so the election can count straight into it.
+   * Parties that were created together by a tally, and whose candidates have not moved to another
+   * tally since, keep that tally. Otherwise the parties and their candidates are put into a new
+   * tally in the order they are given, and keep their current votes and seats.
+   *
+   * @param parties the parties in the election.
+   * @return the tally of the parties.
+   * @throws IllegalArgumentException if parties is null or empty.
+   */
+  public static VoteTally of(List<Party> parties) throws IllegalArgumentException {
+    if (parties == null || parties.isEmpty()) throw new IllegalArgumentException("Parties must not be null or empty.");
+
+    VoteTally shared = parties.get(0).getTally();
+    if (shared.isTallyOf(parties)) {
+      return shared;
+    }
+
+    int numCandidates = 0;
+    for (Party party : parties) {
+      numCandidates += party.getNumCandidates();
+    }
+    VoteTally tally = new VoteTally(numCandidates, parties.size());
+    int candidateIndex = 0;
+    for (int p = 0; p < parties.size(); p++) {
+      Party party = parties.get(p);
+      tally.partyVotes[p] = party.getTotalVotes();
+      tally.remainingVotes[p] = party.getRemainingVotes();
+      tally.seats[p] = party.getNumberOfSeats();
+      tally.parties.add(party);
+      party.bind(tally, p);
+      for (Candidate candidate : party.getCandidates()) {
+        tally.candidateVotes[candidateIndex] = candidate.getCurNumVotes();
+        tally.partyOf[candidateIndex] = p;
+        candidate.bind(tally, candidateIndex);
+        candidateIndex++;
+      }
+    }
+    return tally;
+  }
+
+  /**
+   * Checks whether the parties and all of their candidates are views over this tally, with the
+   * parties in the same order.
+   *
+   * @param parties the parties to check.
+   * @return whether this tally is the tally of the parties.
+   */
+  private boolean isTallyOf(List<Party> parties) {
+    if (parties.size() != this.parties.size()) {
+      return false;
+    }
+    int numCandidates = 0;
+    for (int p = 0; p < parties.size(); p++) {
+      Party party = parties.get(p);
+      if (party != this.parties.get(p) || party.getTally() != this) {
+        return false;
+      }
+      for (Candidate candidate : party.getCandidates()) {
+        if (candidate.getTally() != this || partyOf[candidate.getTallyIndex()] != p) {
+          return false;
+        }
+      }
+      numCandidates += party.getNumCandidates();
+    }
+    return numCandidates == candidateVotes.length;
+  }
+
+  /**
+   * Copies the votes of the tally into a new tally with new candidates and parties, so another
+   * election can be run on the same votes without changing this one. The candidates and parties
+   * keep their names, IDs, and order, and start with no seats or remaining votes.
+   *
+   * @return the new tally.
+   */
+  public VoteTally copyVotes() {
+    VoteTally copy = new VoteTally(candidateVotes.length, parties.size());
+    System.arraycopy(candidateVotes, 0, copy.candidateVotes, 0, candidateVotes.length);
+    System.arraycopy(partyOf, 0, copy.partyOf, 0, partyOf.length);
+    System.arraycopy(partyVotes, 0, copy.partyVotes, 0, partyVotes.length);
+    for (int p = 0; p < parties.size(); p++) {
+      Party party = parties.get(p);
+      Party partyCopy = new Party(party.getName());
+      partyCopy.bind(copy, p);
+      copy.parties.add(partyCopy);
+      for (Candidate candidate : party.getCandidates()) {
+        Candidate candidateCopy = new Candidate(candidate.getName(), candidate.getParty(),
+                candidate.getCandidateID());
+        candidateCopy.bind(copy, candidate.getTallyIndex());
+        partyCopy.addCandidate(candidateCopy);
+      }
+    }
+    return copy;
+  }
+
+  /**
+   * Gets the number of candidates in the tally.
+   *
+   * @return the number of candidates.
+   */
+  public int getNumCandidates() {
+    return candidateVotes.length;
+  }
+
+  /**
+   * Gets the parties in the tally in order of their index.
+   *
+   * @return the parties.
+   */
+  public ArrayList<Party> getParties() {
+    return parties;
+  }
+
+  /**
+   * Gets the current number of votes of a candidate.
+   *
+   * @param candidate the index of the candidate.
+   * @return the candidate's votes.
+   */
+  public long getVotes(int candidate) {
+    return candidateVotes[candidate];
+  }
+
+  /**
+   * Sets the current number of votes of a candidate. The votes are not checked, so counting loops
+   * should only call this with votes that can't be negative.
+   *
+   * @param candidate the index of the candidate.
+   * @param votes the candidate's votes.
+   */
+  public void setVotes(int candidate, long votes) {
+    candidateVotes[candidate] = votes;
+  }
+
+  /**
+   * Adds votes to a candidate. The votes are not checked, so counting loops should only call this
+   * with votes that can't be negative.
+   *
+   * @param candidate the index of the candidate.
+   * @param votes the votes to add.
+   */
+  public void addVotes(int candidate, long votes) {
+    candidateVotes[candidate] += votes;
+  }
+
+  /**
+   * Gets the index of the party a candidate belongs to.
+   *
+   * @param candidate the index of the candidate.
+   * @return the index of the candidate's party, or -1 if the tally has no parties.
+   */
+  public int getPartyOf(int candidate) {
+    return partyOf[candidate];
+  }
+
+  /**
+   * Sets the total votes of each party to the sum of its candidates' votes.
+   */
+  public void countPartyVotes() {
+    Arrays.fill(partyVotes, 0);
+    for (int candidate = 0; candidate < candidateVotes.length; candidate++) {
+      if (partyOf[candidate] >= 0) {
+        partyVotes[partyOf[candidate]] += candidateVotes[candidate];
+      }
+    }
+  }
+
+  /**
+   * Gets the total votes of a party.
+   *
+   * @param party the index of the party.
+   * @return the party's total votes.
+   */
+  public long getPartyVotes(int party) {
+    return partyVotes[party];
+  }
+
+  /**
+   * Sets the total votes of a party.
+   *
+   * @param party the index of the party.
+   * @param votes the party's total votes.
+   */
+  public void setPartyVotes(int party, long votes) {
+    partyVotes[party] = votes;
+  }
+
+  /**
+   * Gets the votes a party has left after the first allocation of an OPL election.
+   *
+   * @param party the index of the party.
+   * @return the party's remaining votes.
+   */
+  public long getRemainingVotes(int party) {
+    return remainingVotes[party];
+  }
+
+  /**
+   * Sets the votes a party has left after the first allocation of an OPL election.
+   *
+   * @param party the index of the party.
+   * @param votes the party's remaining votes.
+   */
+  public void setRemainingVotes(int party, long votes) {
+    remainingVotes[party] = votes;
+  }
+
+  /**
+   * Gets the number of seats a party has earned in an OPL election.
+   *
+   * @param party the index of the party.
+   * @return the party's seats.
+   */
+  public int getSeats(int party) {
+    return seats[party];
+  }
+
+  /**
+   * Sets the number of seats a party has earned in an OPL election.
+   *
+   * @param party the index of the party.
+   * @param seats the party's seats.
+   */
+  public void setSeats(int party, int seats) {
+    this.seats[party] = seats;
+  }
+}
@@ -0,0 +1,117 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * VoteTally Class Unit Tests
+ */
+public class VoteTallyTest {
+
+  /**
+   * Tests that candidates are grouped into parties in the order the parties first appear, and that
+   * votes counted into the tally are seen through the candidates and parties.
+   */
+  @Test
+  public void testOfCandidates() {
+    ArrayList<Candidate> candidates = new ArrayList<>();
+    candidates.add(new Candidate("Pike", "D", 0));
+    candidates.add(new Candidate("Foster", "R", 1));
+    candidates.add(new Candidate("Deutsch", "D", 2));
+    candidates.get(2).setCurNumVotes(4);
+
+    VoteTally tally = VoteTally.ofCandidates(candidates);
+    assertEquals(3, tally.getNumCandidates());
+    ArrayList<Party> parties = tally.getParties();
+    assertEquals(2, parties.size());
+    assertEquals("D", parties.get(0).getName());
+    assertEquals(List.of("Pike", "Deutsch"), parties.get(0).getCandidateNames());
+    assertEquals(0, tally.getPartyOf(2));
+    assertEquals(1, tally.getPartyOf(1));
+    assertEquals(4, parties.get(0).getTotalVotes());
+
+    tally.addVotes(0, 3);
+    tally.addVotes(1, 5);
+    candidates.get(2).incrementCurNumVotes(1);
+    tally.countPartyVotes();
+    assertEquals(3, candidates.get(0).getCurNumVotes());
+    assertEquals(5, tally.getVotes(2));
+    assertEquals(8, parties.get(0).getTotalVotes());
+    assertEquals(5, parties.get(1).getTotalVotes());
+
+    parties.get(1).setNumberOfSeats(2);
+    assertEquals(2, tally.getSeats(1));
+  }
+
+  /**
+   * Tests that parties created by a tally keep it, and that parties made by hand are put into a new
+   * tally that keeps their votes and seats.
+   */
+  @Test
+  public void testOfParties() {
+    ArrayList<Candidate> candidates = new ArrayList<>();
+    candidates.add(new Candidate("Pike", "D", 0));
+    candidates.add(new Candidate("Foster", "R", 1));
+    VoteTally tally = VoteTally.ofCandidates(candidates);
+    assertSame(tally, VoteTally.of(tally.getParties()));
+
+    Party party = new Party("I");
+    Candidate candidate = new Candidate("Jones", "I", 0);
+    candidate.setCurNumVotes(7);
+    party.addCandidate(candidate);
+    party.setTotalVotes(7);
+    party.setRemainingVotes(2);
+    party.setNumberOfSeats(1);
+    ArrayList<Party> parties = new ArrayList<>(tally.getParties());
+    parties.add(party);
+
+    VoteTally merged = VoteTally.of(parties);
+    assertNotSame(tally, merged);
+    assertEquals(3, merged.getNumCandidates());
+    assertEquals(7, merged.getVotes(2));
+    assertEquals(2, merged.getPartyOf(2));
+    assertEquals(2, merged.getRemainingVotes(2));
+    assertEquals(1, merged.getSeats(2));
+
+    merged.addVotes(2, 1);
+    assertEquals(8, candidate.getCurNumVotes());
+    assertSame(merged, VoteTally.of(parties));
+    assertThrows(IllegalArgumentException.class, () -> VoteTally.of(new ArrayList<>()));
+    assertThrows(IllegalArgumentException.class, () -> VoteTally.ofCandidates(null));
+  }
+
+  /**
+   * Tests that a copy of a tally has the same votes in new candidates and parties, and that
+   * changing the copy does not change the tally it was copied from.
+   */
+  @Test
+  public void testCopyVotes() {
+    ArrayList<Candidate> candidates = new ArrayList<>();
+    candidates.add(new Candidate("Pike", "D", 0));
+    candidates.add(new Candidate("Foster", "R", 1));
+    candidates.add(new Candidate("Deutsch", "D", 2));
+    VoteTally tally = VoteTally.ofCandidates(candidates);
+    tally.addVotes(0, 3);
+    tally.addVotes(2, 4);
+    tally.countPartyVotes();
+    tally.setSeats(0, 2);
+
+    VoteTally copy = tally.copyVotes();
+    ArrayList<Party> parties = copy.getParties();
+    assertEquals(List.of("Pike", "Deutsch"), parties.get(0).getCandidateNames());
+    assertNotSame(candidates.get(2), parties.get(0).getCandidates().get(1));
+    assertEquals(2, parties.get(0).getCandidates().get(1).getCandidateID());
+    assertEquals(4, parties.get(0).getCandidates().get(1).getCurNumVotes());
+    assertEquals(7, parties.get(0).getTotalVotes());
+    assertEquals(0, parties.get(0).getNumberOfSeats());
+    assertEquals(1, copy.getPartyOf(1));
+
+    parties.get(0).setNumberOfSeats(1);
+    copy.addVotes(0, 1);
+    assertEquals(2, tally.getSeats(0));
+    assertEquals(3, candidates.get(0).getCurNumVotes());
+    assertSame(copy, VoteTally.of(parties));
+  }
+}